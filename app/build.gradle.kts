@@ -25,6 +25,10 @@ android {
             )
         }
     }
+    // sách khai cuộc được map thẳng từ APK nên không được nén
+    androidResources {
+        noCompress += "bin"
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -33,6 +37,7 @@ android {
 
 dependencies {
 
+    implementation(project(":engine"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
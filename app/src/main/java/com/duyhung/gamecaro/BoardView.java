@@ -0,0 +1,231 @@
+package com.duyhung.gamecaro;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.Arrays;
+
+// Bàn cờ vẽ trên một View duy nhất thay cho lưới Button: lưới và quân được vẽ sẵn vào một bitmap,
+// mỗi nước chỉ vẽ lại các ô bẩn (ô vừa đánh, ô đánh dấu nước trước, đường thắng) vào bitmap đó;
+// onDraw chỉ dán bitmap nên một khung hình không phụ thuộc số quân trên bàn.
+public class BoardView extends View {
+
+    public interface OnCellClickListener {
+        void onCellClick(int row, int col);
+    }
+
+    private static final String TAG = "BoardView";
+    private static final int BOARD_COLOR = Color.WHITE;
+    private static final int GRID_COLOR = Color.LTGRAY;
+    private static final int LAST_MOVE_COLOR = 0xFFD8F5D0;
+    private static final int WIN_COLOR = Color.YELLOW;
+
+    private final Paint gridPaint = new Paint();
+    private final Paint fillPaint = new Paint();
+    private final Paint xPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint oPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private GameSession session;
+    private int cellSize;
+    private OnCellClickListener listener;
+
+    private Bitmap cache; // lưới + quân, chỉ vẽ lại ô bẩn
+    private Canvas cacheCanvas;
+    private boolean fullRedraw = true;
+    private int[] dirty = new int[16]; // ô bẩn chờ vẽ lại, mã hoá row * size + col
+    private int dirtyCount;
+    private int lastMove = -1;
+    private boolean[] winning; // ô thuộc đường thắng, null nếu chưa ai thắng
+
+    private long lastDrawNanos;
+    private int redrawnCells;
+
+    public BoardView(Context context) {
+        this(context, null);
+    }
+
+    public BoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        gridPaint.setColor(GRID_COLOR);
+        gridPaint.setStrokeWidth(1);
+        xPaint.setColor(Color.RED);
+        xPaint.setTextAlign(Paint.Align.CENTER);
+        oPaint.setColor(Color.BLUE);
+        oPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    // Gắn ván cờ cần vẽ; kích thước bàn lấy từ session
+    public void setSession(GameSession session) {
+        this.session = session;
+        winning = null;
+        lastMove = -1;
+        redrawAll();
+        requestLayout();
+    }
+
+    public void setCellSize(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        xPaint.setTextSize(this.cellSize * 0.6f);
+        oPaint.setTextSize(this.cellSize * 0.6f);
+        releaseCache();
+        requestLayout();
+        invalidate();
+    }
+
+    public void setOnCellClickListener(OnCellClickListener listener) {
+        this.listener = listener;
+    }
+
+    // Gọi sau mỗi nước mới trong session: vẽ lại ô đó và ô đánh dấu nước trước
+    public void onMovePlayed() {
+        int[] move = session.getLastMove();
+        if (move == null) return;
+        if (lastMove >= 0) markDirty(lastMove);
+        lastMove = move[0] * session.getSize() + move[1];
+        markDirty(lastMove);
+        invalidate();
+    }
+
+    public void showWinningLine(int[][] line) {
+        if (line == null) return;
+        int size = session.getSize();
+        winning = new boolean[size * size];
+        for (int[] cell : line) {
+            winning[cell[0] * size + cell[1]] = true;
+            markDirty(cell[0] * size + cell[1]);
+        }
+        invalidate();
+    }
+
+    // Vẽ lại toàn bộ từ session, dùng khi chơi lại hoặc khôi phục ván
+    public void redrawAll() {
+        int[] move = session == null ? null : session.getLastMove();
+        lastMove = move == null ? -1 : move[0] * session.getSize() + move[1];
+        if (session != null && session.getWinningLine() == null) winning = null;
+        fullRedraw = true;
+        dirtyCount = 0;
+        invalidate();
+    }
+
+    // Thời gian onDraw gần nhất và số ô phải vẽ lại trong lần đó, để so với lưới Button cũ
+    public long getLastDrawNanos() {
+        return lastDrawNanos;
+    }
+
+    public int getLastRedrawnCells() {
+        return redrawnCells;
+    }
+
+    private void markDirty(int cell) {
+        if (fullRedraw) return;
+        if (dirtyCount == dirty.length) dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        dirty[dirtyCount++] = cell;
+    }
+
+    private void releaseCache() {
+        if (cache != null) cache.recycle();
+        cache = null;
+        cacheCanvas = null;
+        fullRedraw = true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        releaseCache();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int side = session == null ? 0 : cellSize * session.getSize() + 1;
+        setMeasuredDimension(resolveSize(side, widthMeasureSpec), resolveSize(side, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (session == null || cellSize == 0) return;
+        long start = SystemClock.elapsedRealtimeNanos();
+        int size = session.getSize();
+        int side = cellSize * size + 1;
+        if (cache == null) {
+            // bàn mờ đục nên RGB_565 đủ dùng, tốn nửa bộ nhớ so với ARGB_8888
+            cache = Bitmap.createBitmap(side, side, Bitmap.Config.RGB_565);
+            cacheCanvas = new Canvas(cache);
+            fullRedraw = true;
+        }
+
+        if (fullRedraw) {
+            cacheCanvas.drawColor(BOARD_COLOR);
+            for (int i = 0; i <= size; i++) {
+                cacheCanvas.drawLine(0, i * cellSize, side, i * cellSize, gridPaint);
+                cacheCanvas.drawLine(i * cellSize, 0, i * cellSize, side, gridPaint);
+            }
+            redrawnCells = 0;
+            for (int row = 0; row < size; row++)
+                for (int col = 0; col < size; col++)
+                    if (session.getCell(row, col) != CaroBoard.EMPTY || row * size + col == lastMove) {
+                        drawCell(row, col);
+                        redrawnCells++;
+                    }
+            fullRedraw = false;
+        } else {
+            for (int i = 0; i < dirtyCount; i++) drawCell(dirty[i] / size, dirty[i] % size);
+            redrawnCells = dirtyCount;
+        }
+        dirtyCount = 0;
+
+        canvas.drawBitmap(cache, 0, 0, null);
+        lastDrawNanos = SystemClock.elapsedRealtimeNanos() - start;
+        // bật bằng: adb shell setprop log.tag.BoardView DEBUG
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "onDraw: " + redrawnCells + " cells, " + lastDrawNanos / 1000 + " us");
+        }
+    }
+
+    // Nền (thường, nước cuối, đường thắng) rồi tới quân, trong ô (row, col) của bitmap
+    private void drawCell(int row, int col) {
+        int cell = row * session.getSize() + col;
+        int left = col * cellSize, top = row * cellSize;
+        int background = winning != null && winning[cell] ? WIN_COLOR
+                : cell == lastMove ? LAST_MOVE_COLOR : BOARD_COLOR;
+        fillPaint.setColor(background);
+        cacheCanvas.drawRect(left + 1, top + 1, left + cellSize, top + cellSize, fillPaint);
+
+        int stone = session.getCell(row, col);
+        if (stone == CaroBoard.EMPTY) return;
+        Paint paint = stone == CaroBoard.PLAYER_X ? xPaint : oPaint;
+        float baseline = top + cellSize / 2f - (paint.descent() + paint.ascent()) / 2;
+        cacheCanvas.drawText(stone == CaroBoard.PLAYER_X ? "X" : "O", left + cellSize / 2f, baseline, paint);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (session == null || cellSize == 0) return false;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                return true;
+            case MotionEvent.ACTION_UP:
+                int row = (int) (event.getY() / cellSize);
+                int col = (int) (event.getX() / cellSize);
+                if (row < 0 || row >= session.getSize() || col < 0 || col >= session.getSize()) return true;
+                performClick();
+                if (listener != null) listener.onCellClick(row, col);
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+}
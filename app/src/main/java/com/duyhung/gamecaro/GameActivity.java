@@ -1,34 +1,83 @@
 package com.duyhung.gamecaro;
 
-import android.graphics.Color;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Rect;
+import android.os.BatteryManager;
 import android.os.Bundle;
-import android.util.TypedValue;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.WindowMetrics;
 import android.widget.Button;
-import android.widget.GridLayout;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class GameActivity extends AppCompatActivity {
 
     public static final String EXTRA_MODE = "mode";
+    public static final String EXTRA_BOARD_SIZE = "board_size";
+    public static final String EXTRA_RESUME = "resume"; // tiếp tục ván dở lưu trong file
+    public static final String EXTRA_RECORD = "record"; // GameRecord.encode() của ván nhập từ ngoài
     public static final int MODE_TWO_PLAYERS = 1;
     public static final int MODE_PLAY_WITH_AI = 2;
-
-    private GridLayout gridBoard;
+    // Cài đặt chung, sửa từ MainActivity
+    public static final String PREFS_SETTINGS = "settings";
+    public static final String KEY_PONDER = "ponder"; // máy nghĩ trong lượt người chơi, mặc định tắt
+    public static final String KEY_DIFFICULTY = "difficulty"; // Difficulty.name(), mặc định HARD
+
+    private static final int AI_MAX_THREADS = 4;
+    private static final int PONDER_MIN_BATTERY = 30; // % pin tối thiểu để ponder khi không sạc
+    private static final String TAG = "GameActivity";
+    private static final String OPENING_BOOK_ASSET = "opening_book.bin"; // sinh bằng: caro book --plies 6
+    // Ván đang chơi: GameRecord ghi thêm từng nước; ván xong chuyển sang kho lịch sử
+    private static final String CURRENT_GAME_FILE = "current_game.rec";
+    private static final String HISTORY_FILE = "history.rec";
+    private static final String PREFS_CURRENT_GAME = "current_game"; // chế độ và ký hiệu của ván đang chơi
+    private static final String KEY_RECORD = "record";
+    private static final String KEY_MODE = "mode";
+    private static final String KEY_PLAYER_SYMBOL = "player_symbol";
+    private static final String KEY_AI_SYMBOL = "ai_symbol";
+    // Khi bật lớp thống kê, mỗi nước của máy được ghi thêm một dòng SearchStats.toJson() vào file này
+    // (lấy ra bằng adb để gộp nhiều phiên)
+    private static final String STATS_FILE = "search_stats.jsonl";
+    private static final String PREFS_DEBUG = "debug";
+    private static final String KEY_STATS_OVERLAY = "stats_overlay";
+
+    private BoardView boardView;
     private TextView tvStatus;
+    private TextView tvStats;
+    private boolean statsOverlay;
+    private SearchStats lastStats; // của nước máy gần nhất
+    private boolean ponderEnabled;
+    private long humanMoveAt; // lúc người chơi đi, để đo độ trễ máy trả lời
     private Button btnPlayAgain;
+    private Button btnDifficulty;
+    private Difficulty difficulty;
 
-    private CaroBoard caroBoard;
-    private Button[][] buttons;
+    private GameSession session;
+    private CaroAI caroAI;
 
-    private int currentPlayer;
-    private boolean gameEnded = false;
     private int mode;
 
     private int playerSymbol;
@@ -36,70 +85,375 @@ public class GameActivity extends AppCompatActivity {
 
     private Random random = new Random();
 
+    // AI tìm nước trên một luồng nền riêng rồi post kết quả về UI thread
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "caro-ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Future<?> aiTask;
+    private int gameId; // tăng mỗi lần huỷ/chơi lại, kết quả của ván cũ bị bỏ qua
+
+    // Ghi file trên một luồng riêng, theo đúng thứ tự nước đi
+    private final ExecutorService storageExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "caro-storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private File currentGameFile;
+    private GameHistory history;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long createStart = SystemClock.elapsedRealtime();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_game);
 
-        gridBoard = findViewById(R.id.gridBoard);
+        boardView = findViewById(R.id.boardView);
         tvStatus = findViewById(R.id.tvStatus);
+        tvStats = findViewById(R.id.tvStats);
+        statsOverlay = getSharedPreferences(PREFS_DEBUG, MODE_PRIVATE).getBoolean(KEY_STATS_OVERLAY, false);
+        tvStatus.setOnLongClickListener(v -> {
+            setStatsOverlay(!statsOverlay);
+            return true;
+        });
         btnPlayAgain = findViewById(R.id.btnPlayAgain);
+        btnDifficulty = findViewById(R.id.btnDifficulty);
 
-        caroBoard = new CaroBoard();
-        buttons = new Button[CaroBoard.SIZE][CaroBoard.SIZE];
+        currentGameFile = new File(getFilesDir(), CURRENT_GAME_FILE);
+        history = new GameHistory(new File(getFilesDir(), HISTORY_FILE));
 
-        mode = getIntent().getIntExtra(EXTRA_MODE, MODE_TWO_PLAYERS);
+        GameSession restored = restoreGame(savedInstanceState);
+        if (restored != null) {
+            session = restored;
+        } else {
+            int boardSize = getIntent().getIntExtra(EXTRA_BOARD_SIZE, CaroBoard.SIZE);
+            session = new GameSession(Math.max(CaroBoard.MIN_SIZE, Math.min(CaroBoard.MAX_SIZE, boardSize)));
+        }
+        // Máy ít RAM dùng bảng chuyển vị nhỏ hơn
+        ActivityManager activityManager = getSystemService(ActivityManager.class);
+        caroAI = new CaroAI(activityManager.isLowRamDevice() ? 4 : CaroAI.DEFAULT_TABLE_MB);
+        loadOpeningBook();
+        SharedPreferences settings = getSharedPreferences(PREFS_SETTINGS, MODE_PRIVATE);
+        ponderEnabled = settings.getBoolean(KEY_PONDER, false);
+        applyDifficulty(loadDifficulty(settings));
+        btnDifficulty.setVisibility(mode == MODE_PLAY_WITH_AI ? View.VISIBLE : View.GONE);
+        btnDifficulty.setOnClickListener(v -> showDifficultyDialog());
 
         createBoardUI();
+        logStartup(createStart);
 
-        if (mode == MODE_PLAY_WITH_AI) {
+        if (restored != null) {
+            resumeGame();
+        } else if (mode == MODE_PLAY_WITH_AI) {
             showSymbolChoiceDialog();
         } else {
             playerSymbol = CaroBoard.PLAYER_X;
             aiSymbol = -1;
-            currentPlayer = CaroBoard.PLAYER_X;
             resetGame();
         }
 
         btnPlayAgain.setOnClickListener(v -> {
-            caroBoard.reset();
             resetGame();
             if (mode == MODE_PLAY_WITH_AI) showSymbolChoiceDialog();
         });
+        findViewById(R.id.btnExport).setOnClickListener(v -> exportGame());
+    }
+
+    // Ván đang chơi trong file có thể tiếp tục sau khi app bị đóng hẳn
+    public static boolean hasSavedGame(Context context) {
+        return new File(context.getFilesDir(), CURRENT_GAME_FILE).length() > 1;
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (playerSymbol == 0) return; // còn đang chọn ký hiệu, tạo lại activity thì hỏi lại
+        outState.putByteArray(KEY_RECORD, GameRecord.of(session).encode());
+        outState.putInt(KEY_MODE, mode);
+        outState.putInt(KEY_PLAYER_SYMBOL, playerSymbol);
+        outState.putInt(KEY_AI_SYMBOL, aiSymbol);
     }
 
-    // Hàm đếm số nước đã đi trên bàn
-    private int countMoves() {
-        int count = 0;
-        for (int i = 0; i < CaroBoard.SIZE; i++) {
-            for (int j = 0; j < CaroBoard.SIZE; j++) {
-                if (caroBoard.getCell(i, j) != CaroBoard.EMPTY) count++;
+    // Ván từ Bundle (xoay màn hình, process bị kill), từ file ván dở hoặc ván nhập; null nếu là ván mới.
+    // Đặt luôn mode và ký hiệu của ván được khôi phục
+    private GameSession restoreGame(Bundle savedInstanceState) {
+        try {
+            if (savedInstanceState != null && savedInstanceState.containsKey(KEY_RECORD)) {
+                mode = savedInstanceState.getInt(KEY_MODE);
+                playerSymbol = savedInstanceState.getInt(KEY_PLAYER_SYMBOL);
+                aiSymbol = savedInstanceState.getInt(KEY_AI_SYMBOL);
+                return GameRecord.decode(savedInstanceState.getByteArray(KEY_RECORD)).replay();
             }
+            if (getIntent().getBooleanExtra(EXTRA_RESUME, false) && currentGameFile.exists()) {
+                SharedPreferences prefs = getSharedPreferences(PREFS_CURRENT_GAME, MODE_PRIVATE);
+                mode = prefs.getInt(KEY_MODE, MODE_TWO_PLAYERS);
+                playerSymbol = prefs.getInt(KEY_PLAYER_SYMBOL, CaroBoard.PLAYER_X);
+                aiSymbol = prefs.getInt(KEY_AI_SYMBOL, -1);
+                return GameRecord.decode(Files.readAllBytes(currentGameFile.toPath())).replay();
+            }
+            byte[] imported = getIntent().getByteArrayExtra(EXTRA_RECORD);
+            if (imported != null) {
+                mode = MODE_TWO_PLAYERS;
+                playerSymbol = CaroBoard.PLAYER_X;
+                aiSymbol = -1;
+                GameSession session = GameRecord.decode(imported).replay();
+                startGameLog(session);
+                return session;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "cannot restore game", e);
         }
-        return count;
+        mode = getIntent().getIntExtra(EXTRA_MODE, MODE_TWO_PLAYERS);
+        playerSymbol = 0;
+        return null;
     }
 
-    private void aiMakeMove() {
-        if (gameEnded) return;
+    private void resumeGame() {
+        boardView.redrawAll();
+        btnPlayAgain.setEnabled(session.isOver());
+        if (showResult()) return;
+        if (mode == MODE_PLAY_WITH_AI && session.getSideToMove() == aiSymbol) {
+            aiMakeMove();
+        } else {
+            tvStatus.setText("Lượt người chơi: " + playerName(session.getSideToMove()));
+        }
+    }
+
+    // Ghi lại từ đầu file ván dở (kể cả các nước đã có) cùng chế độ chơi
+    private void startGameLog(GameSession game) {
+        getSharedPreferences(PREFS_CURRENT_GAME, MODE_PRIVATE).edit()
+                .putInt(KEY_MODE, mode)
+                .putInt(KEY_PLAYER_SYMBOL, playerSymbol)
+                .putInt(KEY_AI_SYMBOL, aiSymbol)
+                .apply();
+        byte[] data = GameRecord.of(game).encode();
+        storageExecutor.execute(() -> {
+            try (FileOutputStream out = new FileOutputStream(currentGameFile)) {
+                out.write(data);
+            } catch (IOException e) {
+                Log.w(TAG, "cannot write " + currentGameFile, e);
+            }
+        });
+    }
+
+    // Sau mỗi nước: thêm 1-2 byte vào file ván dở; ván xong thì đưa vào lịch sử và xoá file ván dở
+    private void recordMove() {
+        int size = session.getSize();
+        int[] move = session.getLastMove();
+        GameRecord finished = session.isOver() ? GameRecord.of(session) : null;
+        storageExecutor.execute(() -> {
+            try {
+                if (finished != null) {
+                    history.append(finished);
+                    if (!currentGameFile.delete()) Log.w(TAG, "cannot delete " + currentGameFile);
+                    return;
+                }
+                try (FileOutputStream out = new FileOutputStream(currentGameFile, true)) {
+                    GameRecord.writeMove(out, size, move[0], move[1]);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "cannot save move", e);
+            }
+        });
+    }
+
+    // Chia sẻ ván dưới dạng ký hiệu toạ độ (h8 i9 ...)
+    private void exportGame() {
+        String text = "Caro " + session.getSize() + "x" + session.getSize() + ": " + GameRecord.of(session).toNotation();
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/plain");
+        intent.putExtra(Intent.EXTRA_TEXT, text);
+        startActivity(Intent.createChooser(intent, "Xuất ván cờ"));
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        caroAI.stopPondering(); // không nghĩ khi màn hình không hiện
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (aiTask == null && mode == MODE_PLAY_WITH_AI && !session.isOver()
+                && session.getSideToMove() == playerSymbol && session.getMoveCount() > 0) {
+            startPondering();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        cancelAiMove();
+        // giải phóng luồng tìm kiếm trên chính aiExecutor: chỉ chạy sau khi lượt đang bị huỷ thật sự dừng,
+        // nên không tắt ParallelSearcher giữa chừng một getBestMove
+        aiExecutor.execute(caroAI::shutdown);
+        aiExecutor.shutdown();
+        storageExecutor.shutdown(); // các lần ghi đã xếp hàng vẫn chạy xong
+        super.onDestroy();
+    }
 
-        int moveCount = countMoves();
-        int[] bestMove = CaroAI.getBestMove(caroBoard, aiSymbol, moveCount);
+    // Map sách khai cuộc từ asset (không nén nên không phải đọc hết); thiếu sách thì AI vẫn tìm như thường
+    private void loadOpeningBook() {
+        try (AssetFileDescriptor fd = getAssets().openFd(OPENING_BOOK_ASSET);
+             FileInputStream in = fd.createInputStream()) {
+            caroAI.setOpeningBook(OpeningBook.map(in.getChannel(), fd.getStartOffset(), fd.getLength()));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "opening book unavailable", e);
+        }
+    }
 
-        if (bestMove != null) {
-            caroBoard.setMove(bestMove[0], bestMove[1], aiSymbol);
-            updateButtonUI(bestMove[0], bestMove[1]);
+    private void aiMakeMove() {
+        if (session.isOver()) return;
+        humanMoveAt = SystemClock.elapsedRealtime();
+
+        // AI tìm trên bản sao, ván chính chỉ được sửa trên UI thread
+        final CaroBoard snapshot = session.snapshot();
+        final int ai = aiSymbol;
+        final int game = gameId;
+        tvStatus.setText("Máy đang suy nghĩ...");
+
+        aiTask = aiExecutor.submit(() -> {
+            int[] bestMove = caroAI.getBestMove(snapshot, ai, snapshot.getMoveCount()); // theo ngân sách của mức độ khó
+            SearchStats stats = caroAI.getLastStats();
+            if (Thread.currentThread().isInterrupted()) return;
+            mainHandler.post(() -> onAiMoveReady(game, bestMove, stats));
+        });
+    }
 
-            if (caroBoard.checkWin(aiSymbol)) {
-                tvStatus.setText("Máy thắng!");
-                gameEnded = true;
-                btnPlayAgain.setEnabled(true);
-            } else {
-                currentPlayer = playerSymbol;
+    private void onAiMoveReady(int game, int[] bestMove, SearchStats stats) {
+        if (game != gameId || session.isOver()) return; // ván đã bị chơi lại hoặc activity đã đóng
+        aiTask = null;
+        showStats(stats);
+        Log.i(TAG, "ai replied in " + (SystemClock.elapsedRealtime() - humanMoveAt) + " ms"
+                + (stats != null ? " (" + stats.getSource() + ")" : "")
+                + (ponderEnabled ? ", pondering on" : ""));
+
+        if (bestMove != null && session.play(bestMove[0], bestMove[1])) {
+            boardView.onMovePlayed();
+            recordMove();
+            if (!showResult()) {
                 tvStatus.setText("Lượt người chơi: Bạn");
+                startPondering();
+            }
+        }
+    }
+
+    // Cho máy nghĩ trước trong lượt người chơi nếu đã bật, pin không yếu và máy không ở chế độ tiết kiệm pin
+    private void startPondering() {
+        if (!ponderEnabled || mode != MODE_PLAY_WITH_AI || !batteryAllowsPondering()) return;
+        caroAI.ponder(session.snapshot(), aiSymbol);
+    }
+
+    private boolean batteryAllowsPondering() {
+        PowerManager power = getSystemService(PowerManager.class);
+        if (power != null && power.isPowerSaveMode()) return false;
+        BatteryManager battery = getSystemService(BatteryManager.class);
+        if (battery == null || battery.isCharging()) return true;
+        int level = battery.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return level <= 0 || level >= PONDER_MIN_BATTERY; // <= 0: máy không báo được mức pin
+    }
+
+    private void setStatsOverlay(boolean enabled) {
+        statsOverlay = enabled;
+        getSharedPreferences(PREFS_DEBUG, MODE_PRIVATE).edit().putBoolean(KEY_STATS_OVERLAY, enabled).apply();
+        if (enabled && lastStats != null) tvStats.setText(statsText(lastStats));
+        tvStats.setVisibility(enabled && lastStats != null ? View.VISIBLE : View.GONE);
+    }
+
+    private String statsText(SearchStats stats) {
+        return stats + "\npv " + stats.principalVariationText(session.getSize());
+    }
+
+    private void showStats(SearchStats stats) {
+        lastStats = stats;
+        if (!statsOverlay || stats == null) return;
+        tvStats.setText(statsText(stats));
+        tvStats.setVisibility(View.VISIBLE);
+        String line = stats.toJson() + "\n";
+        File file = new File(getFilesDir(), STATS_FILE);
+        storageExecutor.execute(() -> {
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.w(TAG, "cannot write " + file, e);
             }
+        });
+    }
+
+    // Ván đã kết thúc thì hiện kết quả, tô đường thắng và trả về true
+    private boolean showResult() {
+        GameSession.Status status = session.getStatus();
+        if (status == GameSession.Status.IN_PROGRESS) return false;
+        if (status == GameSession.Status.DRAW) {
+            tvStatus.setText("Hoà!");
+        } else {
+            boardView.showWinningLine(session.getWinningLine());
+            int winner = session.getWinner();
+            if (mode == MODE_PLAY_WITH_AI && winner == aiSymbol) tvStatus.setText("Máy thắng!");
+            else tvStatus.setText("Người chơi " + playerName(winner) + " thắng!");
+        }
+        btnPlayAgain.setEnabled(true);
+        return true;
+    }
+
+    // Huỷ lượt tìm đang chạy: interrupt luồng AI (Searcher tự dừng) và vô hiệu kết quả đã post
+    private void cancelAiMove() {
+        gameId++;
+        caroAI.stopPondering();
+        if (aiTask != null) {
+            aiTask.cancel(true);
+            aiTask = null;
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    static Difficulty loadDifficulty(SharedPreferences settings) {
+        try {
+            return Difficulty.valueOf(settings.getString(KEY_DIFFICULTY, Difficulty.HARD.name()));
+        } catch (IllegalArgumentException e) {
+            return Difficulty.HARD;
+        }
+    }
+
+    static String difficultyLabel(Difficulty difficulty) {
+        switch (difficulty) {
+            case EASY: return "Dễ";
+            case MEDIUM: return "Vừa";
+            case EXPERT: return "Rất khó";
+            default: return "Khó";
         }
     }
 
+    // Đổi mức độ khó giữa ván; áp dụng từ nước kế tiếp của máy
+    private void showDifficultyDialog() {
+        Difficulty[] levels = Difficulty.values();
+        String[] labels = new String[levels.length];
+        for (int i = 0; i < levels.length; i++) labels[i] = difficultyLabel(levels[i]);
+        new android.app.AlertDialog.Builder(this)
+                .setTitle("Độ khó của máy")
+                .setSingleChoiceItems(labels, difficulty.ordinal(), (dialog, which) -> {
+                    applyDifficulty(levels[which]);
+                    getSharedPreferences(PREFS_SETTINGS, MODE_PRIVATE).edit()
+                            .putString(KEY_DIFFICULTY, levels[which].name()).apply();
+                    dialog.dismiss();
+                })
+                .show();
+    }
+
+    // Chạy trên luồng AI để không đổi cấu hình giữa lúc đang tìm. Mức dễ và vừa chỉ dùng một luồng cho đỡ tốn pin
+    private void applyDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+        btnDifficulty.setText("Độ khó: " + difficultyLabel(difficulty));
+        int threads = difficulty.compareTo(Difficulty.HARD) < 0 ? 1
+                : Math.min(AI_MAX_THREADS, Runtime.getRuntime().availableProcessors());
+        aiExecutor.execute(() -> {
+            caroAI.setThreadCount(threads);
+            caroAI.setDifficulty(difficulty);
+        });
+    }
+
     private void showSymbolChoiceDialog() {
         new android.app.AlertDialog.Builder(this)
                 .setTitle("Chọn ký hiệu của bạn")
@@ -117,21 +471,14 @@ public class GameActivity extends AppCompatActivity {
     private void setPlayerSymbol(int symbol) {
         playerSymbol = symbol;
         aiSymbol = (symbol == CaroBoard.PLAYER_X) ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
-        currentPlayer = CaroBoard.PLAYER_X;
         resetGame();
-        tvStatus.setText("Lượt người chơi: " + playerName(currentPlayer));
-        if (currentPlayer == aiSymbol) {
+        if (session.getSideToMove() == aiSymbol) {
             aiMakeMove();
         }
     }
 
     private void createBoardUI() {
-        gridBoard.removeAllViews();
-
-        int boardSize = CaroBoard.SIZE;
-
-        gridBoard.setColumnCount(boardSize);
-        gridBoard.setRowCount(boardSize);
+        int boardSize = session.getSize();
 
         WindowMetrics windowMetrics = getWindowManager().getCurrentWindowMetrics();
         Rect bounds = windowMetrics.getBounds();
@@ -141,69 +488,49 @@ public class GameActivity extends AppCompatActivity {
         int reservedHeight = dpToPx(80);
         int availableHeight = screenHeight - reservedHeight;
 
-        int cellSize = availableHeight / boardSize;
-
-        int gridWidth = cellSize * boardSize;
-        int gridHeight = cellSize * boardSize;
-
-        ViewGroup.LayoutParams params = gridBoard.getLayoutParams();
-        params.width = gridWidth;
-        params.height = gridHeight;
-        gridBoard.setLayoutParams(params);
-        gridBoard.requestLayout();
-
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                final int row = i;
-                final int col = j;
-                Button btn = new Button(this);
-                btn.setText("");
-                btn.setTextSize(TypedValue.COMPLEX_UNIT_PX, cellSize * 0.5f);
-                btn.setWidth(cellSize);
-                btn.setHeight(cellSize);
-                btn.setMinWidth(0);
-                btn.setMinHeight(0);
-                btn.setPadding(0, 0, 0, 0);
-                btn.setBackgroundResource(android.R.drawable.btn_default);
-
-                GridLayout.LayoutParams lp = new GridLayout.LayoutParams();
-                lp.width = cellSize;
-                lp.height = cellSize;
-                lp.columnSpec = GridLayout.spec(j);
-                lp.rowSpec = GridLayout.spec(i);
-                lp.setMargins(1, 1, 1, 1);
-                btn.setLayoutParams(lp);
-
-                btn.setOnClickListener(v -> onCellClicked(row, col));
-
-                buttons[i][j] = btn;
-                gridBoard.addView(btn);
+        // bàn lớn thì ô không nhỏ hơn 16dp, phần thừa cuộn được
+        int cellSize = Math.max(dpToPx(16), Math.min(availableHeight, screenWidth) / boardSize);
+
+        boardView.setCellSize(cellSize);
+        boardView.setSession(session);
+        boardView.setOnCellClickListener(this::onCellClicked);
+    }
+
+    // Ghi thời gian từ onCreate tới khung hình đầu và số View trong cây, để so với lưới Button cũ
+    private void logStartup(long createStart) {
+        View root = getWindow().getDecorView();
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.i(TAG, "board " + session.getSize() + "x" + session.getSize() + " ready in "
+                        + (SystemClock.elapsedRealtime() - createStart) + " ms, " + countViews(root) + " views");
+                return true;
             }
+        });
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) count += countViews(group.getChildAt(i));
         }
+        return count;
     }
 
     private void onCellClicked(int row, int col) {
-        if (gameEnded) return;
-        if (caroBoard.getCell(row, col) != CaroBoard.EMPTY) return;
-
-        if (mode == MODE_PLAY_WITH_AI && currentPlayer != playerSymbol) return;
-
-        caroBoard.setMove(row, col, currentPlayer);
-        updateButtonUI(row, col);
+        if (session.isOver()) return;
+        if (mode == MODE_PLAY_WITH_AI && session.getSideToMove() != playerSymbol) return;
 
-        if (caroBoard.checkWin(currentPlayer)) {
-            tvStatus.setText("Người chơi " + playerName(currentPlayer) + " thắng!");
-            gameEnded = true;
-            btnPlayAgain.setEnabled(true);
-            return;
-        }
+        if (!session.play(row, col)) return; // ô đã có quân
+        boardView.onMovePlayed();
+        recordMove();
+        if (showResult()) return;
 
         if (mode == MODE_TWO_PLAYERS) {
-            currentPlayer = (currentPlayer == CaroBoard.PLAYER_X) ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
-            tvStatus.setText("Lượt người chơi: " + playerName(currentPlayer));
+            tvStatus.setText("Lượt người chơi: " + playerName(session.getSideToMove()));
         } else if (mode == MODE_PLAY_WITH_AI) {
-            currentPlayer = aiSymbol;
-            tvStatus.setText("Lượt người chơi: Máy");
             aiMakeMove();
         }
     }
@@ -216,29 +543,13 @@ public class GameActivity extends AppCompatActivity {
         }
     }
 
-    private void updateButtonUI(int row, int col) {
-        Button btn = buttons[row][col];
-        int cell = caroBoard.getCell(row, col);
-        if (cell == CaroBoard.PLAYER_X) {
-            btn.setText("X");
-            btn.setTextColor(Color.RED);
-        } else if (cell == CaroBoard.PLAYER_O) {
-            btn.setText("O");
-            btn.setTextColor(Color.BLUE);
-        }
-    }
-
     private void resetGame() {
-        caroBoard.reset();
-        for (int i = 0; i < CaroBoard.SIZE; i++) {
-            for (int j = 0; j < CaroBoard.SIZE; j++) {
-                buttons[i][j].setText("");
-            }
-        }
-        gameEnded = false;
+        cancelAiMove();
+        session.reset();
+        startGameLog(session);
+        boardView.redrawAll();
         btnPlayAgain.setEnabled(false);
-        currentPlayer = CaroBoard.PLAYER_X;
-        tvStatus.setText("Lượt người chơi: " + playerName(currentPlayer));
+        tvStatus.setText("Lượt người chơi: " + playerName(session.getSideToMove()));
     }
 
     private int dpToPx(int dp) {
@@ -1,14 +1,29 @@
 package com.duyhung.gamecaro;
 
+import android.app.AlertDialog;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class MainActivity extends AppCompatActivity {
 
-    private Button btnTwoPlayers, btnPlayWithAI;
+    // Tiêu đề do "Xuất ván" tạo ra, ví dụ "Caro 19x19: j10 k11"
+    private static final Pattern EXPORT_HEADER = Pattern.compile("^\\s*Caro\\s+(\\d+)x\\d+\\s*:", Pattern.CASE_INSENSITIVE);
+
+    private Button btnTwoPlayers, btnPlayWithAI, btnResume, btnImport;
+    private RadioGroup rgBoardSize, rgDifficulty;
+    private CheckBox cbPonder;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -17,17 +32,100 @@ public class MainActivity extends AppCompatActivity {
 
         btnTwoPlayers = findViewById(R.id.btnTwoPlayers);
         btnPlayWithAI = findViewById(R.id.btnPlayWithAI);
+        btnResume = findViewById(R.id.btnResume);
+        btnImport = findViewById(R.id.btnImport);
+        rgBoardSize = findViewById(R.id.rgBoardSize);
+        rgDifficulty = findViewById(R.id.rgDifficulty);
+        cbPonder = findViewById(R.id.cbPonder);
+
+        SharedPreferences settings = getSharedPreferences(GameActivity.PREFS_SETTINGS, MODE_PRIVATE);
+        cbPonder.setChecked(settings.getBoolean(GameActivity.KEY_PONDER, false));
+        cbPonder.setOnCheckedChangeListener((button, checked) ->
+                settings.edit().putBoolean(GameActivity.KEY_PONDER, checked).apply());
+        rgDifficulty.check(difficultyButton(GameActivity.loadDifficulty(settings)));
+        rgDifficulty.setOnCheckedChangeListener((group, checked) ->
+                settings.edit().putString(GameActivity.KEY_DIFFICULTY, selectedDifficulty().name()).apply());
 
         btnTwoPlayers.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, GameActivity.class);
             intent.putExtra(GameActivity.EXTRA_MODE, GameActivity.MODE_TWO_PLAYERS);
+            intent.putExtra(GameActivity.EXTRA_BOARD_SIZE, selectedBoardSize());
             startActivity(intent);
         });
 
         btnPlayWithAI.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, GameActivity.class);
             intent.putExtra(GameActivity.EXTRA_MODE, GameActivity.MODE_PLAY_WITH_AI);
+            intent.putExtra(GameActivity.EXTRA_BOARD_SIZE, selectedBoardSize());
+            startActivity(intent);
+        });
+
+        btnResume.setOnClickListener(v -> {
+            Intent intent = new Intent(MainActivity.this, GameActivity.class);
+            intent.putExtra(GameActivity.EXTRA_RESUME, true);
             startActivity(intent);
         });
+
+        btnImport.setOnClickListener(v -> showImportDialog());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        btnResume.setVisibility(GameActivity.hasSavedGame(this) ? View.VISIBLE : View.GONE);
+    }
+
+    // Dán ván dạng "h8 i9 ..." (bàn theo lựa chọn ở trên) hoặc nguyên văn bản do "Xuất ván" tạo ra
+    private void showImportDialog() {
+        EditText input = new EditText(this);
+        input.setHint("h8 i9 g7 ...");
+        new AlertDialog.Builder(this)
+                .setTitle("Nhập ván cờ")
+                .setView(input)
+                .setPositiveButton("Mở", (dialog, which) -> {
+                    String text = input.getText().toString();
+                    int size = selectedBoardSize();
+                    Matcher header = EXPORT_HEADER.matcher(text);
+                    if (header.find()) {
+                        size = Integer.parseInt(header.group(1));
+                        text = text.substring(header.end());
+                    }
+                    try {
+                        GameRecord record = GameRecord.parseNotation(size, text);
+                        record.replay(); // kiểm tra nước hợp lệ trước khi mở
+                        Intent intent = new Intent(MainActivity.this, GameActivity.class);
+                        intent.putExtra(GameActivity.EXTRA_RECORD, record.encode());
+                        startActivity(intent);
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(this, "Ván không hợp lệ: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("Huỷ", null)
+                .show();
+    }
+
+    private Difficulty selectedDifficulty() {
+        int checked = rgDifficulty.getCheckedRadioButtonId();
+        if (checked == R.id.rbEasy) return Difficulty.EASY;
+        if (checked == R.id.rbMedium) return Difficulty.MEDIUM;
+        if (checked == R.id.rbExpert) return Difficulty.EXPERT;
+        return Difficulty.HARD;
+    }
+
+    private static int difficultyButton(Difficulty difficulty) {
+        switch (difficulty) {
+            case EASY: return R.id.rbEasy;
+            case MEDIUM: return R.id.rbMedium;
+            case EXPERT: return R.id.rbExpert;
+            default: return R.id.rbHard;
+        }
+    }
+
+    private int selectedBoardSize() {
+        int checked = rgBoardSize.getCheckedRadioButtonId();
+        if (checked == R.id.rbSize19) return 19;
+        if (checked == R.id.rbSize30) return 30;
+        if (checked == R.id.rbSize50) return 50;
+        return CaroBoard.SIZE;
     }
 }
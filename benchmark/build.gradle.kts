@@ -0,0 +1,35 @@
+plugins {
+    java
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":engine"))
+    implementation(libs.jmh.core)
+    annotationProcessor(libs.jmh.generator.annprocess)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// ./gradlew :benchmark:jmh                   chạy cả bộ, in ns/op và tốc độ cấp phát (-prof gc)
+// ./gradlew :benchmark:jmh -Pjmh=BoardBench  chỉ chạy các benchmark khớp regex
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH suite with the GC profiler"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    args(
+        project.findProperty("jmh")?.toString() ?: ".*",
+        "-prof", "gc",
+        "-rf", "json",
+        "-rff", resultFile.get().asFile.path
+    )
+    doFirst { resultFile.get().asFile.parentFile.mkdirs() }
+}
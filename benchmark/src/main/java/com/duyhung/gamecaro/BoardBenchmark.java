@@ -0,0 +1,59 @@
+package com.duyhung.gamecaro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Các thao tác trên CaroBoard; mỗi op là một thế cờ (trung bình trên PER_PHASE thế của giai đoạn)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private CaroBoard[] boards;
+
+    @Setup
+    public void setup() {
+        boards = Corpus.load(phase);
+    }
+
+    // Quét toàn bàn tìm 5 cho cả hai bên
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void checkWin(Blackhole bh) {
+        for (CaroBoard board : boards) {
+            bh.consume(board.checkWin(CaroBoard.PLAYER_X));
+            bh.consume(board.checkWin(CaroBoard.PLAYER_O));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void getEmptyCells(Blackhole bh) {
+        for (CaroBoard board : boards) bh.consume(board.getEmptyCells());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void cloneBoard(Blackhole bh) {
+        for (CaroBoard board : boards) bh.consume(board.cloneBoard());
+    }
+}
@@ -0,0 +1,86 @@
+package com.duyhung.gamecaro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Cùng các thế midgame đặt giữa bàn 15x15 .. 50x50: thời gian mỗi nước của máy phải gần như
+// không đổi theo cỡ bàn, vì sinh nước, giải thế cờ và kiểm tra thắng chỉ quét vùng có quân
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardSizeBenchmark {
+
+    @Param({"15", "19", "30", "50"})
+    public int size;
+
+    private CaroBoard[] boards;
+    private int[] sides;
+    private CaroAI ai;
+    private final Searcher searcher = new Searcher(null);
+    private int[] moves;
+
+    @Setup
+    public void setup() {
+        boards = Corpus.load("midgame", size);
+        sides = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) sides[i] = Corpus.sideToMove(boards[i]);
+        moves = new int[size * size];
+        ai = new CaroAI(CaroAI.DEFAULT_TABLE_MB);
+    }
+
+    // Mỗi lượt getBestMove bắt đầu với bảng chuyển vị trống, như một nước mới trong ván
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        ai.getTranspositionTable().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ai.shutdown();
+    }
+
+    // Cả lượt của máy trên bản sao bàn, như GameActivity: snapshot, VCF/VCT rồi minimax
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void moveLatency(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            CaroBoard snapshot = boards[i].cloneBoard();
+            bh.consume(ai.getBestMove(snapshot, sides[i], snapshot.getMoveCount()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void getCandidateMoves(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) bh.consume(searcher.generateMoves(boards[i], sides[i], moves));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void checkWin(Blackhole bh) {
+        for (CaroBoard board : boards) {
+            bh.consume(board.checkWin(CaroBoard.PLAYER_X));
+            bh.consume(board.checkWin(CaroBoard.PLAYER_O));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.duyhung.gamecaro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bộ thế cờ cố định (positions.txt) chia theo giai đoạn: opening, midgame, endgame
+final class Corpus {
+
+    static final int PER_PHASE = 8; // số thế mỗi giai đoạn, dùng cho @OperationsPerInvocation
+
+    private Corpus() {
+    }
+
+    static CaroBoard[] load(String phase) {
+        return load(phase, CaroBoard.SIZE);
+    }
+
+    // Các thế được dời vào giữa bàn size x size, để so cùng một thế cờ trên các cỡ bàn khác nhau
+    static CaroBoard[] load(String phase, int size) {
+        int shift = (size - CaroBoard.SIZE) / 2;
+        List<CaroBoard> boards = new ArrayList<>();
+        try (InputStream in = Corpus.class.getResourceAsStream("positions.txt")) {
+            if (in == null) throw new IllegalStateException("positions.txt not found");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals(phase)) boards.add(parse(parts, size, shift));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (boards.size() != PER_PHASE) {
+            throw new IllegalStateException(phase + ": expected " + PER_PHASE + " positions, got " + boards.size());
+        }
+        return boards.toArray(new CaroBoard[0]);
+    }
+
+    static int sideToMove(CaroBoard board) {
+        return board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+    }
+
+    private static CaroBoard parse(String[] parts, int size, int shift) {
+        CaroBoard board = new CaroBoard(size);
+        int player = CaroBoard.PLAYER_X;
+        for (int i = 1; i < parts.length; i++) {
+            int comma = parts[i].indexOf(',');
+            int row = Integer.parseInt(parts[i].substring(0, comma)) + shift;
+            int col = Integer.parseInt(parts[i].substring(comma + 1)) + shift;
+            if (!board.setMove(row, col, player)) throw new IllegalStateException("bad move " + parts[i]);
+            player = player == CaroBoard.PLAYER_X ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+        }
+        return board;
+    }
+}
@@ -0,0 +1,138 @@
+package com.duyhung.gamecaro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Các đường nóng của AI: sinh nước, đánh giá và cả lượt getBestMove
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private CaroBoard[] boards;
+    private int[] sides;
+    private int[] probes; // một ô trống gần quân cho mỗi thế, dùng để đo cập nhật tăng dần
+    private final Searcher searcher = new Searcher(null);
+    private Evaluator[] evaluators;
+    private PatternEvaluator[] patterns;
+    private final int[] moves = new int[CaroBoard.SIZE * CaroBoard.SIZE];
+
+    @Setup
+    public void setup() {
+        boards = Corpus.load(phase);
+        sides = new int[boards.length];
+        probes = new int[boards.length];
+        evaluators = new Evaluator[boards.length];
+        patterns = new PatternEvaluator[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            sides[i] = Corpus.sideToMove(boards[i]);
+            searcher.generateMoves(boards[i], sides[i], moves);
+            probes[i] = moves[0];
+            evaluators[i] = new Evaluator();
+            evaluators[i].init(boards[i]);
+            patterns[i] = new PatternEvaluator();
+            patterns[i].init(boards[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Engine {
+        CaroAI ai;
+
+        @Setup
+        public void setup() {
+            ai = new CaroAI(CaroAI.DEFAULT_TABLE_MB);
+        }
+
+        // Mỗi lượt getBestMove bắt đầu với bảng chuyển vị trống, như một nước mới trong ván
+        @Setup(Level.Invocation)
+        public void clearTable() {
+            ai.getTranspositionTable().clear();
+        }
+
+        @TearDown
+        public void tearDown() {
+            ai.shutdown();
+        }
+    }
+
+    // Sinh và sắp nước ở gốc (lân cận bitboard + điểm đe doạ)
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void getCandidateMoves(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) bh.consume(searcher.generateMoves(boards[i], sides[i], moves));
+    }
+
+    // Đánh giá cả bàn từ đầu (như evaluateBoard cũ): điểm mình trừ điểm đối thủ nhân 25
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void evaluateBoard(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            int opponent = Searcher.opponent(sides[i]);
+            bh.consume(Evaluator.evaluate(boards[i], sides[i]) - Evaluator.evaluate(boards[i], opponent) * 5 * 5);
+        }
+    }
+
+    // Đánh giá tăng dần như trong tìm kiếm: đặt quân, cập nhật, lấy điểm, gỡ quân, cập nhật
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void evaluateIncremental(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            CaroBoard board = boards[i];
+            Evaluator evaluator = evaluators[i];
+            int row = probes[i] / CaroBoard.SIZE, col = probes[i] % CaroBoard.SIZE;
+            board.setMove(row, col, sides[i]);
+            evaluator.update(board, row, col);
+            bh.consume(evaluator.heuristic(sides[i], Searcher.opponent(sides[i])));
+            board.undoMove();
+            evaluator.update(board, row, col);
+        }
+    }
+
+    // Như evaluateIncremental nhưng bằng bảng hình cờ (đánh giá mặc định của CaroAI)
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void evaluatePatterns(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            CaroBoard board = boards[i];
+            PatternEvaluator evaluator = patterns[i];
+            int row = probes[i] / CaroBoard.SIZE, col = probes[i] % CaroBoard.SIZE;
+            board.setMove(row, col, sides[i]);
+            evaluator.update(board, row, col);
+            bh.consume(evaluator.heuristic(sides[i], Searcher.opponent(sides[i])));
+            board.undoMove();
+            evaluator.update(board, row, col);
+        }
+    }
+
+    // Cả lượt của máy: giải VCF/VCT rồi minimax theo độ sâu thích nghi
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void getBestMove(Engine engine, Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            bh.consume(engine.ai.getBestMove(boards[i], sides[i], boards[i].getMoveCount()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.duyhung.gamecaro;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Thời gian tới độ sâu cố định theo số luồng; so với số lõi của máy chạy
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"5"})
+    public int depth;
+
+    private CaroBoard[] boards;
+    private int[] sides;
+    private TranspositionTable table;
+    private ParallelSearcher searcher;
+
+    @Setup
+    public void setup() {
+        boards = Corpus.load("midgame");
+        sides = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) sides[i] = Corpus.sideToMove(boards[i]);
+        table = new TranspositionTable(16);
+        searcher = new ParallelSearcher(table, threads);
+    }
+
+    // Mỗi lần đo bắt đầu với bảng trống để các luồng không hưởng kết quả của lần trước
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        searcher.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.PER_PHASE)
+    public void searchToDepth(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            bh.consume(searcher.search(boards[i], sides[i], depth, Long.MAX_VALUE));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+plugins {
+    application
+}
+
+// Công cụ dòng lệnh chạy trên JVM thường (không cần Android), dùng engine trong :engine.
+// ./gradlew :cli:installDist rồi chạy cli/build/install/caro/bin/caro <lệnh> ...
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    applicationName = "caro"
+    mainClass.set("com.duyhung.gamecaro.cli.Main")
+}
+
+dependencies {
+    implementation(project(":engine"))
+    testImplementation(libs.junit)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
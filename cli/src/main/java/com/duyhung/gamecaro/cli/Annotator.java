@@ -0,0 +1,141 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.GameAnalyzer;
+import com.duyhung.gamecaro.GameHistory;
+import com.duyhung.gamecaro.GameRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Chú giải hàng loạt các ván đã lưu bằng GameAnalyzer: mỗi thế một dòng JSON (nước đã đi, nước tốt nhất,
+// điểm trước/sau, đánh giá best/good/inaccuracy/mistake/blunder), ghi ra ngay khi phân tích xong.
+// Đầu vào là file GameHistory, hoặc với --text mỗi dòng một ván dạng "h8 i9 ..." ("-" là stdin).
+// Bộ nhớ: mỗi luồng một bảng chuyển vị (khoá tt của --engine) cộng vài ván đang chờ.
+final class Annotator {
+
+    static final class Options {
+        String input;
+        boolean text;
+        int size = CaroBoard.SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        EngineConfig engine = EngineConfig.parse("name=analyze,depth=4");
+        String out;
+    }
+
+    private Annotator() {
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("analyze: " + e.getMessage());
+            usage(err);
+            return 2;
+        }
+        PrintStream lines = out;
+        try {
+            if (options.out != null) {
+                lines = new PrintStream(new BufferedOutputStream(new FileOutputStream(options.out)), false, "UTF-8");
+            }
+            GameAnalyzer.Summary summary = analyze(options, lines, err);
+            err.println(summary);
+            return summary.getInvalidGames() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            err.println("analyze: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            if (lines != out) lines.close();
+            else lines.flush();
+        }
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--text")) {
+                options.text = true;
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                if (options.input != null) throw new IllegalArgumentException("more than one input file");
+                options.input = arg;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "--out": options.out = value; break;
+                case "--size": options.size = Integer.parseInt(value); break;
+                case "--threads": options.threads = Integer.parseInt(value); break;
+                case "--engine": options.engine = EngineConfig.parse("name=analyze,depth=4," + value); break;
+                default: throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        if (options.input == null) throw new IllegalArgumentException("missing input file");
+        if (options.threads < 1) throw new IllegalArgumentException("threads must be positive");
+        if (options.size < CaroBoard.MIN_SIZE || options.size > CaroBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("size must be " + CaroBoard.MIN_SIZE + ".." + CaroBoard.MAX_SIZE);
+        }
+        return options;
+    }
+
+    static void usage(PrintStream err) {
+        err.println("usage: caro analyze <games> [--text] [--size N] [--threads N] [--engine <spec>] [--out <file>]");
+        err.println("  one JSON line per position: played and best move, scores, loss and verdict;");
+        err.println("  <games> is a game history file, or with --text one game per line (\"-\" for stdin)");
+        err.println("  engine spec is added to depth=4 (time=N searches N ms per position instead);");
+        err.println("  threads default to the available cores, each with its own tt");
+    }
+
+    static GameAnalyzer.Summary analyze(Options options, PrintStream lines, PrintStream err)
+            throws IOException, InterruptedException {
+        EngineConfig engine = options.engine;
+        GameAnalyzer analyzer = new GameAnalyzer(options.threads, engine::create, engine.timeMs);
+        if (!options.text) {
+            try (GameHistory.Reader reader = new GameHistory(new File(options.input)).open()) {
+                return analyzer.analyze(reader::next, position -> lines.println(position.toJson()));
+            }
+        }
+        try (BufferedReader reader = new BufferedReader(options.input.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(options.input), StandardCharsets.UTF_8))) {
+            return analyzer.analyze(textSource(reader, options.size, err), position -> lines.println(position.toJson()));
+        }
+    }
+
+    // Mỗi dòng một ván; dòng trống và dòng "#" bị bỏ qua, dòng không đọc được thì báo và bỏ qua
+    static GameAnalyzer.GameSource textSource(Reader input, int size, PrintStream err) {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        int[] lineNumber = {0};
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber[0]++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    return GameRecord.parseNotation(size, line);
+                } catch (IllegalArgumentException e) {
+                    err.println("analyze: line " + lineNumber[0] + ": " + e.getMessage());
+                }
+            }
+            return null;
+        };
+    }
+}
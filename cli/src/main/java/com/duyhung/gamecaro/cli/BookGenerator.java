@@ -0,0 +1,166 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroAI;
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.OpeningBook;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Sinh sách khai cuộc offline: duyệt theo từng nước từ bàn trống, mỗi thế được tìm sâu bằng cấu hình
+// --engine để lấy nước trả lời. Thế con gồm nước trả lời đó (máy đi) và mọi ô trống cách quân đã có
+// không quá --radius ô (người đi bất kỳ); thế trùng qua 8 phép đối xứng chỉ giữ một.
+final class BookGenerator {
+
+    static final class Options {
+        int plies = 6;
+        int radius = 1;
+        int size = CaroBoard.SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        EngineConfig engine = EngineConfig.parse("name=book,depth=4");
+        String out;
+    }
+
+    private BookGenerator() {
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("book: " + e.getMessage());
+            usage(err);
+            return 2;
+        }
+        long start = System.nanoTime();
+        OpeningBook.Builder book = generate(options, err);
+        File file = new File(options.out);
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(file))) {
+            book.write(stream);
+        } catch (IOException e) {
+            err.println("book: cannot write " + file + ": " + e.getMessage());
+            return 1;
+        }
+        out.printf(Locale.ROOT, "%d positions, %d bytes, %.1f s -> %s%n",
+                book.size(), file.length(), (System.nanoTime() - start) / 1e9, file);
+        return 0;
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "--out": options.out = value; break;
+                case "--plies": options.plies = Integer.parseInt(value); break;
+                case "--radius": options.radius = Integer.parseInt(value); break;
+                case "--size": options.size = Integer.parseInt(value); break;
+                case "--threads": options.threads = Integer.parseInt(value); break;
+                case "--engine": options.engine = EngineConfig.parse(value); break;
+                default: throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        if (options.out == null) throw new IllegalArgumentException("missing --out");
+        if (options.plies < 1 || options.radius < 0 || options.threads < 1) {
+            throw new IllegalArgumentException("plies and threads must be positive");
+        }
+        if (options.size < CaroBoard.MIN_SIZE || options.size > CaroBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("size must be " + CaroBoard.MIN_SIZE + ".." + CaroBoard.MAX_SIZE);
+        }
+        return options;
+    }
+
+    static void usage(PrintStream err) {
+        err.println("usage: caro book --out <file> [--plies N] [--radius N] [--size N] [--threads N] [--engine <spec>]");
+        err.println("  covers every position with fewer than N stones reachable by the book reply");
+        err.println("  or by any move within radius cells of the stones; default engine depth=4");
+    }
+
+    static OpeningBook.Builder generate(Options options, PrintStream progress) {
+        OpeningBook.Builder book = new OpeningBook.Builder(options.size, options.plies);
+        ThreadLocal<CaroAI> engines = ThreadLocal.withInitial(options.engine::create);
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads);
+        try {
+            List<CaroBoard> frontier = new ArrayList<>();
+            frontier.add(new CaroBoard(options.size));
+            Set<Long> seen = new HashSet<>();
+            for (int ply = 0; ply < options.plies && !frontier.isEmpty(); ply++) {
+                List<Future<int[]>> replies = new ArrayList<>();
+                for (CaroBoard board : frontier) {
+                    replies.add(pool.submit(() -> {
+                        CaroAI ai = engines.get();
+                        if (ai.getTranspositionTable() != null) ai.getTranspositionTable().clear();
+                        CaroBoard copy = board.cloneBoard();
+                        return options.engine.bestMove(ai, copy, sideToMove(copy));
+                    }));
+                }
+
+                List<CaroBoard> next = new ArrayList<>();
+                for (int i = 0; i < frontier.size(); i++) {
+                    CaroBoard board = frontier.get(i);
+                    int[] reply = replies.get(i).get();
+                    if (reply == null) continue;
+                    book.add(board, reply[0], reply[1]);
+                    if (ply + 1 == options.plies) continue;
+                    for (int[] move : children(board, reply, options.radius)) {
+                        CaroBoard child = board.cloneBoard();
+                        child.setMove(move[0], move[1], sideToMove(board));
+                        if (child.getWinner() != CaroBoard.EMPTY) continue;
+                        if (seen.add(OpeningBook.key(child))) next.add(child);
+                    }
+                }
+                if (progress != null) {
+                    progress.println("ply " + ply + ": " + frontier.size() + " positions, book " + book.size());
+                }
+                frontier = next;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("book generation failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        return book;
+    }
+
+    // Nước trả lời trước, rồi các ô trống trong bán kính radius quanh quân đã có
+    static List<int[]> children(CaroBoard board, int[] reply, int radius) {
+        List<int[]> moves = new ArrayList<>();
+        moves.add(reply);
+        if (board.getMoveCount() == 0) return moves;
+        int size = board.getSize();
+        for (int r = Math.max(0, board.getMinRow() - radius); r <= Math.min(size - 1, board.getMaxRow() + radius); r++) {
+            for (int c = Math.max(0, board.getMinCol() - radius); c <= Math.min(size - 1, board.getMaxCol() + radius); c++) {
+                if (board.getCell(r, c) != CaroBoard.EMPTY || (r == reply[0] && c == reply[1])) continue;
+                if (nearStone(board, r, c, radius)) moves.add(new int[]{r, c});
+            }
+        }
+        return moves;
+    }
+
+    private static boolean nearStone(CaroBoard board, int row, int col, int radius) {
+        int size = board.getSize();
+        for (int r = Math.max(0, row - radius); r <= Math.min(size - 1, row + radius); r++)
+            for (int c = Math.max(0, col - radius); c <= Math.min(size - 1, col + radius); c++)
+                if (board.getCell(r, c) != CaroBoard.EMPTY) return true;
+        return false;
+    }
+
+    private static int sideToMove(CaroBoard board) {
+        return board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+    }
+}
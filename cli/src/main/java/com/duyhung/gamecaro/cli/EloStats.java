@@ -0,0 +1,31 @@
+package com.duyhung.gamecaro.cli;
+
+// Chênh lệch Elo từ kết quả thắng/hoà/thua, kèm biên sai số 95% tính từ phương sai điểm từng ván
+final class EloStats {
+
+    private EloStats() {
+    }
+
+    // Elo tương ứng với tỉ lệ điểm score (0..1); 0 hoặc 1 cho ra vô cực
+    static double elo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    static double score(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    // Nửa độ rộng khoảng tin cậy 95% của Elo; NaN nếu chưa đủ ván để ước lượng
+    static double margin(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games < 2) return Double.NaN;
+        double s = score(wins, draws, losses);
+        double variance = (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / games;
+        double error = 1.96 * Math.sqrt(variance / games);
+        double low = Math.max(1e-6, s - error), high = Math.min(1 - 1e-6, s + error);
+        return (elo(high) - elo(low)) / 2;
+    }
+}
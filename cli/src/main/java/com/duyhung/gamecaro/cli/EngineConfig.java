@@ -0,0 +1,148 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroAI;
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.Difficulty;
+import com.duyhung.gamecaro.EvalWeights;
+import com.duyhung.gamecaro.OpeningBook;
+import com.duyhung.gamecaro.PatternWeights;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// Một cấu hình AI cho dòng lệnh, dạng "khoá=giá trị,..." ví dụ "name=deep,depth=3,open3=20000".
+// Khoá: name, depth (độ sâu cố định), time (ms mỗi nước, thay cho depth), tt (MB bảng chuyển vị),
+// level (mức độ khó easy/medium/hard/expert; time, vcf, vct vẫn được tính, depth thì không), vcf, vct (độ dài giải thế cờ), book (file sách khai cuộc), eval (patterns: bảng hình cờ, mặc định; runs: Evaluator theo đoạn quân),
+// patterns (file trọng số PatternWeights), p.<khoá> (sửa một trọng số PatternWeights, ví dụ p.open_three=4000)
+// và các khoá trọng số của EvalWeights (five, defense, open3, ...), kéo theo eval=runs nếu không ghi eval.
+final class EngineConfig {
+
+    final String name;
+    final int depth;
+    final long timeMs;
+    final int tableMb;
+    final int vcfDepth;
+    final int vctDepth;
+    final EvalWeights weights;
+    final PatternWeights patternWeights; // null: Evaluator theo đoạn quân
+    final String bookPath;
+    final Difficulty difficulty; // null: không đặt mức độ khó
+    private OpeningBook book; // nạp một lần, dùng chung cho mọi CaroAI của cấu hình
+
+    private EngineConfig(String name, int depth, long timeMs, int tableMb, int vcfDepth, int vctDepth,
+                         EvalWeights weights, PatternWeights patternWeights, String bookPath, Difficulty difficulty) {
+        this.name = name;
+        this.depth = depth;
+        this.timeMs = timeMs;
+        this.tableMb = tableMb;
+        this.vcfDepth = vcfDepth;
+        this.vctDepth = vctDepth;
+        this.weights = weights;
+        this.patternWeights = patternWeights;
+        this.bookPath = bookPath;
+        this.difficulty = difficulty;
+    }
+
+    static EngineConfig parse(String spec) {
+        String name = null, bookPath = null;
+        int depth = 0, tableMb = 4;
+        int vcf = -1, vct = -1;
+        long timeMs = 0;
+        EvalWeights weights = EvalWeights.DEFAULT;
+        PatternWeights patternWeights = PatternWeights.DEFAULT;
+        String eval = null;
+        Difficulty difficulty = null;
+        for (String part : spec.split(",")) {
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value: " + part);
+            String key = part.substring(0, eq).trim();
+            String value = part.substring(eq + 1).trim();
+            switch (key) {
+                case "name": name = value; break;
+                case "depth": depth = Integer.parseInt(value); break;
+                case "time": timeMs = Long.parseLong(value); break;
+                case "tt": tableMb = Integer.parseInt(value); break;
+                case "vcf": vcf = Integer.parseInt(value); break;
+                case "vct": vct = Integer.parseInt(value); break;
+                case "book": bookPath = value; break;
+                case "level": difficulty = Difficulty.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "eval":
+                    if (!value.equals("runs") && !value.equals("patterns")) {
+                        throw new IllegalArgumentException("eval must be runs or patterns: " + value);
+                    }
+                    eval = value;
+                    break;
+                case "patterns":
+                    patternWeights = loadPatterns(value);
+                    eval = "patterns";
+                    break;
+                default:
+                    if (key.startsWith("p.")) {
+                        patternWeights = patternWeights.with(key.substring(2), Integer.parseInt(value));
+                        if (eval == null) eval = "patterns";
+                    } else {
+                        weights = weights.with(key, Integer.parseInt(value));
+                        if (eval == null) eval = "runs";
+                    }
+            }
+        }
+        if ("runs".equals(eval)) patternWeights = null;
+        if (name == null) name = spec.isEmpty() ? "default" : spec;
+        return new EngineConfig(name, depth, timeMs, tableMb, vcf, vct, weights, patternWeights, bookPath, difficulty);
+    }
+
+    private static PatternWeights loadPatterns(String path) {
+        try (InputStream in = Files.newInputStream(Paths.get(path))) {
+            return PatternWeights.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read pattern weights " + path, e);
+        }
+    }
+
+    CaroAI create() {
+        return create(tableMb);
+    }
+
+    // Như create() nhưng với cỡ bảng chuyển vị khác (ví dụ theo giới hạn bộ nhớ của trình quản lý giải)
+    CaroAI create(int tableMb) {
+        CaroAI ai = new CaroAI(tableMb);
+        if (difficulty != null) {
+            ai.setDifficulty(difficulty);
+            ai.setNoiseSeed(name.hashCode()); // nhiễu cố định theo cấu hình để giải đấu lặp lại được
+        }
+        ai.setSearchDepth(depth);
+        ai.setEvalWeights(weights);
+        ai.setPatternWeights(patternWeights);
+        ai.setThreatSearchDepth(vcfDepth >= 0 ? vcfDepth : ai.getVcfDepth(), vctDepth >= 0 ? vctDepth : ai.getVctDepth());
+        if (bookPath != null) ai.setOpeningBook(book());
+        return ai;
+    }
+
+    private synchronized OpeningBook book() {
+        if (book == null) {
+            try (FileChannel channel = FileChannel.open(Paths.get(bookPath), StandardOpenOption.READ)) {
+                book = OpeningBook.map(channel, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot read opening book " + bookPath, e);
+            }
+        }
+        return book;
+    }
+
+    int[] bestMove(CaroAI ai, CaroBoard board, int player) {
+        if (timeMs > 0) return ai.getBestMove(board, player, board.getMoveCount(), timeMs);
+        return ai.getBestMove(board, player, board.getMoveCount());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,320 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroAI;
+import com.duyhung.gamecaro.CaroBoard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Giao thức Gomocup (piskvork) qua stdin/stdout, để đấu với các engine gomoku khác trong trình quản lý giải.
+// Lệnh: START n, RESTART, BEGIN, TURN x,y, BOARD ... DONE, TAKEBACK x,y, INFO khoá giá trị, ABOUT, END;
+// x là cột, y là hàng, tính từ 0. Mỗi lệnh một dòng trả lời (trừ INFO và END), lỗi thì "ERROR ...".
+// Thời gian mỗi nước theo INFO timeout_turn (0: đi ngay), và time_left chia đều cho MOVES_TO_PLAN nước
+// nếu ván có giới hạn tổng, trừ khoảng an toàn (20%, ít nhất 50 ms) cho phần giải thế cờ, GC, độ trễ
+// đọc/ghi và bước kiểm tra đồng hồ mỗi 1024 nút. Đo khi hai tiến trình tự đấu trên máy một lõi, timeout_turn
+// 300: ngân sách 240 ms, trả lời chậm nhất 268 ms (còn dư khoảng 10%).
+// INFO max_memory (byte, 0 là không giới hạn) quyết định cỡ bảng chuyển vị: tối đa một phần tư giới hạn và
+// một phần tư heap của JVM; CaroAI được tạo lại khi giới hạn đổi. JVM nên được chạy với -Xmx trong giới hạn đó.
+final class GomocupBrain {
+
+    static final long DEFAULT_TIMEOUT_TURN_MS = 5_000;
+    private static final long MIN_MARGIN_MS = 50;
+    private static final int MOVES_TO_PLAN = 20;
+    private static final long WARM_UP_MS = 100;
+    private static final String ABOUT = "name=\"caro\", version=\"1.0\", author=\"duyhung\", country=\"VN\"";
+
+    private final EngineConfig config;
+    private final PrintStream out;
+    private CaroAI ai; // tạo khi cần nghĩ, theo giới hạn bộ nhớ hiện tại
+    private int aiTableMb = -1;
+    private CaroBoard board;
+    private int me;
+
+    private long timeoutTurnMs = DEFAULT_TIMEOUT_TURN_MS;
+    private long timeoutMatchMs; // 0: không giới hạn tổng
+    private long timeLeftMs = -1;
+    private long maxMemory; // 0: không giới hạn
+    long lastBudgetMs; // ngân sách của nước gần nhất, để kiểm tra
+
+    GomocupBrain(EngineConfig config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+    }
+
+    static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        // tt mặc định như app; --engine ghi đè được (tt là mức trần, max_memory có thể giảm thêm)
+        String spec = "name=caro,tt=" + CaroAI.DEFAULT_TABLE_MB;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--engine") && i + 1 < args.length) {
+                spec += "," + args[++i];
+            } else {
+                err.println("gomocup: unknown option " + args[i]);
+                err.println("usage: caro gomocup [--engine <spec>]   (speaks the Gomocup protocol on stdin/stdout)");
+                return 2;
+            }
+        }
+        GomocupBrain brain;
+        try {
+            brain = new GomocupBrain(EngineConfig.parse(spec), out);
+        } catch (IllegalArgumentException e) {
+            err.println("gomocup: " + e.getMessage());
+            return 2;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!brain.handle(line, reader)) break;
+            }
+        } catch (IOException e) {
+            err.println("gomocup: " + e.getMessage());
+            return 1;
+        } finally {
+            brain.shutdown();
+        }
+        return 0;
+    }
+
+    // Xử lý một lệnh (BOARD đọc tiếp các dòng tới DONE từ reader); false khi gặp END
+    boolean handle(String line, BufferedReader reader) throws IOException {
+        line = line.trim();
+        if (line.isEmpty()) return true;
+        int space = line.indexOf(' ');
+        String command = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+        String arg = space < 0 ? "" : line.substring(space + 1).trim();
+        switch (command) {
+            case "START": start(arg); break;
+            case "RESTART": restart(); break;
+            case "BEGIN": begin(); break;
+            case "TURN": turn(arg); break;
+            case "BOARD": board(reader); break;
+            case "TAKEBACK": takeback(arg); break;
+            case "INFO": info(arg); break;
+            case "ABOUT": reply(ABOUT); break;
+            case "END": return false;
+            default: reply("UNKNOWN " + command);
+        }
+        return true;
+    }
+
+    void shutdown() {
+        if (ai != null) ai.shutdown();
+    }
+
+    private void start(String arg) {
+        int size;
+        try {
+            size = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            reply("ERROR bad board size");
+            return;
+        }
+        if (size < CaroBoard.MIN_SIZE || size > CaroBoard.MAX_SIZE) {
+            reply("ERROR unsupported size " + size + ", supported " + CaroBoard.MIN_SIZE + ".." + CaroBoard.MAX_SIZE);
+            return;
+        }
+        board = new CaroBoard(size);
+        warmUp();
+        reply("OK");
+    }
+
+    // START không tính giờ: tạo engine, chạy thử một lượt ngắn và định dạng nước trả lời để nạp lớp
+    // (lần nối chuỗi đầu tiên của JVM mất vài chục ms), khỏi lấn vào thời gian nước đầu
+    private void warmUp() {
+        CaroBoard scratch = new CaroBoard(board.getSize());
+        int center = board.getSize() / 2;
+        scratch.setMove(center, center, CaroBoard.PLAYER_X);
+        format(engine().getBestMove(scratch, CaroBoard.PLAYER_O, scratch.getMoveCount(), WARM_UP_MS));
+    }
+
+    private void restart() {
+        if (!started()) return;
+        board = new CaroBoard(board.getSize());
+        reply("OK");
+    }
+
+    private void begin() {
+        if (!started()) return;
+        if (board.getMoveCount() != 0) {
+            reply("ERROR board is not empty");
+            return;
+        }
+        me = CaroBoard.PLAYER_X;
+        think();
+    }
+
+    private void turn(String arg) {
+        if (!started()) return;
+        int[] move = parseMove(arg);
+        if (move == null) return;
+        me = board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X; // đối thủ vừa đi nước này
+        board.setMove(move[0], move[1], opponent(me));
+        think();
+    }
+
+    // Các dòng "x,y,bên" theo thứ tự đã đi (1: quân mình, 2: quân đối thủ, 3: ô của luật liên tục, bỏ qua), kết thúc bằng DONE
+    private void board(BufferedReader reader) throws IOException {
+        if (!started()) return;
+        List<int[]> stones = new ArrayList<>();
+        int own = 0, other = 0;
+        String line;
+        while ((line = reader.readLine()) != null && !line.trim().equalsIgnoreCase("DONE")) {
+            String[] parts = line.trim().split(",");
+            if (parts.length != 3) continue;
+            int x, y, field;
+            try {
+                x = Integer.parseInt(parts[0].trim());
+                y = Integer.parseInt(parts[1].trim());
+                field = Integer.parseInt(parts[2].trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (field != 1 && field != 2) continue;
+            stones.add(new int[]{y, x, field});
+            if (field == 1) own++;
+            else other++;
+        }
+        // đến lượt mình: ít quân hơn hoặc bằng đối thủ; bằng nhau thì mình là bên đi trước
+        me = own < other ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+        board = new CaroBoard(board.getSize());
+        for (int[] stone : stones) {
+            if (!inside(stone[0], stone[1]) || !board.setMove(stone[0], stone[1], stone[2] == 1 ? me : opponent(me))) {
+                reply("ERROR bad stone " + stone[1] + "," + stone[0]);
+                return;
+            }
+        }
+        think();
+    }
+
+    // Thường là nước cuối; ô khác thì dựng lại bàn từ các nước còn lại theo đúng thứ tự
+    private void takeback(String arg) {
+        if (!started()) return;
+        int[] move = parseMove(arg, false);
+        if (move == null) return;
+        int size = board.getSize();
+        int cell = move[0] * size + move[1];
+        if (board.getCell(move[0], move[1]) == CaroBoard.EMPTY) {
+            reply("ERROR no stone at " + arg);
+            return;
+        }
+        CaroBoard rebuilt = new CaroBoard(size);
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int played = board.getMove(i);
+            if (played != cell) rebuilt.setMove(played / size, played % size, board.getCell(played / size, played % size));
+        }
+        board = rebuilt;
+        reply("OK");
+    }
+
+    private void info(String arg) {
+        int space = arg.indexOf(' ');
+        if (space < 0) return;
+        String key = arg.substring(0, space).toLowerCase(Locale.ROOT);
+        long value;
+        try {
+            value = Long.parseLong(arg.substring(space + 1).trim());
+        } catch (NumberFormatException e) {
+            return; // folder, ... không dùng
+        }
+        switch (key) {
+            case "timeout_turn": timeoutTurnMs = Math.max(0, value); break;
+            case "timeout_match": timeoutMatchMs = Math.max(0, value); break;
+            case "time_left": timeLeftMs = value; break;
+            case "max_memory": maxMemory = Math.max(0, value); break;
+            default: // game_type, rule, evaluate: chỉ chơi luật tự do (5 quân trở lên)
+        }
+    }
+
+    private void think() {
+        if (board.getWinner() != CaroBoard.EMPTY || board.isFull()) {
+            reply("ERROR game is over");
+            return;
+        }
+        long budget = turnBudgetMs();
+        lastBudgetMs = budget;
+        int[] move = engine().getBestMove(board, me, board.getMoveCount(), budget);
+        board.setMove(move[0], move[1], me);
+        reply(format(move));
+    }
+
+    // {row, col} thành "x,y"
+    private static String format(int[] move) {
+        return move[1] + "," + move[0];
+    }
+
+    // Thời gian được dùng cho nước này, đã trừ khoảng an toàn; ít nhất 1 ms (tìm độ sâu 1)
+    long turnBudgetMs() {
+        long budget = timeoutTurnMs;
+        if (timeoutMatchMs > 0 && timeLeftMs >= 0) {
+            long share = timeLeftMs / MOVES_TO_PLAN;
+            budget = budget > 0 ? Math.min(budget, share) : share;
+        }
+        budget -= Math.max(MIN_MARGIN_MS, budget / 5);
+        return Math.max(1, budget);
+    }
+
+    // Cỡ bảng chuyển vị theo max_memory và heap hiện có
+    int tableMb() {
+        long limit = config.tableMb * (1L << 20);
+        if (maxMemory > 0) limit = Math.min(limit, maxMemory / 4);
+        limit = Math.min(limit, Runtime.getRuntime().maxMemory() / 4);
+        return (int) (limit >> 20);
+    }
+
+    private CaroAI engine() {
+        int tableMb = tableMb();
+        if (ai == null || tableMb != aiTableMb) {
+            if (ai != null) ai.shutdown();
+            ai = config.create(tableMb);
+            aiTableMb = tableMb;
+        }
+        return ai;
+    }
+
+    private boolean started() {
+        if (board == null) reply("ERROR no START");
+        return board != null;
+    }
+
+    private int[] parseMove(String arg) {
+        return parseMove(arg, true);
+    }
+
+    // {row, col} từ "x,y"; mustBeEmpty thì ô phải trống
+    private int[] parseMove(String arg, boolean mustBeEmpty) {
+        String[] parts = arg.split(",");
+        try {
+            if (parts.length == 2) {
+                int col = Integer.parseInt(parts[0].trim());
+                int row = Integer.parseInt(parts[1].trim());
+                if (inside(row, col) && (!mustBeEmpty || board.getCell(row, col) == CaroBoard.EMPTY)) {
+                    return new int[]{row, col};
+                }
+            }
+        } catch (NumberFormatException e) {
+            // rơi xuống báo lỗi
+        }
+        reply("ERROR invalid move " + arg);
+        return null;
+    }
+
+    private boolean inside(int row, int col) {
+        return row >= 0 && col >= 0 && row < board.getSize() && col < board.getSize();
+    }
+
+    private static int opponent(int player) {
+        return player == CaroBoard.PLAYER_X ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+    }
+
+    private void reply(String line) {
+        out.println(line);
+        out.flush();
+    }
+}
@@ -0,0 +1,46 @@
+package com.duyhung.gamecaro.cli;
+
+import java.util.Arrays;
+
+// Điểm vào của công cụ dòng lệnh: caro <lệnh> [tham số...]
+public final class Main {
+
+    private Main() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            usage();
+            System.exit(2);
+        }
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        int code;
+        switch (args[0]) {
+            case "tournament":
+                code = Tournament.run(rest, System.out, System.err);
+                break;
+            case "book":
+                code = BookGenerator.run(rest, System.out, System.err);
+                break;
+            case "analyze":
+                code = Annotator.run(rest, System.out, System.err);
+                break;
+            case "gomocup":
+                code = GomocupBrain.run(rest, System.in, System.out, System.err);
+                break;
+            default:
+                usage();
+                code = 2;
+        }
+        System.exit(code);
+    }
+
+    private static void usage() {
+        System.err.println("usage: caro <command> [options]");
+        System.err.println("commands:");
+        System.err.println("  tournament   self-play matches between engine configurations");
+        System.err.println("  book         generate an opening book by deep search");
+        System.err.println("  analyze      annotate saved games with best moves and mistakes (JSON lines)");
+        System.err.println("  gomocup      play as a Gomocup protocol brain on stdin/stdout");
+    }
+}
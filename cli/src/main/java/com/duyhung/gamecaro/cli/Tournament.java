@@ -0,0 +1,282 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroAI;
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.GameSession;
+import com.duyhung.gamecaro.SearchStats;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cho các cấu hình AI tự đấu: cấu hình đầu tiên là mốc, mỗi cấu hình còn lại đấu với mốc.
+// Mỗi khai cuộc ngẫu nhiên được chơi hai ván đổi màu; các ván chạy song song, mỗi luồng giữ
+// CaroAI riêng cho từng cấu hình. Kết quả: thắng/hoà/thua, chênh lệch Elo ± 95%,
+// thời gian nghĩ trung bình mỗi nước và số nút mỗi giây của từng cấu hình.
+final class Tournament {
+
+    private static final int OPENING_WINDOW = 7;
+    private static final int MAX_OPENING_ATTEMPTS = 100_000;
+
+    static final class Options {
+        int games = 100; // số ván mỗi cặp đấu, làm tròn lên số chẵn
+        int threads = Runtime.getRuntime().availableProcessors();
+        int openingMoves = 4;
+        int size = CaroBoard.SIZE;
+        long seed = 1;
+        final List<EngineConfig> engines = new ArrayList<>();
+    }
+
+    // Số liệu tích luỹ của một cấu hình qua mọi ván nó chơi
+    static final class EngineStats {
+        final EngineConfig config;
+        long moves;
+        long thinkNanos;
+        long nodes;
+        long maxNanos;
+        long maxNodes; // nhiều nút nhất trong một nước, tính cả nút giải thế cờ
+
+        EngineStats(EngineConfig config) {
+            this.config = config;
+        }
+
+        synchronized void add(long nanos, long searchNodes, long totalNodes) {
+            moves++;
+            thinkNanos += nanos;
+            nodes += searchNodes;
+            maxNanos = Math.max(maxNanos, nanos);
+            maxNodes = Math.max(maxNodes, totalNodes);
+        }
+
+        double thinkMsPerMove() {
+            return moves == 0 ? 0 : thinkNanos / 1e6 / moves;
+        }
+
+        double nodesPerSecond() {
+            return thinkNanos == 0 ? 0 : nodes * 1e9 / thinkNanos;
+        }
+    }
+
+    // Kết quả theo góc nhìn của cấu hình thách đấu
+    static final class MatchResult {
+        final EngineConfig challenger;
+        int wins, draws, losses;
+
+        MatchResult(EngineConfig challenger) {
+            this.challenger = challenger;
+        }
+
+        synchronized void add(int outcome) {
+            if (outcome > 0) wins++;
+            else if (outcome < 0) losses++;
+            else draws++;
+        }
+    }
+
+    static final class Report {
+        final List<EngineStats> stats = new ArrayList<>();
+        final List<MatchResult> matches = new ArrayList<>();
+        double seconds;
+    }
+
+    private Tournament() {
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("tournament: " + e.getMessage());
+            usage(err);
+            return 2;
+        }
+        Report report = play(options, err);
+        print(report, options, out);
+        return 0;
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "--games": options.games = Integer.parseInt(value); break;
+                case "--threads": options.threads = Integer.parseInt(value); break;
+                case "--opening-moves": options.openingMoves = Integer.parseInt(value); break;
+                case "--size": options.size = Integer.parseInt(value); break;
+                case "--seed": options.seed = Long.parseLong(value); break;
+                case "--engine": options.engines.add(EngineConfig.parse(value)); break;
+                default: throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        if (options.engines.size() < 2) throw new IllegalArgumentException("need at least two --engine");
+        if (options.games < 1 || options.threads < 1) {
+            throw new IllegalArgumentException("games and threads must be positive");
+        }
+        if (options.size < CaroBoard.MIN_SIZE || options.size > CaroBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("size must be " + CaroBoard.MIN_SIZE + ".." + CaroBoard.MAX_SIZE);
+        }
+        int window = Math.min(OPENING_WINDOW, options.size);
+        if (options.openingMoves < 0 || options.openingMoves > window * window) {
+            throw new IllegalArgumentException("opening-moves must be 0.." + window * window);
+        }
+        return options;
+    }
+
+    static void usage(PrintStream err) {
+        err.println("usage: caro tournament --engine <spec> --engine <spec> [--engine <spec> ...]");
+        err.println("         [--games N] [--threads N] [--opening-moves N] [--seed N] [--size N]");
+        err.println("  the first engine is the baseline, every other engine plays N games against it");
+        err.println("  spec: key=value,... with keys name, depth, time (ms/move), tt (MB), vcf, vct, book (file),");
+        err.println("        level (easy|medium|hard|expert: node/time budget, candidate cap, noise, threat depth)");
+        err.println("        eval (patterns|runs), patterns (weights file), p.<shape> (pattern weight, e.g. p.open_three)");
+        err.println("        and run evaluation weights five, defense, open1-4, half1-4, closed1-4 (imply eval=runs)");
+    }
+
+    static Report play(Options options, PrintStream progress) {
+        Report report = new Report();
+        Map<EngineConfig, EngineStats> statsByConfig = new HashMap<>();
+        for (EngineConfig config : options.engines) {
+            EngineStats stats = new EngineStats(config);
+            statsByConfig.put(config, stats);
+            report.stats.add(stats);
+        }
+        EngineConfig baseline = options.engines.get(0);
+        int pairs = (options.games + 1) / 2;
+        int total = pairs * 2 * (options.engines.size() - 1);
+
+        // mỗi luồng giữ một CaroAI cho mỗi cấu hình, dùng lại qua các ván
+        ThreadLocal<Map<EngineConfig, CaroAI>> engines = ThreadLocal.withInitial(HashMap::new);
+        AtomicInteger finished = new AtomicInteger();
+        int step = Math.max(1, total / 20);
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int m = 1; m < options.engines.size(); m++) {
+            EngineConfig challenger = options.engines.get(m);
+            MatchResult match = new MatchResult(challenger);
+            report.matches.add(match);
+            for (int pair = 0; pair < pairs; pair++) {
+                // cùng seed thì mọi cặp đấu gặp cùng một dãy khai cuộc
+                int[][] opening = randomOpening(new Random(options.seed * 1_000_003L + pair), options.openingMoves,
+                        options.size);
+                for (int swap = 0; swap < 2; swap++) {
+                    boolean challengerIsX = swap == 1;
+                    futures.add(pool.submit(() -> {
+                        Map<EngineConfig, CaroAI> mine = engines.get();
+                        EngineConfig x = challengerIsX ? challenger : baseline;
+                        EngineConfig o = challengerIsX ? baseline : challenger;
+                        int winner = playGame(options.size, opening,
+                                x, mine.computeIfAbsent(x, EngineConfig::create), statsByConfig.get(x),
+                                o, mine.computeIfAbsent(o, EngineConfig::create), statsByConfig.get(o));
+                        int challengerSide = challengerIsX ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+                        match.add(winner == CaroBoard.EMPTY ? 0 : winner == challengerSide ? 1 : -1);
+                        int done = finished.incrementAndGet();
+                        if (progress != null && (done % step == 0 || done == total)) {
+                            progress.println("games " + done + "/" + total);
+                        }
+                    }));
+                }
+            }
+        }
+        try {
+            for (Future<?> future : futures) future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("game failed", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        report.seconds = (System.nanoTime() - start) / 1e9;
+        return report;
+    }
+
+    // Chơi một ván từ khai cuộc; trả về người thắng, CaroBoard.EMPTY nếu hoà.
+    // Nước không hợp lệ (không nên xảy ra) bị xử thua.
+    static int playGame(int size, int[][] opening, EngineConfig xConfig, CaroAI xAi, EngineStats xStats,
+                        EngineConfig oConfig, CaroAI oAi, EngineStats oStats) {
+        clearTable(xAi);
+        clearTable(oAi);
+        GameSession session = new GameSession(size);
+        for (int[] move : opening) session.play(move[0], move[1]);
+        while (!session.isOver()) {
+            int side = session.getSideToMove();
+            boolean isX = side == CaroBoard.PLAYER_X;
+            CaroAI ai = isX ? xAi : oAi;
+            long start = System.nanoTime();
+            int[] move = (isX ? xConfig : oConfig).bestMove(ai, session.snapshot(), side);
+            SearchStats stats = ai.getLastStats();
+            (isX ? xStats : oStats).add(System.nanoTime() - start, ai.getLastNodeCount(),
+                    stats.getNodes() + stats.getThreatNodes());
+            if (move == null || !session.play(move[0], move[1])) {
+                return isX ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+            }
+        }
+        return session.getWinner();
+    }
+
+    private static void clearTable(CaroAI ai) {
+        if (ai.getTranspositionTable() != null) ai.getTranspositionTable().clear();
+    }
+
+    // moves quân xen kẽ X, O rải ngẫu nhiên trong ô vuông 7x7 ở giữa bàn size x size (cả bàn nếu bàn nhỏ hơn).
+    // Số lần thử có giới hạn: ô vuông gần đầy có thể không còn ô nào đặt được mà không thành 5
+    static int[][] randomOpening(Random random, int moves, int size) {
+        int window = Math.min(OPENING_WINDOW, size);
+        if (moves < 0 || moves > window * window) throw new IllegalArgumentException("opening moves " + moves);
+        int first = Math.max(0, Math.min(size - window, size / 2 - window / 2));
+        CaroBoard board = new CaroBoard(size);
+        int[][] opening = new int[moves][];
+        int player = CaroBoard.PLAYER_X;
+        for (int i = 0, attempts = 0; i < moves; ) {
+            if (++attempts > MAX_OPENING_ATTEMPTS) {
+                throw new IllegalArgumentException("cannot place " + moves + " opening moves without a five");
+            }
+            int row = first + random.nextInt(window);
+            int col = first + random.nextInt(window);
+            if (!board.setMove(row, col, player)) continue;
+            if (board.getWinner() != CaroBoard.EMPTY) {
+                board.undoMove();
+                continue;
+            }
+            opening[i++] = new int[]{row, col};
+            player = player == CaroBoard.PLAYER_X ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+        }
+        return opening;
+    }
+
+    static void print(Report report, Options options, PrintStream out) {
+        int games = 0;
+        for (MatchResult match : report.matches) games += match.wins + match.draws + match.losses;
+        out.printf(Locale.ROOT, "%d games on %dx%d, %d threads, %.1f s (%.2f games/s)%n",
+                games, options.size, options.size, options.threads, report.seconds, games / report.seconds);
+        out.println();
+        out.printf(Locale.ROOT, "%-24s %6s %6s %6s %6s %7s %18s%n",
+                "vs " + options.engines.get(0).name, "games", "win", "draw", "loss", "score", "elo (95%)");
+        for (MatchResult match : report.matches) {
+            int n = match.wins + match.draws + match.losses;
+            double score = EloStats.score(match.wins, match.draws, match.losses);
+            out.printf(Locale.ROOT, "%-24s %6d %6d %6d %6d %6.1f%% %8.1f +/- %-7.1f%n",
+                    match.challenger.name, n, match.wins, match.draws, match.losses, score * 100,
+                    EloStats.elo(score), EloStats.margin(match.wins, match.draws, match.losses));
+        }
+        out.println();
+        out.printf(Locale.ROOT, "%-24s %10s %14s %10s %12s %12s%n",
+                "engine", "moves", "think ms/move", "worst ms", "max nodes", "nodes/s");
+        for (EngineStats stats : report.stats) {
+            out.printf(Locale.ROOT, "%-24s %10d %14.2f %10.1f %12d %12.0f%n", stats.config.name, stats.moves,
+                    stats.thinkMsPerMove(), stats.maxNanos / 1e6, stats.maxNodes, stats.nodesPerSecond());
+        }
+    }
+}
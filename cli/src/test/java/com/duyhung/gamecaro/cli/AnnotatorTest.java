@@ -0,0 +1,75 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.GameAnalyzer;
+import com.duyhung.gamecaro.GameHistory;
+import com.duyhung.gamecaro.GameRecord;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AnnotatorTest {
+
+    @Test
+    public void historyFile_givesOneJsonLinePerPosition() throws IOException {
+        File file = File.createTempFile("games", ".bin");
+        File out = File.createTempFile("analysis", ".jsonl");
+        try {
+            file.delete();
+            GameHistory history = new GameHistory(file);
+            history.append(GameRecord.parseNotation(CaroBoard.SIZE, "h8 h9 i8"));
+            history.append(GameRecord.parseNotation(CaroBoard.SIZE, "f8 f10 g8 g10 h8 h10 i8 e8 j8"));
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int code = Annotator.run(new String[]{file.getPath(), "--threads", "2", "--engine", "depth=2,tt=1",
+                    "--out", out.getPath()}, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+            assertEquals(0, code);
+
+            List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+            assertEquals(4 + 9, lines.size()); // ván 1 chưa xong: thêm thế cuối; ván 2 kết thúc bằng nước thắng
+            for (String line : lines) {
+                assertTrue(line, line.startsWith("{\"game\":") && line.endsWith("}"));
+            }
+            assertTrue(lines.stream().anyMatch(line -> line.contains("\"ply\":8,\"player\":\"x\",\"move\":\"j8\"")
+                    && line.contains("\"verdict\":\"best\"")));
+            assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("2 games (0 invalid), 13 positions"));
+        } finally {
+            file.delete();
+            out.delete();
+        }
+    }
+
+    @Test
+    public void textSource_skipsCommentsAndReportsBadLines() throws IOException {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        GameAnalyzer.GameSource source = Annotator.textSource(
+                new StringReader("# ván mẫu\n\nh8 h9\nh8 zz99\n  i8 i9 j8\n"), CaroBoard.SIZE, new PrintStream(err));
+        assertEquals(GameRecord.parseNotation(CaroBoard.SIZE, "h8 h9"), source.next());
+        assertEquals(GameRecord.parseNotation(CaroBoard.SIZE, "i8 i9 j8"), source.next());
+        assertNull(source.next());
+        assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).startsWith("analyze: line 4: "));
+    }
+
+    @Test
+    public void parse_defaultsAndErrors() {
+        Annotator.Options options = Annotator.parse(new String[]{"games.txt", "--text", "--engine", "time=50"});
+        assertTrue(options.text);
+        assertEquals(50, options.engine.timeMs);
+        assertEquals(4, options.engine.depth);
+        try {
+            Annotator.parse(new String[]{"--threads", "2"});
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("missing input file", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.OpeningBook;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class BookGeneratorTest {
+
+    @Test
+    public void smallBook_coversEveryNeighbourReply() throws IOException {
+        BookGenerator.Options options = BookGenerator.parse(new String[]{
+                "--out", "unused.bin", "--plies", "3", "--radius", "1", "--threads", "2",
+                "--engine", "depth=1,tt=1"});
+        OpeningBook.Builder builder = BookGenerator.generate(options, null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        builder.write(bytes);
+        OpeningBook book = OpeningBook.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(builder.size(), book.getEntryCount());
+
+        CaroBoard board = new CaroBoard();
+        int[] first = book.lookup(board);
+        assertNotNull(first);
+        board.setMove(first[0], first[1], CaroBoard.PLAYER_X);
+        // người đi O ở bất kỳ ô nào sát quân X: sách phải có nước cho X
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if (dr == 0 && dc == 0) continue;
+                board.setMove(first[0] + dr, first[1] + dc, CaroBoard.PLAYER_O);
+                int[] reply = book.lookup(board);
+                assertNotNull(reply);
+                assertEquals(CaroBoard.EMPTY, board.getCell(reply[0], reply[1]));
+                board.undoMove();
+            }
+        }
+        // 8 ô lân cận chỉ có 2 lớp qua đối xứng (cạnh và chéo), cộng bàn trống và nước đầu
+        assertTrue(builder.size() <= 1 + 1 + 2 + 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_needsOutput() {
+        BookGenerator.parse(new String[]{"--plies", "4"});
+    }
+}
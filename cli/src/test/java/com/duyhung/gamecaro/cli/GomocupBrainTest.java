@@ -0,0 +1,189 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroBoard;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class GomocupBrainTest {
+
+    // Dung sai cho độ trễ máy chạy test (JIT, GC, máy bận); giới hạn cứng của giao thức do trình quản lý kiểm
+    private static final long TOLERANCE_MS = 1_000;
+
+    // Chạy một kịch bản lệnh trong cùng tiến trình, trả về các dòng trả lời
+    private static String[] session(String script) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int code = GomocupBrain.run(new String[0], new ByteArrayInputStream(script.getBytes(StandardCharsets.US_ASCII)),
+                new PrintStream(out, true), new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(0, code);
+        String text = new String(out.toByteArray(), StandardCharsets.US_ASCII).trim();
+        return text.isEmpty() ? new String[0] : text.split("\\R");
+    }
+
+    private static int[] move(String reply) {
+        String[] parts = reply.split(",");
+        assertEquals(reply, 2, parts.length);
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    @Test
+    public void scriptedGame_answersEveryCommand() {
+        String[] replies = session("INFO timeout_turn 200\nSTART 15\nABOUT\nBEGIN\nTURN 0,0\nTURN 0,0\nRESTART\nhello\nEND\nSTART 15\n");
+        assertEquals(7, replies.length); // không gì sau END
+        assertEquals("OK", replies[0]);
+        assertTrue(replies[1].startsWith("name=\"caro\""));
+        int[] first = move(replies[2]);
+        assertTrue(Math.abs(first[0] - 7) <= 1 && Math.abs(first[1] - 7) <= 1);
+        int[] second = move(replies[3]);
+        assertFalse(second[0] == 0 && second[1] == 0);
+        assertTrue(replies[4].startsWith("ERROR")); // ô đã có quân
+        assertEquals("OK", replies[5]);
+        assertEquals("UNKNOWN HELLO", replies[6]);
+    }
+
+    @Test
+    public void errors_forBadStartAndMissingStart() {
+        String[] replies = session("TURN 1,1\nSTART 100\nSTART 20\nTURN 20,3\nfoo\nEND\n");
+        assertTrue(replies[0].startsWith("ERROR"));
+        assertTrue(replies[1].startsWith("ERROR"));
+        assertEquals("OK", replies[2]);
+        assertTrue(replies[3].startsWith("ERROR")); // x ngoài bàn 20x20
+        assertEquals("UNKNOWN FOO", replies[4]);
+    }
+
+    @Test
+    public void board_completesOwnFourAndBlocksTheOpponent() {
+        // quân mình (1) có bốn ở hàng y=5, x=3..6; đối thủ (2) cũng có bốn ở hàng y=9
+        StringBuilder script = new StringBuilder("INFO timeout_turn 300\nSTART 15\nBOARD\n");
+        for (int x = 3; x < 7; x++) script.append(x).append(",9,2\n").append(x).append(",5,1\n");
+        script.append("DONE\n");
+        script.append("TAKEBACK 6,5\nTAKEBACK 10,10\nEND\n");
+        String[] replies = session(script.toString());
+        int[] win = move(replies[1]);
+        assertEquals(5, win[1]);
+        assertTrue(win[0] == 2 || win[0] == 7);
+        assertEquals("OK", replies[2]);
+        assertTrue(replies[3].startsWith("ERROR")); // ô trống
+
+        // mình (O, ít quân hơn) chỉ có ba, đối thủ có bốn: phải chặn
+        String[] block = session("INFO timeout_turn 300\nSTART 15\nBOARD\n3,9,2\n3,5,1\n4,9,2\n4,5,1\n5,9,2\n5,5,1\n6,9,2\nDONE\nEND\n");
+        int[] reply = move(block[1]);
+        assertEquals(9, reply[1]);
+        assertTrue(reply[0] == 2 || reply[0] == 7);
+    }
+
+    @Test
+    public void timeAndMemoryLimits_shapeTheBudget() throws IOException {
+        GomocupBrain brain = new GomocupBrain(EngineConfig.parse("tt=16"), new PrintStream(new ByteArrayOutputStream()));
+        brain.handle("INFO timeout_turn 1000", null);
+        assertEquals(800, brain.turnBudgetMs());
+        brain.handle("INFO timeout_turn 100", null);
+        assertEquals(50, brain.turnBudgetMs()); // khoảng an toàn ít nhất 50 ms
+        brain.handle("INFO timeout_turn 0", null);
+        assertEquals(1, brain.turnBudgetMs());
+        brain.handle("INFO timeout_turn 5000", null);
+        brain.handle("INFO timeout_match 60000", null);
+        brain.handle("INFO time_left 10000", null);
+        assertEquals(400, brain.turnBudgetMs()); // 10000 / 20 nước, trừ 20%
+
+        long heapQuarterMb = Runtime.getRuntime().maxMemory() / 4 >> 20;
+        assertEquals(Math.min(16, heapQuarterMb), brain.tableMb());
+        brain.handle("INFO max_memory 8388608", null);
+        assertEquals(Math.min(2, heapQuarterMb), brain.tableMb());
+        brain.handle("INFO max_memory 1000000", null);
+        assertEquals(0, brain.tableMb()); // quá nhỏ thì tắt bảng chuyển vị
+    }
+
+    @Test
+    public void turnBudget_isHonoured() throws IOException {
+        GomocupBrain brain = new GomocupBrain(EngineConfig.parse("tt=4"), new PrintStream(new ByteArrayOutputStream()));
+        brain.handle("INFO timeout_turn 150", null);
+        brain.handle("START 15", null);
+        brain.handle("BEGIN", null); // khởi động JIT
+        int[][] moves = {{0, 0}, {14, 0}, {0, 14}, {14, 14}, {0, 7}}; // các góc, xa nước của máy
+        for (int[] move : moves) {
+            long start = System.nanoTime();
+            brain.handle("TURN " + move[0] + "," + move[1], null);
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            assertTrue("took " + ms + " ms", ms < brain.lastBudgetMs + TOLERANCE_MS);
+        }
+    }
+
+    // Trình quản lý giả lập: chạy hai brain là hai tiến trình "caro gomocup" riêng, cho chúng đấu với nhau
+    // qua stdin/stdout như piskvork, kiểm tra mọi nước hợp lệ và có trả lời (độ trễ thật chỉ đo được trên máy rảnh).
+    @Test
+    public void scriptedManager_playsTwoBrainProcesses() throws Exception {
+        final int timeoutTurn = 300, size = 15, maxMoves = 30;
+        final long budget = timeoutTurn - Math.max(50, timeoutTurn / 5); // như turnBudgetMs
+        Brain[] brains = {new Brain(), new Brain()};
+        try {
+            for (Brain brain : brains) {
+                brain.send("INFO timeout_turn " + timeoutTurn);
+                brain.send("INFO max_memory 67108864");
+                brain.send("START " + size);
+                assertEquals("OK", brain.receive(10_000)); // gồm cả khởi động JVM và chạy thử engine
+            }
+            CaroBoard board = new CaroBoard(size);
+            String reply = brains[0].command("BEGIN", budget + TOLERANCE_MS);
+            for (int ply = 0; board.getWinner() == CaroBoard.EMPTY && ply < maxMoves; ply++) {
+                int[] move = move(reply);
+                assertTrue("illegal " + reply, board.setMove(move[1], move[0], ply % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O));
+                if (board.getWinner() != CaroBoard.EMPTY) break;
+                reply = brains[(ply + 1) % 2].command("TURN " + reply, budget + TOLERANCE_MS);
+            }
+            for (Brain brain : brains) brain.send("END");
+            for (Brain brain : brains) assertEquals(0, brain.waitFor());
+        } finally {
+            for (Brain brain : brains) brain.process.destroyForcibly();
+        }
+    }
+
+    private static final class Brain {
+        final Process process;
+        final PrintWriter in;
+        final BufferedReader out;
+
+        Brain() throws IOException {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            process = new ProcessBuilder(java, "-Xmx128m", "-cp", System.getProperty("java.class.path"),
+                    Main.class.getName(), "gomocup").redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            in = new PrintWriter(process.getOutputStream(), true);
+            out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+        }
+
+        void send(String line) {
+            in.println(line);
+        }
+
+        // Một dòng trả lời, tính cả độ trễ ống dẫn, phải về trong timeoutMs
+        String command(String line, long timeoutMs) throws Exception {
+            send(line);
+            return receive(timeoutMs);
+        }
+
+        String receive(long timeoutMs) throws Exception {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (!out.ready()) {
+                if (System.currentTimeMillis() > deadline) fail("no reply within " + timeoutMs + " ms");
+                if (!process.isAlive()) fail("brain exited");
+                Thread.sleep(1);
+            }
+            return out.readLine();
+        }
+
+        int waitFor() throws InterruptedException {
+            return process.waitFor();
+        }
+    }
+}
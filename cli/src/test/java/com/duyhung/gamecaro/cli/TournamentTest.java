@@ -0,0 +1,120 @@
+package com.duyhung.gamecaro.cli;
+
+import com.duyhung.gamecaro.CaroBoard;
+import com.duyhung.gamecaro.EvalWeights;
+import com.duyhung.gamecaro.PatternWeights;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+
+    @Test
+    public void elo_ofEvenScoreIsZero_andMarginShrinksWithGames() {
+        assertEquals(0, EloStats.elo(0.5), 1e-9);
+        assertEquals(190.85, EloStats.elo(0.75), 0.01);
+        assertEquals(-190.85, EloStats.elo(0.25), 0.01);
+        double small = EloStats.margin(6, 2, 4);
+        double large = EloStats.margin(600, 200, 400);
+        assertTrue(small > 0 && large > 0);
+        assertTrue(large < small / 5);
+        assertTrue(Double.isNaN(EloStats.margin(1, 0, 0)));
+    }
+
+    @Test
+    public void engineConfig_parsesSearchAndWeightKeys() {
+        EngineConfig config = EngineConfig.parse("name=wide,depth=3,time=50,tt=2,vcf=0,open3=20000,defense=10");
+        assertEquals("wide", config.name);
+        assertEquals(3, config.depth);
+        assertEquals(50, config.timeMs);
+        assertEquals(2, config.tableMb);
+        assertEquals(0, config.vcfDepth);
+        assertEquals(EvalWeights.DEFAULT.with("open3", 20000).with("defense", 10), config.weights);
+        assertEquals("depth=1", EngineConfig.parse("depth=1").name);
+        assertNull(config.patternWeights); // trọng số theo đoạn quân kéo theo eval=runs
+    }
+
+    @Test
+    public void engineConfig_selectsEvaluator() {
+        assertEquals(PatternWeights.DEFAULT, EngineConfig.parse("depth=1").patternWeights);
+        assertNull(EngineConfig.parse("eval=runs").patternWeights);
+        assertEquals(PatternWeights.DEFAULT.with("open_three", 4000),
+                EngineConfig.parse("p.open_three=4000,open3=20000").patternWeights);
+        assertEquals(PatternWeights.DEFAULT, EngineConfig.parse("open3=20000,eval=patterns").patternWeights);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_needsTwoEngines() {
+        Tournament.parse(new String[]{"--engine", "depth=1"});
+    }
+
+    @Test
+    public void randomOpening_isReproducibleAndNearCenter() {
+        int[][] a = Tournament.randomOpening(new Random(5), 6, CaroBoard.SIZE);
+        int[][] b = Tournament.randomOpening(new Random(5), 6, CaroBoard.SIZE);
+        assertArrayEquals(a, b);
+        for (int[] move : a) {
+            assertTrue(Math.abs(move[0] - CaroBoard.SIZE / 2) <= 3);
+            assertTrue(Math.abs(move[1] - CaroBoard.SIZE / 2) <= 3);
+        }
+        for (int[] move : Tournament.randomOpening(new Random(5), 6, 30)) {
+            assertTrue(Math.abs(move[0] - 15) <= 3);
+            assertTrue(Math.abs(move[1] - 15) <= 3);
+        }
+    }
+
+    // Bàn nhỏ hơn ô vuông 7x7: khai cuộc nằm trong bàn; số nước quá nhiều bị từ chối, không lặp mãi
+    @Test(timeout = 10_000)
+    public void randomOpening_staysOnSmallBoardsAndIsBounded() {
+        for (int size = CaroBoard.MIN_SIZE; size <= 8; size++) {
+            int[][] opening = Tournament.randomOpening(new Random(size), Math.min(10, size * size / 3), size);
+            for (int[] move : opening) {
+                assertTrue(move[0] >= 0 && move[0] < size && move[1] >= 0 && move[1] < size);
+            }
+        }
+        try {
+            Tournament.randomOpening(new Random(1), 50, CaroBoard.SIZE);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // quá ô vuông 7x7
+        }
+        try {
+            assertEquals(49, Tournament.randomOpening(new Random(1), 49, CaroBoard.SIZE).length);
+        } catch (IllegalArgumentException e) {
+            // đầy ô vuông mà không thành 5 có thể không làm được: dừng sau số lần thử giới hạn
+        }
+        try {
+            Tournament.parse(new String[]{"--engine", "depth=1", "--engine", "depth=2", "--size", "5",
+                    "--opening-moves", "26"});
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("opening-moves must be 0..25", e.getMessage());
+        }
+    }
+
+    @Test
+    public void smallMatch_playsEveryGameWithColourSwap() {
+        Tournament.Options options = Tournament.parse(new String[]{
+                "--engine", "name=a,depth=1,tt=1", "--engine", "name=b,depth=2,tt=1",
+                "--games", "3", "--threads", "2", "--seed", "7"});
+        Tournament.Report report = Tournament.play(options, null);
+
+        Tournament.MatchResult match = report.matches.get(0);
+        assertEquals(4, match.wins + match.draws + match.losses); // 3 làm tròn lên 2 cặp
+        for (Tournament.EngineStats stats : report.stats) {
+            assertTrue(stats.moves > 0);
+            assertTrue(stats.nodesPerSecond() > 0);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Tournament.print(report, options, new PrintStream(bytes));
+        String text = bytes.toString();
+        assertTrue(text.contains("4 games on 15x15"));
+        assertTrue(text.contains("nodes/s"));
+    }
+}
@@ -0,0 +1,18 @@
+plugins {
+    `java-library`
+}
+
+// Engine cờ caro thuần Java (bàn cờ, luật, AI), không phụ thuộc Android:
+// :app, :benchmark và các công cụ dòng lệnh dùng chung
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
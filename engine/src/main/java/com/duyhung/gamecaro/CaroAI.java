@@ -0,0 +1,525 @@
+package com.duyhung.gamecaro;
+
+public class CaroAI {
+
+    public static final int DEFAULT_TABLE_MB = 16;
+    private static final int MAX_DEPTH = 2;   // Có thể chỉnh xuống 3 nếu lag
+    private static final int MAX_TIMED_DEPTH = 20; // giới hạn đào sâu khi tìm theo thời gian
+
+    private final TranspositionTable table;
+    private final Searcher searcher;
+    private final ThreatSolver threatSolver = new ThreatSolver();
+    private int vcfDepth = ThreatSolver.DEFAULT_VCF_DEPTH;
+    private int vctDepth = ThreatSolver.DEFAULT_VCT_DEPTH;
+    private int[][] lastThreatLine;
+    private OpeningBook openingBook; // null nếu không dùng sách
+    private boolean lastFromBook;
+    private ParallelSearcher parallel; // tạo khi threadCount > 1
+    private int threadCount = 1;
+    private int searchDepth; // 0: theo số nước đã đi (getAdaptiveDepth)
+    private EvalWeights weights = EvalWeights.DEFAULT;
+    private PatternWeights patternWeights = PatternWeights.DEFAULT; // null: đánh giá lá bằng Evaluator theo đoạn quân
+    private Difficulty difficulty; // null: độ sâu thích nghi / ngân sách do người gọi đưa, không giới hạn nút
+    private long noiseSeed = System.nanoTime();
+    private long lastNodes;
+    private int lastDepth;
+    private long lastThreatNodes;
+    private SearchStats lastStats;
+
+    // Suy nghĩ trong lượt đối thủ: một luồng tìm trước thế sau nước đáp dự đoán, dùng chung bảng chuyển vị.
+    // ponder() và các hàm đổi cấu hình (set...Weights, setDifficulty, setNoiseSeed, setThreatSearchDepth,
+    // setThreadCount) cùng synchronized và dừng ponder trước, để luồng ponder không thể bắt đầu giữa lúc
+    // dừng nó và lúc đổi cấu hình/xoá bảng
+    private Searcher ponderSearcher; // tạo khi ponder lần đầu
+    private final ThreatSolver ponderThreats = new ThreatSolver();
+    private Thread ponderThread;
+    private Ponder ponder;
+
+    public CaroAI() {
+        this(DEFAULT_TABLE_MB);
+    }
+
+    // tableSizeMb: bộ nhớ cho bảng chuyển vị, 0 để tắt (máy ít RAM)
+    public CaroAI(int tableSizeMb) {
+        table = tableSizeMb > 0 ? new TranspositionTable(tableSizeMb) : null;
+        searcher = new Searcher(table);
+        searcher.setPatternWeights(patternWeights);
+    }
+
+    public int[] getBestMove(CaroBoard board, int aiPlayer, int moveCount) {
+        if (difficulty != null) return getBestMove(board, aiPlayer, moveCount, difficulty.getTimeBudgetMs());
+        int maxDepth = searchDepth > 0 ? searchDepth : getAdaptiveDepth(moveCount);
+        return bestMove(board, aiPlayer, maxDepth, Long.MAX_VALUE);
+    }
+
+    // Đào sâu dần trong timeBudgetMs mili giây thay vì độ sâu cố định theo moveCount;
+    // timeBudgetMs <= 0 thì giống hàm 3 tham số. Có mức độ khó thì lấy thời gian nhỏ hơn trong hai ngân sách
+    public int[] getBestMove(CaroBoard board, int aiPlayer, int moveCount, long timeBudgetMs) {
+        if (timeBudgetMs <= 0) return getBestMove(board, aiPlayer, moveCount);
+        int maxDepth = MAX_TIMED_DEPTH;
+        if (difficulty != null) {
+            timeBudgetMs = Math.min(timeBudgetMs, difficulty.getTimeBudgetMs());
+            maxDepth = difficulty.getMaxDepth();
+        }
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        return bestMove(board, aiPlayer, maxDepth, deadline);
+    }
+
+    // Sách, rồi giải thế cờ, rồi tìm kiếm; deadline Long.MAX_VALUE là tìm đúng maxDepth (không đào sâu dần
+    // khi tìm tuần tự). Ghi lại SearchStats của lượt này
+    private int[] bestMove(CaroBoard board, int aiPlayer, int maxDepth, long deadline) {
+        long start = System.nanoTime();
+        Ponder pondered = takePonder();
+        if (pondered != null && pondered.hit(board, aiPlayer, maxDepth, deadline - start)) {
+            lastFromBook = false;
+            lastThreatLine = pondered.threat ? pondered.pv : null;
+            lastNodes = pondered.nodes;
+            lastDepth = pondered.depth;
+            lastStats = new SearchStats(SearchStats.Source.PONDER, pondered.nodes, pondered.threatNodes,
+                    pondered.leafEvals, pondered.cutoffs, pondered.ttHits, pondered.depth, pondered.score, pondered.pv,
+                    0, 0, System.nanoTime() - start, 1);
+            return pondered.move;
+        }
+        long ponderDone = System.nanoTime();
+        int[] book = probeBook(board);
+        long bookDone = System.nanoTime();
+        if (book != null) {
+            lastStats = new SearchStats(SearchStats.Source.BOOK, 0, 0, 0, 0, 0, 0, 0, new int[][]{book},
+                    bookDone - ponderDone, 0, 0, 1);
+            return book;
+        }
+        // giải thế cờ dùng tối đa nửa thời gian còn lại, phần kia để tìm kiếm
+        int[] forced = solveThreats(board, aiPlayer,
+                deadline == Long.MAX_VALUE ? deadline : bookDone + (deadline - bookDone) / 2);
+        long threatDone = System.nanoTime();
+        if (forced != null) {
+            lastStats = new SearchStats(SearchStats.Source.THREAT, 0, lastThreatNodes, 0, 0, 0, lastDepth,
+                    Searcher.winScore(lastDepth), lastThreatLine, bookDone - ponderDone, threatDone - bookDone, 0, 1);
+            return forced;
+        }
+
+        if (table != null) table.newSearch();
+        long budget = difficulty != null ? difficulty.getNodeBudget() : 0;
+        long remaining = budget > 0 ? Math.max(1, budget - lastThreatNodes) : 0;
+        int[] move;
+        if (threadCount > 1) {
+            move = searchParallel(board, aiPlayer, maxDepth, deadline, remaining);
+            lastStats = new SearchStats(SearchStats.Source.SEARCH, parallel.nodes, lastThreatNodes, parallel.leafEvals,
+                    parallel.cutoffs, parallel.ttHits, parallel.completedDepth, parallel.bestScore, parallel.principalVariation,
+                    bookDone - ponderDone, threatDone - bookDone, System.nanoTime() - threatDone, threadCount);
+            return move;
+        }
+        searcher.setNodeLimit(remaining);
+        move = deadline == Long.MAX_VALUE
+                ? searcher.search(board, aiPlayer, maxDepth)
+                : searcher.search(board, aiPlayer, maxDepth, deadline);
+        lastNodes = searcher.nodes;
+        lastDepth = searcher.completedDepth;
+        lastStats = new SearchStats(SearchStats.Source.SEARCH, searcher.nodes, lastThreatNodes, searcher.leafEvals,
+                searcher.cutoffs, searcher.ttHits, searcher.completedDepth, searcher.bestScore, searcher.principalVariation,
+                bookDone - ponderDone, threatDone - bookDone, System.nanoTime() - threatDone, 1);
+        return move;
+    }
+
+    // Độ sâu cố định cho getBestMove không giới hạn thời gian; 0 (mặc định) để tự chọn theo số nước đã đi
+    public void setSearchDepth(int depth) {
+        searchDepth = Math.max(0, depth);
+    }
+
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    // Trọng số của Evaluator theo đoạn quân, chỉ dùng khi setPatternWeights(null)
+    public synchronized void setEvalWeights(EvalWeights weights) {
+        stopPondering();
+        this.weights = weights;
+        searcher.setWeights(weights);
+        if (ponderSearcher != null) ponderSearcher.setWeights(weights);
+        if (parallel != null) parallel.setWeights(weights);
+    }
+
+    public EvalWeights getEvalWeights() {
+        return weights;
+    }
+
+    // Đánh giá lá bằng bảng hình cờ (PatternEvaluator) với trọng số này; null để dùng Evaluator theo đoạn quân
+    public synchronized void setPatternWeights(PatternWeights patternWeights) {
+        stopPondering();
+        this.patternWeights = patternWeights;
+        searcher.setPatternWeights(patternWeights);
+        if (ponderSearcher != null) ponderSearcher.setPatternWeights(patternWeights);
+        if (parallel != null) parallel.setPatternWeights(patternWeights);
+    }
+
+    public PatternWeights getPatternWeights() {
+        return patternWeights;
+    }
+
+    // Mức độ khó: ngân sách nút và thời gian mỗi nước, độ sâu tối đa, số nước xét mỗi nút, nhiễu điểm lá
+    // và độ dài VCF/VCT theo mức đó (ghi đè setThreatSearchDepth). null để về hành vi mặc định:
+    // độ sâu setSearchDepth / getAdaptiveDepth, hoặc thời gian do người gọi đưa, không giới hạn nút
+    public synchronized void setDifficulty(Difficulty difficulty) {
+        stopPondering();
+        this.difficulty = difficulty;
+        if (difficulty != null) setThreatSearchDepth(difficulty.getVcfDepth(), difficulty.getVctDepth());
+        else setThreatSearchDepth(ThreatSolver.DEFAULT_VCF_DEPTH, ThreatSolver.DEFAULT_VCT_DEPTH);
+        applyDifficulty();
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    // Seed của nhiễu điểm lá (mặc định theo thời điểm tạo), đặt cố định để các ván ở mức dễ lặp lại được
+    public synchronized void setNoiseSeed(long seed) {
+        stopPondering();
+        noiseSeed = seed;
+        applyDifficulty();
+    }
+
+    private void applyDifficulty() {
+        applyDifficulty(searcher);
+        if (ponderSearcher != null) applyDifficulty(ponderSearcher);
+        if (parallel != null) applyDifficulty(parallel);
+        if (table != null) table.clear(); // điểm lá đã đổi theo nhiễu
+    }
+
+    private void applyDifficulty(ParallelSearcher target) {
+        target.setCandidateCap(difficulty != null ? difficulty.getCandidateCap() : 0);
+        target.setNoise(difficulty != null ? difficulty.getNoise() : 0, noiseSeed);
+    }
+
+    private void applyDifficulty(Searcher target) {
+        target.setCandidateCap(difficulty != null ? difficulty.getCandidateCap() : 0);
+        target.setNoise(difficulty != null ? difficulty.getNoise() : 0, noiseSeed);
+    }
+
+    // Độ dài tối đa (số nước tấn công) của chuỗi VCF/VCT được giải trước khi tìm kiếm, 0 để tắt
+    public synchronized void setThreatSearchDepth(int vcfDepth, int vctDepth) {
+        stopPondering();
+        this.vcfDepth = Math.max(0, vcfDepth);
+        this.vctDepth = Math.max(0, vctDepth);
+    }
+
+    public int getVcfDepth() {
+        return vcfDepth;
+    }
+
+    public int getVctDepth() {
+        return vctDepth;
+    }
+
+    // Chuỗi thắng cưỡng bức {row, col} của lượt gần nhất (nước đầu là nước vừa chọn), null nếu lượt đó phải tìm kiếm
+    public int[][] getLastThreatLine() {
+        return lastThreatLine;
+    }
+
+    // Sách khai cuộc được tra trước cả giải thế cờ và tìm kiếm; null để tắt. Mức độ khó có thể bỏ qua sách
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    // true nếu nước của lượt gần nhất lấy từ sách khai cuộc
+    public boolean isLastMoveFromBook() {
+        return lastFromBook;
+    }
+
+    private int[] probeBook(CaroBoard board) {
+        lastFromBook = false;
+        if (openingBook == null || (difficulty != null && !difficulty.usesOpeningBook())) return null;
+        int[] move = openingBook.lookup(board);
+        if (move == null) return null;
+        lastFromBook = true;
+        lastThreatLine = null;
+        lastNodes = 0;
+        lastDepth = 0;
+        return move;
+    }
+
+    // Thử VCF rồi VCT; tìm được chuỗi thắng thì đi luôn nước đầu, không cần minimax
+    private int[] solveThreats(CaroBoard board, int aiPlayer, long deadline) {
+        lastThreatLine = null;
+        threatSolver.setDeadline(deadline);
+        threatSolver.setNodeLimit(threatNodeLimit());
+        int[][] line = null;
+        long nodes = 0;
+        if (vcfDepth > 0) {
+            line = threatSolver.solveVcf(board, aiPlayer, vcfDepth);
+            nodes += threatSolver.nodes;
+        }
+        if (line == null && vctDepth > 0) {
+            line = threatSolver.solveVct(board, aiPlayer, vctDepth);
+            nodes += threatSolver.nodes;
+        }
+        lastThreatNodes = nodes;
+        if (line == null) return null;
+        lastThreatLine = line;
+        lastNodes = nodes;
+        lastDepth = line.length;
+        return line[0];
+    }
+
+    // Có ngân sách nút thì mỗi lần giải thế cờ dùng tối đa một phần tư, phần còn lại để tìm kiếm
+    private int threatNodeLimit() {
+        long budget = difficulty != null ? difficulty.getNodeBudget() : 0;
+        return (int) (budget > 0 ? Math.min(ThreatSolver.DEFAULT_NODE_LIMIT, budget / 4) : ThreatSolver.DEFAULT_NODE_LIMIT);
+    }
+
+    // Số luồng tìm kiếm; 1 (mặc định) là tìm tuần tự, kết quả luôn như nhau giữa các lần chạy.
+    // Nhiều luồng thì chia nước ở gốc và dùng chung bảng chuyển vị, nước chọn có thể khác khi hoà điểm.
+    public synchronized void setThreadCount(int threads) {
+        stopPondering();
+        threads = Math.max(1, threads);
+        if (threads == threadCount) return;
+        if (parallel != null) {
+            parallel.shutdown();
+            parallel = null;
+        }
+        threadCount = threads;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    // Bắt đầu suy nghĩ trong lượt đối thủ, không chặn: board là thế sau nước máy vừa đi (đối thủ tới lượt).
+    // Nước đáp được đoán theo biến chính của lượt trước (nếu biến chính bắt đầu bằng nước vừa đi), không thì
+    // bằng một lượt tìm nông cho đối thủ; sau đó thế sau nước đáp được tìm sâu dần cho tới khi bị dừng.
+    // Lượt getBestMove kế tiếp dừng luồng này: đoán trúng và đã nghĩ đủ lâu thì trả về ngay nước đã tìm,
+    // trượt thì tìm như thường nhưng bảng chuyển vị đã có sẵn các thế vừa duyệt.
+    public synchronized void ponder(CaroBoard board, int aiPlayer) {
+        stopPondering();
+        if (board.getWinner() != CaroBoard.EMPTY || board.isFull()) return;
+        if (ponderSearcher == null) {
+            ponderSearcher = new Searcher(table);
+            ponderSearcher.setWeights(weights);
+            ponderSearcher.setPatternWeights(patternWeights);
+            applyDifficulty(ponderSearcher);
+        }
+        Ponder task = new Ponder(board.cloneBoard(), aiPlayer, predictReply(board));
+        ponder = task;
+        ponderThread = new Thread(task, "caro-ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    // Dừng suy nghĩ trong lượt đối thủ (nếu đang chạy) và bỏ kết quả
+    public synchronized void stopPondering() {
+        takePonder();
+    }
+
+    public synchronized boolean isPondering() {
+        return ponderThread != null;
+    }
+
+    // Dừng luồng ponder (interrupt, Searcher và ThreatSolver tự dừng) rồi trả về kết quả của nó
+    private synchronized Ponder takePonder() {
+        if (ponderThread == null) return null;
+        ponderThread.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                ponderThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        Ponder task = ponder;
+        ponderThread = null;
+        ponder = null;
+        return task;
+    }
+
+    // Nước thứ hai trong biến chính của lượt trước, nếu nước đầu đúng là nước vừa đi trên board
+    private int[] predictReply(CaroBoard board) {
+        SearchStats stats = lastStats;
+        if (stats == null || board.getMoveCount() == 0) return null;
+        int[][] pv = stats.getPrincipalVariation();
+        if (pv == null || pv.length < 2) return null;
+        int size = board.getSize();
+        int last = board.getMove(board.getMoveCount() - 1);
+        if (pv[0][0] * size + pv[0][1] != last) return null;
+        if (pv[1][0] >= size || pv[1][1] >= size || board.getCell(pv[1][0], pv[1][1]) != CaroBoard.EMPTY) return null;
+        return pv[1];
+    }
+
+    private final class Ponder implements Runnable {
+        private static final int PREDICT_DEPTH = 2;
+
+        private final CaroBoard board;
+        private final int aiPlayer;
+        private final long start = System.nanoTime();
+        private int[] reply;
+        // kết quả, chỉ đọc sau khi luồng ponder đã join
+        private long expectedHash;
+        private int expectedCount = -1;
+        private int[] move;
+        private int[][] pv;
+        private int depth;
+        private int score;
+        private boolean threat;
+        private boolean decisive;
+        private boolean budgetSpent; // đã chạy xong lượt tìm trong ngân sách của mức độ khó
+        private long nodes, threatNodes, leafEvals, cutoffs, ttHits;
+        private long elapsed;
+
+        Ponder(CaroBoard board, int aiPlayer, int[] reply) {
+            this.board = board;
+            this.aiPlayer = aiPlayer;
+            this.reply = reply;
+        }
+
+        @Override
+        public void run() {
+            try {
+                think();
+            } finally {
+                elapsed = System.nanoTime() - start; // cả thời gian đã nghĩ, tính đến lúc bị dừng
+            }
+        }
+
+        private void think() {
+            int human = Searcher.opponent(aiPlayer);
+            if (reply == null) reply = ponderSearcher.search(board, human, PREDICT_DEPTH);
+            if (reply == null || Thread.currentThread().isInterrupted()) return;
+            board.setMove(reply[0], reply[1], human);
+            expectedHash = board.getHash();
+            expectedCount = board.getMoveCount();
+            if (board.getWinner() != CaroBoard.EMPTY || board.isFull()) return;
+
+            int[][] line = null;
+            ponderThreats.setNodeLimit(threatNodeLimit());
+            if (vcfDepth > 0) {
+                line = ponderThreats.solveVcf(board, aiPlayer, vcfDepth);
+                threatNodes += ponderThreats.nodes;
+            }
+            if (line == null && vctDepth > 0 && !Thread.currentThread().isInterrupted()) {
+                line = ponderThreats.solveVct(board, aiPlayer, vctDepth);
+                threatNodes += ponderThreats.nodes;
+            }
+            if (line != null) {
+                move = line[0];
+                pv = line;
+                depth = line.length;
+                score = Searcher.winScore(line.length);
+                threat = decisive = true;
+                return;
+            }
+
+            int maxDepth = difficulty != null ? difficulty.getMaxDepth() : MAX_TIMED_DEPTH;
+            if (difficulty != null) {
+                // có mức độ khó thì ponder chạy đúng lượt tìm của một nước ở mức đó: cùng ngân sách nút (trừ nút
+                // đã giải thế cờ), cùng thời gian và cùng quy tắc dừng khi đã tiêu nửa ngân sách, chỉ là làm trước,
+                // để ponder không làm mức đó mạnh hơn
+                long budget = difficulty.getNodeBudget();
+                ponderSearcher.setNodeLimit(budget > 0 ? Math.max(1, budget - threatNodes) : 0);
+                long deadline = System.nanoTime() + difficulty.getTimeBudgetMs() * 1_000_000L;
+                int[] best = ponderSearcher.search(board, aiPlayer, maxDepth, deadline);
+                ponderSearcher.setNodeLimit(0);
+                nodes += ponderSearcher.nodes;
+                leafEvals += ponderSearcher.leafEvals;
+                cutoffs += ponderSearcher.cutoffs;
+                ttHits += ponderSearcher.ttHits;
+                if (Thread.currentThread().isInterrupted() || best == null) return;
+                move = best;
+                pv = ponderSearcher.principalVariation;
+                depth = ponderSearcher.completedDepth;
+                score = ponderSearcher.bestScore;
+                decisive = Searcher.isDecisive(score);
+                budgetSpent = true;
+                return;
+            }
+            for (int d = 1; d <= maxDepth; d++) {
+                int[] best = ponderSearcher.search(board, aiPlayer, d);
+                nodes += ponderSearcher.nodes;
+                leafEvals += ponderSearcher.leafEvals;
+                cutoffs += ponderSearcher.cutoffs;
+                ttHits += ponderSearcher.ttHits;
+                if (ponderSearcher.isAborted() || best == null) break;
+                move = best;
+                pv = ponderSearcher.principalVariation;
+                depth = d;
+                score = ponderSearcher.bestScore;
+                if (Searcher.isDecisive(ponderSearcher.bestScore)) {
+                    decisive = true;
+                    break;
+                }
+            }
+        }
+
+        // Đoán trúng thế hiện tại và đã nghĩ ít nhất bằng một lượt tìm thường: maxDepth với tìm
+        // theo độ sâu, cả ngân sách của mức độ khó, hoặc cả ngân sách thời gian (budgetNanos)
+        boolean hit(CaroBoard actual, int player, int maxDepth, long budgetNanos) {
+            if (move == null || player != aiPlayer || actual.getMoveCount() != expectedCount
+                    || actual.getHash() != expectedHash || actual.getSize() != board.getSize()) return false;
+            if (actual.getCell(move[0], move[1]) != CaroBoard.EMPTY) return false;
+            if (decisive || budgetSpent) return true;
+            return depth >= maxDepth || (budgetNanos < Long.MAX_VALUE / 2 && elapsed >= budgetNanos);
+        }
+    }
+
+    // Giải phóng các luồng tìm song song (nếu có)
+    public void shutdown() {
+        stopPondering();
+        if (parallel != null) {
+            parallel.shutdown();
+            parallel = null;
+        }
+    }
+
+    private int[] searchParallel(CaroBoard board, int aiPlayer, int maxDepth, long deadline, long nodeLimit) {
+        if (parallel == null) {
+            parallel = new ParallelSearcher(table, threadCount);
+            parallel.setWeights(weights);
+            parallel.setPatternWeights(patternWeights);
+            applyDifficulty(parallel);
+        }
+        parallel.setNodeLimit(nodeLimit);
+        int[] move = parallel.search(board, aiPlayer, maxDepth, deadline);
+        lastNodes = parallel.nodes;
+        lastDepth = parallel.completedDepth;
+        return move;
+    }
+
+    // null nếu đã tắt bảng chuyển vị
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    public long getLastNodeCount() {
+        return lastNodes;
+    }
+
+    // Thống kê đầy đủ của lượt getBestMove gần nhất, null nếu chưa tìm lần nào
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    // Độ sâu đầy đủ cuối cùng của lượt tìm gần nhất
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    // Điểm của nước {row, col} cho player khi tìm sâu depth, cùng thang với SearchStats.getScore() của
+    // getBestMove trên thế đó, để so một nước bất kỳ với nước máy chọn; dùng chung bảng chuyển vị
+    public int scoreMove(CaroBoard board, int player, int row, int col, int depth) {
+        stopPondering();
+        searcher.begin(board, player);
+        int score = searcher.searchRootMove(row * board.getSize() + col, Math.max(1, depth), -Searcher.INFINITY);
+        searcher.end();
+        return score;
+    }
+
+    private static int getAdaptiveDepth(int moveCount) {
+        if (moveCount < 20) return MAX_DEPTH;
+        else if (moveCount < 40) return 3;
+        else return 2;
+    }
+}
@@ -0,0 +1,339 @@
+package com.duyhung.gamecaro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class CaroBoard {
+    public static final int SIZE = 15;  // kích thước bảng caro mặc định
+    public static final int MIN_SIZE = 5;
+    public static final int MAX_SIZE = 63; // mỗi đường vừa một long, chừa bit cao nhất làm biên
+    public static final int EMPTY = 0;
+    public static final int PLAYER_X = 1;
+    public static final int PLAYER_O = 2;
+
+    // Các hướng đường thẳng, theo thứ tự của DIRECTIONS
+    public static final int DIR_ROW = 0;
+    public static final int DIR_COL = 1;
+    public static final int DIR_DIAG = 2;
+    public static final int DIR_ANTI = 3;
+
+    private static final int NO_BOX = -1;
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // Mặt nạ đường và khoá Zobrist dùng chung cho mọi bàn cùng kích thước, tạo khi cần
+    private static final long[][][] LINE_MASKS = new long[MAX_SIZE + 1][][];
+    private static final long[][][] ZOBRIST = new long[MAX_SIZE + 1][][];
+
+    private final int size;
+    private final long[][] lineMasks;
+    private final long[][] zobrist;
+    // Bitboard: mỗi đường (hàng, cột, 2 họ đường chéo) của mỗi người là một long,
+    // bit thứ linePos(...) ứng với một ô. Đây là nơi duy nhất lưu quân trên bàn, nên
+    // bộ nhớ và thời gian reset/clone tỉ lệ với cạnh bàn chứ không phải diện tích
+    private final long[][][] lines;
+    private final int[] moveStack; // các nước đã đi, mã hoá row * size + col
+    // Hình chữ nhật bao các quân đã đặt (4 toạ độ 6 bit gói trong một int), cùng giá trị trước mỗi nước
+    // để undo trả lại trong O(1); AI chỉ quét trong vùng này nên không phụ thuộc diện tích bàn
+    private final int[] boxStack;
+    private int box = NO_BOX;
+    private int moveCount;
+    private long hash; // Zobrist hash, cập nhật tăng dần theo từng nước
+
+    // Người thắng được ghi nhận ngay khi đặt quân, cùng đường 5 quân thắng để hiển thị
+    private int winner = EMPTY;
+    private int winMoveIndex = -1;
+    private int winRow, winCol, winDir, winLength;
+
+    public CaroBoard() {
+        this(SIZE);
+    }
+
+    public CaroBoard(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("board size must be " + MIN_SIZE + ".." + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        this.lineMasks = lineMasksFor(size);
+        this.zobrist = zobristFor(size);
+        this.lines = new long[3][4][2 * size - 1];
+        this.moveStack = new int[size * size];
+        this.boxStack = new int[size * size];
+        reset();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void reset() {
+        for (long[][] playerLines : lines)
+            for (long[] dirLines : playerLines)
+                Arrays.fill(dirLines, 0L);
+        moveCount = 0;
+        box = NO_BOX;
+        hash = 0;
+        winner = EMPTY;
+        winMoveIndex = -1;
+    }
+
+    // false nếu ô đã có quân; toạ độ ngoài bàn là lỗi của người gọi (IllegalArgumentException), vì với bàn
+    // nhỏ hơn MAX_SIZE chúng vẫn trỏ vào mảng đường hợp lệ và sẽ lật nhầm bit
+    public boolean setMove(int row, int col, int player) {
+        if (getCell(row, col) == EMPTY) {
+            toggleLines(row, col, player);
+            hash ^= zobrist[player][row * size + col];
+            boxStack[moveCount] = box;
+            box = box == NO_BOX ? packBox(row, row, col, col)
+                    : packBox(Math.min(row, getMinRow()), Math.max(row, getMaxRow()),
+                    Math.min(col, getMinCol()), Math.max(col, getMaxCol()));
+            moveStack[moveCount++] = row * size + col;
+            if (winner == EMPTY && checkWinAt(row, col, player)) {
+                winner = player;
+                winMoveIndex = moveCount - 1;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Huỷ nước đi gần nhất, dùng cho make/unmake khi AI tìm kiếm trên cùng một bàn
+    public boolean undoMove() {
+        if (moveCount == 0) return false;
+        int cell = moveStack[--moveCount];
+        int row = cell / size;
+        int col = cell % size;
+        int player = getCell(row, col);
+        toggleLines(row, col, player);
+        hash ^= zobrist[player][cell];
+        box = boxStack[moveCount];
+        if (moveCount == winMoveIndex) {
+            winner = EMPTY;
+            winMoveIndex = -1;
+        }
+        return true;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    // Ô của nước đi thứ index (mã hoá row * getSize() + col)
+    public int getMove(int index) {
+        return moveStack[index];
+    }
+
+    // Vùng đã có quân; chỉ có nghĩa khi getMoveCount() > 0
+    public int getMinRow() {
+        return box & 63;
+    }
+
+    public int getMaxRow() {
+        return box >>> 6 & 63;
+    }
+
+    public int getMinCol() {
+        return box >>> 12 & 63;
+    }
+
+    public int getMaxCol() {
+        return box >>> 18 & 63;
+    }
+
+    // Các đường theo hướng dir cắt vùng đã có quân có chỉ số trong [firstLine(dir), lastLine(dir)];
+    // khoảng rỗng nếu bàn trống
+    public int firstLine(int dir) {
+        if (moveCount == 0) return 0;
+        switch (dir) {
+            case DIR_ROW: return getMinRow();
+            case DIR_COL: return getMinCol();
+            case DIR_DIAG: return getMinRow() - getMaxCol() + size - 1;
+            default: return getMinRow() + getMinCol();
+        }
+    }
+
+    public int lastLine(int dir) {
+        if (moveCount == 0) return -1;
+        switch (dir) {
+            case DIR_ROW: return getMaxRow();
+            case DIR_COL: return getMaxCol();
+            case DIR_DIAG: return getMaxRow() - getMinCol() + size - 1;
+            default: return getMaxRow() + getMaxCol();
+        }
+    }
+
+    private static int packBox(int minRow, int maxRow, int minCol, int maxCol) {
+        return minRow | maxRow << 6 | minCol << 12 | maxCol << 18;
+    }
+
+    public boolean isFull() {
+        return moveCount == size * size;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    // Các ô {row, col} của đường thắng, null nếu chưa ai thắng
+    public int[][] getWinningLine() {
+        if (winner == EMPTY) return null;
+        int[][] line = new int[winLength][];
+        for (int k = 0; k < winLength; k++)
+            line[k] = new int[]{winRow + k * DIRECTIONS[winDir][0], winCol + k * DIRECTIONS[winDir][1]};
+        return line;
+    }
+
+    // Chỉ xét 4 đường đi qua ô vừa đánh thay vì quét cả bàn, mỗi đường là một phép shift-and-mask
+    private boolean checkWinAt(int row, int col, int player) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            long bits = lines[player][dir][lineIndex(dir, row, col)];
+            if (LinePatterns.fives(bits) == 0) continue;
+            int pos = linePos(dir, row, col);
+            int forward = Long.numberOfTrailingZeros(~(bits >>> pos)) - 1;
+            int back = pos == 0 ? 0 : Long.numberOfLeadingZeros(~(bits << (64 - pos)));
+            winRow = row - back * DIRECTIONS[dir][0];
+            winCol = col - back * DIRECTIONS[dir][1];
+            winDir = dir;
+            winLength = back + forward + 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void toggleLines(int row, int col, int player) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++)
+            lines[player][dir][lineIndex(dir, row, col)] ^= 1L << linePos(dir, row, col);
+    }
+
+    // Bitboard của player trên đường thứ index theo hướng dir
+    public long getLine(int player, int dir, int index) {
+        return lines[player][dir][index];
+    }
+
+    public int lineCount(int dir) {
+        return dir == DIR_ROW || dir == DIR_COL ? size : 2 * size - 1;
+    }
+
+    // Đường theo hướng dir đi qua ô (row, col)
+    public int lineIndex(int dir, int row, int col) {
+        switch (dir) {
+            case DIR_ROW: return row;
+            case DIR_COL: return col;
+            case DIR_DIAG: return row - col + size - 1;
+            default: return row + col;
+        }
+    }
+
+    // Vị trí bit của ô (row, col) trên đường đó; bit tăng dần theo hướng DIRECTIONS[dir]
+    public static int linePos(int dir, int row, int col) {
+        return dir == DIR_ROW || dir == DIR_DIAG ? col : row;
+    }
+
+    public int cellRow(int dir, int index, int pos) {
+        switch (dir) {
+            case DIR_ROW: return index;
+            case DIR_DIAG: return pos + index - (size - 1);
+            default: return pos;
+        }
+    }
+
+    public static int cellCol(int dir, int index, int pos) {
+        switch (dir) {
+            case DIR_ROW: return pos;
+            case DIR_COL: return index;
+            case DIR_DIAG: return pos;
+            default: return index - pos;
+        }
+    }
+
+    // Các bit hợp lệ (nằm trong bàn) của đường
+    public long lineMask(int dir, int index) {
+        return lineMasks[dir][index];
+    }
+
+    // Seed cố định để hash ổn định giữa các lần chạy; mỗi kích thước một dãy khoá riêng
+    // (bàn 15 giữ dãy cũ) để bảng chuyển vị dùng chung không lẫn thế cờ giữa các cỡ bàn
+    private static synchronized long[][] zobristFor(int size) {
+        if (ZOBRIST[size] == null) {
+            SplittableRandom random = new SplittableRandom(0x5EEDCA50L + size - SIZE);
+            long[][] keys = new long[3][size * size];
+            for (int player = PLAYER_X; player <= PLAYER_O; player++)
+                for (int cell = 0; cell < size * size; cell++)
+                    keys[player][cell] = random.nextLong();
+            ZOBRIST[size] = keys;
+        }
+        return ZOBRIST[size];
+    }
+
+    private static synchronized long[][] lineMasksFor(int size) {
+        if (LINE_MASKS[size] == null) {
+            long full = (1L << size) - 1;
+            long[][] masks = new long[4][2 * size - 1];
+            for (int i = 0; i < size; i++) {
+                masks[DIR_ROW][i] = full;
+                masks[DIR_COL][i] = full;
+            }
+            // đường chéo index chứa các ô có linePos trong [from, to]
+            for (int index = 0; index < 2 * size - 1; index++) {
+                int diagFrom = Math.max(0, size - 1 - index), diagTo = Math.min(size - 1, 2 * size - 2 - index);
+                int antiFrom = Math.max(0, index - (size - 1)), antiTo = Math.min(size - 1, index);
+                masks[DIR_DIAG][index] = LinePatterns.bitRange(diagFrom, diagTo);
+                masks[DIR_ANTI][index] = LinePatterns.bitRange(antiFrom, antiTo);
+            }
+            LINE_MASKS[size] = masks;
+        }
+        return LINE_MASKS[size];
+    }
+
+    public int getCell(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new IllegalArgumentException("cell " + row + "," + col + " outside " + size + "x" + size + " board");
+        }
+        if ((lines[PLAYER_X][DIR_ROW][row] >>> col & 1) != 0) return PLAYER_X;
+        if ((lines[PLAYER_O][DIR_ROW][row] >>> col & 1) != 0) return PLAYER_O;
+        return EMPTY;
+    }
+
+    // Toàn bộ ô trống, tỉ lệ với diện tích bàn; AI không dùng hàm này
+    public List<int[]> getEmptyCells() {
+        List<int[]> moves = new ArrayList<>();
+        long full = lineMasks[DIR_ROW][0];
+        for (int i = 0; i < size; i++) {
+            long empty = full & ~(lines[PLAYER_X][DIR_ROW][i] | lines[PLAYER_O][DIR_ROW][i]);
+            for (; empty != 0; empty &= empty - 1)
+                moves.add(new int[]{i, Long.numberOfTrailingZeros(empty)});
+        }
+        return moves;
+    }
+
+    public CaroBoard cloneBoard() {
+        CaroBoard clone = new CaroBoard(size);
+        for (int p = 0; p < lines.length; p++)
+            for (int dir = 0; dir < 4; dir++)
+                System.arraycopy(this.lines[p][dir], 0, clone.lines[p][dir], 0, lines[p][dir].length);
+        System.arraycopy(this.moveStack, 0, clone.moveStack, 0, moveCount);
+        System.arraycopy(this.boxStack, 0, clone.boxStack, 0, moveCount);
+        clone.box = box;
+        clone.moveCount = moveCount;
+        clone.hash = hash;
+        clone.winner = winner;
+        clone.winMoveIndex = winMoveIndex;
+        clone.winRow = winRow;
+        clone.winCol = winCol;
+        clone.winDir = winDir;
+        clone.winLength = winLength;
+        return clone;
+    }
+
+    // Dò 5 quân liên tiếp bằng bitboard trên các đường cắt vùng có quân; trong game dùng getWinner()
+    public boolean checkWin(int player) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++)
+            for (int index = firstLine(dir); index <= lastLine(dir); index++)
+                if (LinePatterns.fives(lines[player][dir][index]) != 0) return true;
+        return false;
+    }
+}
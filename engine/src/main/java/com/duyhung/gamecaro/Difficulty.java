@@ -0,0 +1,68 @@
+package com.duyhung.gamecaro;
+
+// Các mức độ khó của máy: mỗi mức là một ngân sách tìm kiếm (số nút tối đa mỗi nước, tính cả nút giải thế cờ,
+// và thời gian tối đa), độ sâu tối đa, số nước xét ở mỗi nút, độ nhiễu cộng vào điểm lá, độ dài VCF/VCT và
+// có tra sách khai cuộc hay không (nước trong sách đến từ tìm sâu, nên mức dễ không dùng để giữ đúng sức).
+// Ngân sách được CaroAI giữ chặt (hết nút hoặc hết giờ là dừng), nên mức dễ cũng ít tốn CPU và pin.
+// nodeBudget 0: chỉ giới hạn theo thời gian; candidateCap 0: giữ giới hạn mặc định của Searcher.
+public enum Difficulty {
+
+    EASY(2_000, 150, 2, 5, 20_000, 0, 0, false),
+    MEDIUM(20_000, 400, 4, 8, 2_000, 6, 0, false),
+    HARD(200_000, 1_000, 8, 0, 0, ThreatSolver.DEFAULT_VCF_DEPTH, ThreatSolver.DEFAULT_VCT_DEPTH, true),
+    EXPERT(0, 3_000, 20, 0, 0, ThreatSolver.DEFAULT_VCF_DEPTH, ThreatSolver.DEFAULT_VCT_DEPTH, true);
+
+    private final long nodeBudget;
+    private final long timeBudgetMs;
+    private final int maxDepth;
+    private final int candidateCap;
+    private final int noise;
+    private final int vcfDepth;
+    private final int vctDepth;
+    private final boolean openingBook;
+
+    Difficulty(long nodeBudget, long timeBudgetMs, int maxDepth, int candidateCap, int noise, int vcfDepth, int vctDepth,
+               boolean openingBook) {
+        this.nodeBudget = nodeBudget;
+        this.timeBudgetMs = timeBudgetMs;
+        this.maxDepth = maxDepth;
+        this.candidateCap = candidateCap;
+        this.noise = noise;
+        this.vcfDepth = vcfDepth;
+        this.vctDepth = vctDepth;
+        this.openingBook = openingBook;
+    }
+
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getCandidateCap() {
+        return candidateCap;
+    }
+
+    // Biên độ nhiễu (cùng thang với heuristic), 0 là không nhiễu
+    public int getNoise() {
+        return noise;
+    }
+
+    public int getVcfDepth() {
+        return vcfDepth;
+    }
+
+    public int getVctDepth() {
+        return vctDepth;
+    }
+
+    public boolean usesOpeningBook() {
+        return openingBook;
+    }
+}
@@ -0,0 +1,75 @@
+package com.duyhung.gamecaro;
+
+import java.util.Arrays;
+
+// Trọng số của hàm đánh giá: điểm một chuỗi liên tiếp theo độ dài (1-4) và số đầu còn trống (0-2),
+// điểm chuỗi 5, và hệ số nhân điểm đối thủ (phòng thủ). Bất biến; with(...) trả về bản sửa đổi.
+public final class EvalWeights {
+
+    private static final String[] ENDS = {"closed", "half", "open"}; // tên khoá theo số đầu trống
+
+    // Trọng số gốc: mỗi bậc gấp 10, điểm đối thủ nhân 5 * 5
+    public static final EvalWeights DEFAULT = new EvalWeights(
+            new int[][]{
+                    {1, 10, 100, 1000},
+                    {10, 100, 1000, 10000},
+                    {100, 1000, 10000, 100000}},
+            1000000, 25);
+
+    final int[][] runScores; // [số đầu trống][độ dài - 1]
+    final int fiveScore;
+    final int defenseFactor;
+
+    private EvalWeights(int[][] runScores, int fiveScore, int defenseFactor) {
+        this.runScores = runScores;
+        this.fiveScore = fiveScore;
+        this.defenseFactor = defenseFactor;
+    }
+
+    // Khoá: five, defense, closed1..closed4, half1..half4, open1..open4 (ví dụ open3 là ba mở)
+    public EvalWeights with(String key, int value) {
+        int[][] scores = new int[3][];
+        for (int i = 0; i < 3; i++) scores[i] = runScores[i].clone();
+        if (key.equals("five")) return new EvalWeights(scores, value, defenseFactor);
+        if (key.equals("defense")) return new EvalWeights(scores, fiveScore, value);
+        for (int ends = 0; ends < ENDS.length; ends++) {
+            if (key.length() == ENDS[ends].length() + 1 && key.startsWith(ENDS[ends])) {
+                int count = key.charAt(key.length() - 1) - '0';
+                if (count >= 1 && count <= 4) {
+                    scores[ends][count - 1] = value;
+                    return new EvalWeights(scores, fiveScore, defenseFactor);
+                }
+            }
+        }
+        throw new IllegalArgumentException("unknown weight: " + key);
+    }
+
+    int runScore(int count, int openEnds) {
+        if (count >= 5) return fiveScore;
+        return runScores[openEnds][count - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof EvalWeights)) return false;
+        EvalWeights other = (EvalWeights) o;
+        return fiveScore == other.fiveScore && defenseFactor == other.defenseFactor
+                && Arrays.deepEquals(runScores, other.runScores);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(runScores) * 31 + fiveScore * 7 + defenseFactor;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int ends = 0; ends < ENDS.length; ends++) {
+            for (int count = 1; count <= 4; count++) {
+                sb.append(ENDS[ends]).append(count).append('=').append(runScores[ends][count - 1]).append(',');
+            }
+        }
+        return sb.append("five=").append(fiveScore).append(",defense=").append(defenseFactor).toString();
+    }
+}
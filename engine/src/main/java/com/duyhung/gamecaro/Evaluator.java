@@ -0,0 +1,91 @@
+package com.duyhung.gamecaro;
+
+// Đánh giá heuristic tăng dần: giữ điểm của từng đường (hàng, cột, 2 họ đường chéo) cho mỗi người,
+// khi đặt hoặc gỡ một quân chỉ tính lại 4 đường đi qua ô đó, nên lấy điểm ở lá là O(1).
+// Mỗi chuỗi liên tiếp chỉ được tính một lần (không cộng lặp các chuỗi con như cách cũ).
+final class Evaluator {
+
+    private int[][][] lineScores = new int[3][4][2 * CaroBoard.SIZE - 1];
+    private final int[] totals = new int[3];
+    private EvalWeights weights = EvalWeights.DEFAULT;
+
+    // Đổi trọng số; cần init lại trước khi dùng
+    void setWeights(EvalWeights weights) {
+        this.weights = weights;
+    }
+
+    // Tính lại toàn bộ từ board, gọi một lần trước khi tìm kiếm
+    void init(CaroBoard board) {
+        if (lineScores[0][CaroBoard.DIR_DIAG].length != 2 * board.getSize() - 1) {
+            lineScores = new int[3][4][2 * board.getSize() - 1];
+        }
+        totals[CaroBoard.PLAYER_X] = 0;
+        totals[CaroBoard.PLAYER_O] = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            for (int index = 0; index < board.lineCount(dir); index++) {
+                for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+                    int score = scoreLine(board, player, dir, index, weights);
+                    lineScores[player][dir][index] = score;
+                    totals[player] += score;
+                }
+            }
+        }
+    }
+
+    // Gọi sau mỗi setMove/undoMove tại ô (row, col)
+    void update(CaroBoard board, int row, int col) {
+        for (int dir = 0; dir < 4; dir++) {
+            int index = board.lineIndex(dir, row, col);
+            for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+                int score = scoreLine(board, player, dir, index, weights);
+                totals[player] += score - lineScores[player][dir][index];
+                lineScores[player][dir][index] = score;
+            }
+        }
+    }
+
+    int score(int player) {
+        return totals[player];
+    }
+
+    // Điểm đối thủ nhân hệ số phòng thủ để ưu tiên chặn (mặc định 5 * 5 như trọng số cũ)
+    int heuristic(int aiPlayer, int opponent) {
+        return totals[aiPlayer] - totals[opponent] * weights.defenseFactor;
+    }
+
+    // Bản tính lại toàn bàn, dùng làm đối chiếu cho bản tăng dần
+    static int evaluate(CaroBoard board, int player) {
+        return evaluate(board, player, EvalWeights.DEFAULT);
+    }
+
+    static int evaluate(CaroBoard board, int player, EvalWeights weights) {
+        int score = 0;
+        for (int dir = 0; dir < 4; dir++)
+            for (int index = 0; index < board.lineCount(dir); index++)
+                score += scoreLine(board, player, dir, index, weights);
+        return score;
+    }
+
+    static int scoreLine(CaroBoard board, int player, int dir, int index) {
+        return scoreLine(board, player, dir, index, EvalWeights.DEFAULT);
+    }
+
+    static int scoreLine(CaroBoard board, int player, int dir, int index, EvalWeights weights) {
+        long own = board.getLine(player, dir, index);
+        if (own == 0) return 0;
+        int opponent = (player == CaroBoard.PLAYER_X) ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+        long empty = board.lineMask(dir, index) & ~(own | board.getLine(opponent, dir, index));
+
+        int score = 0;
+        long rest = own;
+        while (rest != 0) {
+            int start = Long.numberOfTrailingZeros(rest);
+            int count = Long.numberOfTrailingZeros(~(rest >>> start));
+            boolean openStart = start > 0 && ((empty >>> (start - 1)) & 1) != 0;
+            boolean openEnd = ((empty >>> (start + count)) & 1) != 0;
+            score += weights.runScore(count, (openStart ? 1 : 0) + (openEnd ? 1 : 0));
+            rest &= ~(((1L << count) - 1) << start);
+        }
+        return score;
+    }
+}
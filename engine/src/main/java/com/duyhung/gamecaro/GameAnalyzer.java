@@ -0,0 +1,346 @@
+package com.duyhung.gamecaro;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Phân tích hàng loạt các ván đã lưu: mỗi thế của ván (trước từng nước, và sau nước cuối nếu ván chưa
+// xong) được tìm nước tốt nhất và điểm, rồi nước đã đi được chấm theo điểm mất đi so với nước tốt nhất.
+// Ván được đọc tuần tự từ GameSource vào một hàng đợi có giới hạn và chia cho threads luồng; mỗi luồng
+// giữ một CaroAI riêng và phân tích trọn một ván theo thứ tự nước, nên bảng chuyển vị của các thế trước
+// được dùng lại cho thế sau (chỉ xoá khi sang ván mới; mục của bảng khoá theo bên đi, nên có ích nhất là
+// thế hai nước trước của cùng bên). Bộ nhớ vì vậy cố định: threads bảng chuyển vị cộng vài ván trong
+// hàng đợi, không phụ thuộc số ván trong file.
+// Kết quả từng thế được đưa ra ngay khi có; các ván xen kẽ nhau, mỗi Position mang số thứ tự ván và
+// nước để ghép lại.
+public final class GameAnalyzer {
+
+    // Điểm mất đi (theo thang heuristic, bên đi) để bị coi là nước không chính xác / nước hỏng
+    public static final long INACCURACY_LOSS = 20_000;
+    public static final long MISTAKE_LOSS = 100_000;
+    private static final int QUEUE_PER_THREAD = 2;
+    private static final int THREAT_SCORE_DEPTH = 4;
+    private static final Job END = new Job(-1, null);
+
+    public enum Verdict { BEST, GOOD, INACCURACY, MISTAKE, BLUNDER }
+
+    // Nguồn ván đọc tuần tự, null khi hết (GameHistory.Reader::next là một nguồn)
+    public interface GameSource {
+        GameRecord next() throws IOException;
+    }
+
+    private final int threads;
+    private final Supplier<CaroAI> engines;
+    private final long timeBudgetMs;
+    private boolean shareTable = true;
+
+    // engines tạo một CaroAI cho mỗi luồng; timeBudgetMs <= 0 thì tìm theo độ sâu của CaroAI
+    public GameAnalyzer(int threads, Supplier<CaroAI> engines, long timeBudgetMs) {
+        this.threads = Math.max(1, threads);
+        this.engines = engines;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Tắt thì xoá bảng chuyển vị trước mỗi thế, như phân tích từng thế riêng lẻ (để đối chiếu)
+    void setShareTable(boolean shareTable) {
+        this.shareTable = shareTable;
+    }
+
+    // Phân tích mọi ván của source; sink được gọi lần lượt (không đồng thời) từ các luồng phân tích.
+    // Ván có nước không hợp lệ bị bỏ qua và đếm trong Summary. Lỗi của sink hay của tìm kiếm dừng
+    // toàn bộ và được ném lại dưới dạng IllegalStateException.
+    public Summary analyze(GameSource source, Consumer<Position> sink) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD);
+        AtomicLong positions = new AtomicLong();
+        AtomicInteger invalid = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Object sinkLock = new Object();
+        Consumer<Position> output = position -> {
+            synchronized (sinkLock) {
+                sink.accept(position);
+            }
+            positions.incrementAndGet();
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(pool.submit(() -> {
+                CaroAI ai = engines.get();
+                try {
+                    for (Job job = queue.take(); job != END; job = queue.take()) {
+                        if (!analyzeGame(ai, job.game, job.record, output)) invalid.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    // bị dừng vì luồng khác hỏng
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    ai.shutdown();
+                }
+            }));
+        }
+
+        int games = 0;
+        try {
+            GameRecord record;
+            while (failure.get() == null && (record = source.next()) != null) {
+                Job job = new Job(games++, record);
+                // hàng đợi đầy thì chờ, nhưng vẫn nhận ra khi một luồng phân tích đã hỏng
+                while (failure.get() == null && !queue.offer(job, 10, TimeUnit.MILLISECONDS)) {
+                    // chờ tiếp
+                }
+            }
+            for (int i = 0; i < threads && failure.get() == null; i++) {
+                while (failure.get() == null && !queue.offer(END, 10, TimeUnit.MILLISECONDS)) {
+                    // chờ tiếp
+                }
+            }
+            for (Future<?> worker : workers) {
+                while (failure.get() == null) {
+                    try {
+                        worker.get(10, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // kiểm tra lại failure
+                    } catch (ExecutionException e) {
+                        failure.compareAndSet(null, e.getCause());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow(); // lỗi, hoặc source ném IOException: dừng các lượt tìm đang chạy
+        }
+        Throwable error = failure.get();
+        if (error != null) throw new IllegalStateException("analysis failed", error);
+        return new Summary(games, positions.get(), invalid.get(), System.nanoTime() - start);
+    }
+
+    private static final class Job {
+        final int game;
+        final GameRecord record;
+
+        Job(int game, GameRecord record) {
+            this.game = game;
+            this.record = record;
+        }
+    }
+
+    // Phân tích một ván trên luồng hiện tại; false nếu ván có nước không hợp lệ (không đưa ra gì)
+    boolean analyzeGame(CaroAI ai, int game, GameRecord record, Consumer<Position> sink) {
+        try {
+            record.replay();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        TranspositionTable table = ai.getTranspositionTable();
+        if (table != null) table.clear();
+        int size = record.getSize();
+        CaroBoard board = new CaroBoard(size);
+        for (int ply = 0; board.getWinner() == CaroBoard.EMPTY && !board.isFull(); ply++) {
+            int player = ply % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+            if (!shareTable && table != null) table.clear();
+            int[] best = timeBudgetMs > 0
+                    ? ai.getBestMove(board, player, ply, timeBudgetMs)
+                    : ai.getBestMove(board, player, ply);
+            SearchStats stats = ai.getLastStats();
+            int[] played = ply < record.getMoveCount() ? record.getMove(ply) : null;
+            Position position = new Position(game, ply, size, player, played, best, stats);
+            if (played != null && !position.isBest() && stats.getSource() != SearchStats.Source.BOOK) {
+                // điểm của nước đã đi theo cùng bên đi và cùng độ sâu với nước tốt nhất (điểm heuristic không
+                // đối xứng giữa hai bên, nên không lấy được từ điểm của thế sau)
+                int depth = stats.getSource() == SearchStats.Source.THREAT ? scoreDepth(ai) : stats.getDepth();
+                position.settle(ai.scoreMove(board, player, played[0], played[1], depth));
+            }
+            sink.accept(position);
+            if (played == null) break; // ván chưa xong: thế cuối chỉ có nước tốt nhất và điểm
+            board.setMove(played[0], played[1], player);
+        }
+        return true;
+    }
+
+    // Nước tốt nhất đến từ chuỗi thắng ép: nước đã đi được tìm ở độ sâu thường của CaroAI, nên một
+    // chuỗi thắng khác dài hơn độ sâu đó bị coi là bỏ lỡ thắng
+    private static int scoreDepth(CaroAI ai) {
+        return ai.getSearchDepth() > 0 ? ai.getSearchDepth() : THREAT_SCORE_DEPTH;
+    }
+
+    // Kết quả của một thế: nước đã đi (null ở thế cuối), nước tốt nhất, điểm trước và sau nước đã đi
+    // theo bên đi, và đánh giá nước đã đi
+    public static final class Position {
+        private final int game;
+        private final int ply;
+        private final int size;
+        private final int player;
+        private final int[] played;
+        private final int[] best;
+        private final SearchStats stats;
+        private boolean settled;
+        private int scoreAfter;
+        private long loss;
+        private Verdict verdict;
+
+        Position(int game, int ply, int size, int player, int[] played, int[] best, SearchStats stats) {
+            this.game = game;
+            this.ply = ply;
+            this.size = size;
+            this.player = player;
+            this.played = played;
+            this.best = best;
+            this.stats = stats;
+            if (isBest()) {
+                settled = true;
+                scoreAfter = stats.getScore();
+                verdict = Verdict.BEST;
+            }
+        }
+
+        boolean isBest() {
+            return played != null && played[0] == best[0] && played[1] == best[1];
+        }
+
+        // Điểm của nước đã đi (theo bên đi, cùng độ sâu với nước tốt nhất)
+        void settle(int scoreAfter) {
+            settled = true;
+            this.scoreAfter = scoreAfter;
+            int score = stats.getScore();
+            loss = Math.max(0, (long) score - scoreAfter);
+            if (outcome(scoreAfter) < outcome(score)) {
+                verdict = Verdict.BLUNDER; // bỏ lỡ thắng chắc, hoặc đi vào thế thua chắc
+            } else if (Searcher.isDecisive(score)) {
+                verdict = Verdict.GOOD; // vẫn thắng (có thể chậm hơn), hoặc vốn đã thua
+            } else {
+                verdict = loss >= MISTAKE_LOSS ? Verdict.MISTAKE : loss >= INACCURACY_LOSS ? Verdict.INACCURACY : Verdict.GOOD;
+            }
+        }
+
+        private static int outcome(int score) {
+            return !Searcher.isDecisive(score) ? 0 : score > 0 ? 1 : -1;
+        }
+
+        // Số thứ tự ván trong nguồn, từ 0
+        public int getGame() {
+            return game;
+        }
+
+        // Số quân đã có trên bàn ở thế này
+        public int getPly() {
+            return ply;
+        }
+
+        public int getPlayer() {
+            return player;
+        }
+
+        // {row, col}, null ở thế cuối của ván chưa kết thúc
+        public int[] getPlayedMove() {
+            return played;
+        }
+
+        public int[] getBestMove() {
+            return best;
+        }
+
+        public int getScore() {
+            return stats.getScore();
+        }
+
+        // Điểm của nước đã đi, theo bên đi của thế này
+        public int getScoreAfter() {
+            return scoreAfter;
+        }
+
+        public long getLoss() {
+            return loss;
+        }
+
+        // null ở thế cuối hoặc khi không có điểm để so (nước tốt nhất lấy từ sách)
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        public SearchStats getStats() {
+            return stats;
+        }
+
+        public String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"game\":%d,\"ply\":%d,\"player\":\"%s\",\"move\":%s,\"best\":%s,\"score\":%d,\"after\":%s,"
+                            + "\"loss\":%s,\"verdict\":%s,\"source\":\"%s\",\"depth\":%d,\"nodes\":%d,\"us\":%d,\"pv\":\"%s\"}",
+                    game, ply, player == CaroBoard.PLAYER_X ? "x" : "o", quote(played), quote(best), stats.getScore(),
+                    settled ? Integer.toString(scoreAfter) : "null", settled ? Long.toString(loss) : "null",
+                    verdict == null ? "null" : "\"" + verdict.name().toLowerCase(Locale.ROOT) + "\"",
+                    stats.getSource().name().toLowerCase(Locale.ROOT), stats.getDepth(),
+                    stats.getNodes() + stats.getThreatNodes(), stats.getTotalNanos() / 1000,
+                    stats.principalVariationText(size));
+        }
+
+        private String quote(int[] move) {
+            return move == null ? "null" : "\"" + GameRecord.toNotation(size, move[0] * size + move[1]) + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    public static final class Summary {
+        private final int games;
+        private final long positions;
+        private final int invalidGames;
+        private final long nanos;
+
+        Summary(int games, long positions, int invalidGames, long nanos) {
+            this.games = games;
+            this.positions = positions;
+            this.invalidGames = invalidGames;
+            this.nanos = nanos;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public long getPositions() {
+            return positions;
+        }
+
+        public int getInvalidGames() {
+            return invalidGames;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double getPositionsPerSecond() {
+            return nanos == 0 ? 0 : positions * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d games (%d invalid), %d positions in %.1f s, %.1f positions/s",
+                    games, invalidGames, positions, nanos / 1e9, getPositionsPerSecond());
+        }
+    }
+}
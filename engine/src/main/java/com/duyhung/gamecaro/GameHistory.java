@@ -0,0 +1,145 @@
+package com.duyhung.gamecaro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+// Kho các ván đã chơi: một file chỉ ghi thêm, mỗi ván là 2 byte độ dài (big-endian) rồi tới
+// GameRecord.encode(). Đọc tuần tự từng ván qua Reader nên bộ nhớ không phụ thuộc số ván;
+// ván không cần thì nhảy qua theo độ dài mà không giải mã. Ván cuối ghi dở (mất điện, bị kill)
+// bị bỏ qua khi đọc và bị cắt đi ở lần ghi kế tiếp. Mỗi file chỉ nên có một GameHistory ghi vào.
+public final class GameHistory {
+
+    private static final int MAX_RECORD_BYTES = 0xFFFF; // 2 byte/nước x 63 x 63 ô vẫn vừa
+
+    private final File file;
+    private long end = -1; // độ dài phần ván trọn vẹn, chỉ quét file ở lần ghi đầu tiên
+
+    public GameHistory(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void append(GameRecord record) throws IOException {
+        byte[] data = record.encode();
+        if (data.length > MAX_RECORD_BYTES) throw new IllegalArgumentException("record too long");
+        if (end < 0) end = validLength();
+        if (end < file.length()) truncate(end);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            out.writeShort(data.length);
+            out.write(data);
+        }
+        end += 2 + data.length;
+    }
+
+    // Số ván trong kho; chỉ đọc các tiền tố độ dài
+    public int count() throws IOException {
+        int count = 0;
+        try (Reader reader = open()) {
+            while (reader.skip()) count++;
+        }
+        return count;
+    }
+
+    // Tối đa limit ván kể từ ván thứ from (0 là ván cũ nhất)
+    public List<GameRecord> read(int from, int limit) throws IOException {
+        List<GameRecord> records = new ArrayList<>();
+        try (Reader reader = open()) {
+            for (int i = 0; i < from; i++) if (!reader.skip()) return records;
+            GameRecord record;
+            while (records.size() < limit && (record = reader.next()) != null) records.add(record);
+        }
+        return records;
+    }
+
+    public Reader open() throws IOException {
+        return new Reader(file);
+    }
+
+    // Độ dài phần đầu file chứa các ván trọn vẹn
+    private long validLength() throws IOException {
+        if (!file.exists()) return 0;
+        try (Reader reader = open()) {
+            while (reader.skip()) {
+                // chỉ đếm byte
+            }
+            return reader.position;
+        }
+    }
+
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(length);
+        }
+    }
+
+    // Đọc tuần tự từng ván; next() trả về null khi hết file hoặc gặp ván ghi dở
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final long length;
+        private long position;
+        private byte[] buffer = new byte[256];
+
+        private Reader(File file) throws IOException {
+            length = file.length();
+            in = file.exists()
+                    ? new DataInputStream(new BufferedInputStream(new FileInputStream(file)))
+                    : new DataInputStream(new ByteArrayInputStream(new byte[0]));
+        }
+
+        public GameRecord next() throws IOException {
+            int length = readLength();
+            if (length < 0) return null;
+            if (buffer.length < length) buffer = new byte[Math.max(length, buffer.length * 2)];
+            try {
+                in.readFully(buffer, 0, length);
+            } catch (EOFException e) {
+                return null;
+            }
+            position += 2 + length;
+            return GameRecord.decode(buffer, 0, length);
+        }
+
+        // Bỏ qua một ván mà không giải mã; false nếu đã hết
+        public boolean skip() throws IOException {
+            int length = readLength();
+            // FileInputStream.skip nhảy được quá cuối file nên phải tự kiểm tra ván có trọn vẹn không
+            if (length < 0 || position + 2 + length > this.length) return false;
+            int skipped = 0;
+            while (skipped < length) {
+                int n = in.skipBytes(length - skipped);
+                if (n <= 0) return false;
+                skipped += n;
+            }
+            position += 2 + length;
+            return true;
+        }
+
+        private int readLength() throws IOException {
+            int high = in.read();
+            int low = in.read();
+            if (high < 0 || low < 0) return -1;
+            int length = high << 8 | low;
+            return length == 0 ? -1 : length; // ván rỗng vẫn có 1 byte kích thước, 0 là rác
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.duyhung.gamecaro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Biên bản một ván: kích thước bàn và dãy nước đi (X đi trước, xen kẽ).
+// Dạng nhị phân: 1 byte kích thước bàn, rồi mỗi nước là ô row * size + col, 1 byte nếu bàn có
+// không quá 256 ô (15x15) và 2 byte big-endian nếu lớn hơn. Chỉ ghi thêm vào cuối nên file ván đang
+// chơi có thể append từng nước; byte lẻ cuối (ghi dở) bị bỏ qua khi đọc.
+// Dạng chữ: toạ độ kiểu "h8" cách nhau bởi dấu cách, cột là chữ cái từ a (sau z là aa, ab, ...),
+// hàng đánh số từ 1 ở mép dưới như ký hiệu caro/renju thông dụng.
+public final class GameRecord {
+
+    private final int size;
+    private final int[] cells;
+
+    public GameRecord(int size, int[] cells) {
+        if (size < CaroBoard.MIN_SIZE || size > CaroBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("board size " + size);
+        }
+        this.size = size;
+        this.cells = cells.clone();
+    }
+
+    public static GameRecord of(GameSession session) {
+        int[] cells = new int[session.getMoveCount()];
+        for (int i = 0; i < cells.length; i++) {
+            int[] move = session.getMove(i);
+            cells[i] = move[0] * session.getSize() + move[1];
+        }
+        return new GameRecord(session.getSize(), cells);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMoveCount() {
+        return cells.length;
+    }
+
+    // {row, col} của nước thứ index
+    public int[] getMove(int index) {
+        return new int[]{cells[index] / size, cells[index] % size};
+    }
+
+    // Đi lại toàn bộ các nước trên một ván mới; IllegalArgumentException nếu có nước không hợp lệ
+    public GameSession replay() {
+        GameSession session = new GameSession(size);
+        for (int i = 0; i < cells.length; i++) {
+            if (!session.play(cells[i] / size, cells[i] % size)) {
+                throw new IllegalArgumentException("illegal move " + (i + 1) + ": " + toNotation(size, cells[i]));
+            }
+        }
+        return session;
+    }
+
+    public static int bytesPerMove(int size) {
+        return size * size <= 256 ? 1 : 2;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + cells.length * bytesPerMove(size));
+        out.write(size);
+        for (int cell : cells) writeMoveBytes(out, size, cell);
+        return out.toByteArray();
+    }
+
+    public static GameRecord decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    public static GameRecord decode(byte[] data, int offset, int length) {
+        if (length < 1) throw new IllegalArgumentException("empty record");
+        int size = data[offset] & 0xFF;
+        if (size < CaroBoard.MIN_SIZE || size > CaroBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("board size " + size);
+        }
+        int width = bytesPerMove(size);
+        int[] cells = new int[(length - 1) / width];
+        for (int i = 0, p = offset + 1; i < cells.length; i++, p += width) {
+            cells[i] = width == 1 ? data[p] & 0xFF : (data[p] & 0xFF) << 8 | data[p + 1] & 0xFF;
+            if (cells[i] >= size * size) throw new IllegalArgumentException("bad cell " + cells[i]);
+        }
+        return new GameRecord(size, cells);
+    }
+
+    // Phần đầu của file ván đang chơi, trước nước đầu tiên
+    public static void writeHeader(OutputStream out, int size) throws IOException {
+        out.write(size);
+    }
+
+    // Ghi thêm một nước vào cuối file ván đang chơi
+    public static void writeMove(OutputStream out, int size, int row, int col) throws IOException {
+        writeMoveBytes(out, size, row * size + col);
+    }
+
+    private static void writeMoveBytes(OutputStream out, int size, int cell) {
+        try {
+            if (bytesPerMove(size) == 2) out.write(cell >>> 8);
+            out.write(cell);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream không ném; luồng khác đi qua writeMove
+        }
+    }
+
+    public String toNotation() {
+        StringBuilder text = new StringBuilder();
+        for (int cell : cells) {
+            if (text.length() > 0) text.append(' ');
+            text.append(toNotation(size, cell));
+        }
+        return text.toString();
+    }
+
+    public static GameRecord parseNotation(int size, String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) return new GameRecord(size, new int[0]);
+        String[] tokens = trimmed.split("[\\s,;]+");
+        int[] cells = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) cells[i] = parseCell(size, tokens[i].toLowerCase());
+        return new GameRecord(size, cells);
+    }
+
+    static String toNotation(int size, int cell) {
+        int row = cell / size, col = cell % size;
+        StringBuilder letters = new StringBuilder();
+        for (int c = col + 1; c > 0; c = (c - 1) / 26) letters.insert(0, (char) ('a' + (c - 1) % 26));
+        return letters.toString() + (size - row);
+    }
+
+    private static int parseCell(int size, String token) {
+        int split = 0;
+        while (split < token.length() && token.charAt(split) >= 'a' && token.charAt(split) <= 'z') split++;
+        // bàn rộng tối đa MAX_SIZE cột nên hai chữ cái (tới "zz" = 702) là đủ; dài hơn thì col có thể tràn số âm
+        if (split == 0 || split > 2 || split == token.length()) throw new IllegalArgumentException("bad move " + token);
+        int col = 0;
+        for (int i = 0; i < split; i++) col = col * 26 + (token.charAt(i) - 'a' + 1);
+        col--;
+        int row;
+        try {
+            row = size - Integer.parseInt(token.substring(split));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad move " + token);
+        }
+        if (row < 0 || row >= size || col < 0 || col >= size) throw new IllegalArgumentException("move off board " + token);
+        return row * size + col;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GameRecord)) return false;
+        GameRecord other = (GameRecord) o;
+        return size == other.size && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " " + toNotation();
+    }
+}
@@ -0,0 +1,92 @@
+package com.duyhung.gamecaro;
+
+// Một ván cờ: lượt đi, thắng/hoà và lịch sử nước, bọc quanh CaroBoard.
+// X luôn đi trước. Giao diện chỉ làm việc qua lớp này; AI tìm trên bản sao lấy từ snapshot().
+public final class GameSession {
+
+    public enum Status { IN_PROGRESS, X_WON, O_WON, DRAW }
+
+    private final CaroBoard board;
+
+    public GameSession() {
+        this(CaroBoard.SIZE);
+    }
+
+    // Bàn size x size, từ CaroBoard.MIN_SIZE tới CaroBoard.MAX_SIZE
+    public GameSession(int size) {
+        board = new CaroBoard(size);
+    }
+
+    public int getSize() {
+        return board.getSize();
+    }
+
+    public void reset() {
+        board.reset();
+    }
+
+    // Đặt quân cho người đang tới lượt; false nếu ô ngoài bàn, đã có quân hoặc ván đã kết thúc
+    public boolean play(int row, int col) {
+        if (isOver()) return false;
+        if (row < 0 || row >= getSize() || col < 0 || col >= getSize()) return false;
+        return board.setMove(row, col, getSideToMove());
+    }
+
+    // Huỷ nước vừa đi (kể cả nước thắng); false nếu chưa có nước nào
+    public boolean undo() {
+        return board.undoMove();
+    }
+
+    public Status getStatus() {
+        int winner = board.getWinner();
+        if (winner == CaroBoard.PLAYER_X) return Status.X_WON;
+        if (winner == CaroBoard.PLAYER_O) return Status.O_WON;
+        if (board.isFull()) return Status.DRAW;
+        return Status.IN_PROGRESS;
+    }
+
+    public boolean isOver() {
+        return getStatus() != Status.IN_PROGRESS;
+    }
+
+    // CaroBoard.PLAYER_X / PLAYER_O, hoặc CaroBoard.EMPTY nếu chưa ai thắng
+    public int getWinner() {
+        return board.getWinner();
+    }
+
+    // Các ô {row, col} của đường thắng, null nếu chưa ai thắng
+    public int[][] getWinningLine() {
+        return board.getWinningLine();
+    }
+
+    public int getSideToMove() {
+        return board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+    }
+
+    public int getCell(int row, int col) {
+        return board.getCell(row, col);
+    }
+
+    public int getMoveCount() {
+        return board.getMoveCount();
+    }
+
+    // {row, col} của nước đi gần nhất, null nếu bàn trống
+    public int[] getLastMove() {
+        int count = board.getMoveCount();
+        if (count == 0) return null;
+        int cell = board.getMove(count - 1);
+        return new int[]{cell / getSize(), cell % getSize()};
+    }
+
+    // {row, col} của nước thứ index (0 là nước đầu của X)
+    public int[] getMove(int index) {
+        int cell = board.getMove(index);
+        return new int[]{cell / getSize(), cell % getSize()};
+    }
+
+    // Bản sao độc lập của bàn cờ, để AI tìm trên luồng khác mà không đụng vào ván
+    public CaroBoard snapshot() {
+        return board.cloneBoard();
+    }
+}
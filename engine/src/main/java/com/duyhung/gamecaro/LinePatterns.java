@@ -0,0 +1,69 @@
+package com.duyhung.gamecaro;
+
+// Nhận dạng hình cờ trên một đường bitboard bằng shift-and-mask.
+// own: quân của người đang xét, empty: ô trống hợp lệ trên đường (đã AND với lineMask).
+// Bit s của kết quả bật nghĩa là có hình bắt đầu tại vị trí s.
+final class LinePatterns {
+
+    // Mức đe doạ của một nước trên một đường, tăng dần
+    static final int THREAT_NONE = 0;
+    static final int THREAT_TWO = 1;
+    static final int THREAT_OPEN_THREE = 2;
+    static final int THREAT_FOUR = 3;
+    static final int THREAT_OPEN_FOUR = 4;
+    static final int THREAT_FIVE = 5;
+
+    private LinePatterns() {
+    }
+
+    // XXXXX tại s..s+4
+    static long fives(long own) {
+        return own & (own >>> 1) & (own >>> 2) & (own >>> 3) & (own >>> 4);
+    }
+
+    // Cửa sổ 5 ô s..s+4 có đúng 4 quân và 1 ô trống: đi thêm một nước là thắng
+    static long fours(long own, long empty) {
+        long o0 = own, o1 = own >>> 1, o2 = own >>> 2, o3 = own >>> 3, o4 = own >>> 4;
+        return (empty & o1 & o2 & o3 & o4)
+                | (o0 & (empty >>> 1) & o2 & o3 & o4)
+                | (o0 & o1 & (empty >>> 2) & o3 & o4)
+                | (o0 & o1 & o2 & (empty >>> 3) & o4)
+                | (o0 & o1 & o2 & o3 & (empty >>> 4));
+    }
+
+    // _XXXX_ : XXXX tại s..s+3, hai đầu s-1 và s+4 trống
+    static long openFours(long own, long empty) {
+        return own & (own >>> 1) & (own >>> 2) & (own >>> 3) & (empty << 1) & (empty >>> 4);
+    }
+
+    // Cửa sổ 6 ô s..s+5, hai đầu trống, 4 ô giữa có 3 quân và 1 ô trống (_XXX__, _XX_X_, ...):
+    // đi thêm một nước là thành tứ mở
+    static long openThrees(long own, long empty) {
+        long o1 = own >>> 1, o2 = own >>> 2, o3 = own >>> 3, o4 = own >>> 4;
+        long e1 = empty >>> 1, e2 = empty >>> 2, e3 = empty >>> 3, e4 = empty >>> 4;
+        long inner = (e1 & o2 & o3 & o4) | (o1 & e2 & o3 & o4) | (o1 & o2 & e3 & o4) | (o1 & o2 & o3 & e4);
+        return empty & inner & (empty >>> 5);
+    }
+
+    // Hình mạnh nhất có chứa vị trí pos trên một đường, sau khi đã đặt quân vào pos
+    static int threatAt(long own, long empty, int pos) {
+        // đếm quân trong cửa sổ 9 ô trước để bỏ qua các phép mask không thể khớp
+        int stones = Long.bitCount(own & bitRange(pos - 4, pos + 4));
+        if (stones >= 5 && (fives(own) & bitRange(pos - 4, pos)) != 0) return THREAT_FIVE;
+        if (stones >= 4) {
+            if ((openFours(own, empty) & bitRange(pos - 3, pos)) != 0) return THREAT_OPEN_FOUR;
+            if ((fours(own, empty) & bitRange(pos - 4, pos)) != 0) return THREAT_FOUR;
+        }
+        if (stones >= 3 && (openThrees(own, empty) & bitRange(pos - 4, pos - 1)) != 0) return THREAT_OPEN_THREE;
+        if (stones >= 2 && (own & bitRange(pos - 1, pos + 1) & ~(1L << pos)) != 0) return THREAT_TWO;
+        return THREAT_NONE;
+    }
+
+    // Các bit từ from tới to (kể cả hai đầu), phần ngoài [0, 63] bị bỏ qua
+    static long bitRange(int from, int to) {
+        if (to < 0 || from > 63) return 0;
+        long high = to >= 63 ? -1L : (1L << (to + 1)) - 1;
+        long low = from <= 0 ? 0 : (1L << from) - 1;
+        return high & ~low;
+    }
+}
@@ -0,0 +1,209 @@
+package com.duyhung.gamecaro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Sách khai cuộc: nước trả lời đã tính sẵn cho các thế của N nước đầu, tra O(1) trước khi tìm kiếm.
+// Mỗi thế được quy về dạng chuẩn trong 8 phép đối xứng của bàn vuông (4 phép quay, 4 phép lật):
+// khoá của thế là hash Zobrist nhỏ nhất trong 8 ảnh, nước trả lời lưu theo toạ độ của ảnh đó.
+// Định dạng nhị phân (big-endian), đọc thẳng từ ByteBuffer nên dùng được với file map vào bộ nhớ:
+//   int magic "CBK1", int kích thước bàn, int số nước tối đa, int capacity (luỹ thừa của 2), int số thế
+//   long[capacity] khoá (0 là ô trống), short[capacity] ô trả lời row * size + col
+// Bảng băm địa chỉ mở, dò tuyến tính, lấp đầy không quá một nửa.
+public final class OpeningBook {
+
+    private static final int MAGIC = 0x43424B31; // "CBK1"
+    private static final int HEADER_BYTES = 20;
+    private static final long KEY_SALT = 0x9E3779B97F4A7C15L; // để bàn trống không có khoá 0
+
+    private final ByteBuffer data;
+    private final int size;
+    private final int maxPly;
+    private final int capacity;
+    private final int entries;
+    private final long[][] zobrist;
+
+    public OpeningBook(ByteBuffer data) {
+        this.data = data;
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not an opening book");
+        }
+        size = data.getInt(4);
+        maxPly = data.getInt(8);
+        capacity = data.getInt(12);
+        entries = data.getInt(16);
+        if (size < CaroBoard.MIN_SIZE || size > CaroBoard.MAX_SIZE || Integer.bitCount(capacity) != 1
+                || data.limit() < HEADER_BYTES + (long) capacity * 10) {
+            throw new IllegalArgumentException("corrupt opening book");
+        }
+        zobrist = zobristFor(size);
+    }
+
+    // Đọc hết vào bộ nhớ heap, dùng khi không map được (ví dụ asset bị nén)
+    public static OpeningBook read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) bytes.write(buffer, 0, n);
+        return new OpeningBook(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    // Map một đoạn file chỉ đọc; các trang được nạp khi tra tới
+    public static OpeningBook map(FileChannel channel, long offset, long length) throws IOException {
+        return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Sách chỉ có thế khi số quân trên bàn nhỏ hơn giá trị này
+    public int getMaxPly() {
+        return maxPly;
+    }
+
+    public int getEntryCount() {
+        return entries;
+    }
+
+    // Nước {row, col} cho người tới lượt, null nếu thế không có trong sách
+    public int[] lookup(CaroBoard board) {
+        if (board.getSize() != size || board.getMoveCount() >= maxPly || board.getWinner() != CaroBoard.EMPTY) {
+            return null;
+        }
+        long canonical = canonical(board, zobrist);
+        int symmetry = (int) (canonical & 7);
+        long key = (canonical & ~7L) ^ KEY_SALT;
+        int mask = capacity - 1;
+        // tối đa capacity lần dò: file hỏng hoặc tự dựng không có ô trống cũng không làm lặp mãi
+        for (int probe = 0, i = (int) key & mask; probe < capacity; probe++, i = (i + 1) & mask) {
+            long stored = data.getLong(HEADER_BYTES + i * 8);
+            if (stored == 0) return null;
+            if (stored != key) continue;
+            int cell = data.getShort(HEADER_BYTES + capacity * 8 + i * 2) & 0xFFFF;
+            if (cell >= size * size) return null; // file hỏng
+            // toạ độ trong ảnh chuẩn, đưa ngược về bàn thật
+            int[] move = transform(inverse(symmetry), cell / size, cell % size, size);
+            if (board.getCell(move[0], move[1]) != CaroBoard.EMPTY) return null; // trùng khoá
+            return move;
+        }
+        return null;
+    }
+
+    // Khoá chuẩn của thế, giống nhau với mọi ảnh đối xứng của nó
+    public static long key(CaroBoard board) {
+        return (canonical(board, zobristFor(board.getSize())) & ~7L) ^ KEY_SALT;
+    }
+
+    // Hash nhỏ nhất trong 8 ảnh (3 bit thấp bỏ đi) cùng với phép đối xứng cho ra nó ở 3 bit thấp.
+    // O(8 x số quân), mà số quân trong sách bị chặn bởi maxPly
+    private static long canonical(CaroBoard board, long[][] zobrist) {
+        int size = board.getSize();
+        long[] hashes = new long[8];
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int cell = board.getMove(i);
+            int row = cell / size, col = cell % size;
+            long[] keys = zobrist[board.getCell(row, col)];
+            for (int s = 0; s < 8; s++) {
+                int[] image = transform(s, row, col, size);
+                hashes[s] ^= keys[image[0] * size + image[1]];
+            }
+        }
+        long best = Long.MAX_VALUE;
+        for (int s = 0; s < 8; s++) {
+            long candidate = (hashes[s] & ~7L) | s;
+            if (candidate < best) best = candidate;
+        }
+        return best;
+    }
+
+    // Ảnh của ô (row, col) qua phép đối xứng thứ symmetry (0 là giữ nguyên)
+    static int[] transform(int symmetry, int row, int col, int size) {
+        int m = size - 1;
+        switch (symmetry) {
+            case 0: return new int[]{row, col};
+            case 1: return new int[]{col, m - row};      // quay 90 độ
+            case 2: return new int[]{m - row, m - col};  // quay 180 độ
+            case 3: return new int[]{m - col, row};      // quay 270 độ
+            case 4: return new int[]{row, m - col};      // lật ngang
+            case 5: return new int[]{m - row, col};      // lật dọc
+            case 6: return new int[]{col, row};          // lật theo đường chéo chính
+            default: return new int[]{m - col, m - row}; // lật theo đường chéo phụ
+        }
+    }
+
+    static int inverse(int symmetry) {
+        return symmetry == 1 ? 3 : symmetry == 3 ? 1 : symmetry;
+    }
+
+    // Khoá Zobrist riêng của sách, cố định theo kích thước bàn để file sách dùng được lâu dài
+    private static long[][] zobristFor(int size) {
+        SplittableRandom random = new SplittableRandom(0xB00C0000L + size);
+        long[][] keys = new long[3][size * size];
+        for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++)
+            for (int cell = 0; cell < size * size; cell++)
+                keys[player][cell] = random.nextLong();
+        return keys;
+    }
+
+    // Gom các thế và nước trả lời rồi ghi ra định dạng trên; thế trùng (kể cả qua đối xứng) giữ nước thêm sau
+    public static final class Builder {
+        private final int size;
+        private final int maxPly;
+        private final long[][] zobrist;
+        private final Map<Long, Integer> replies = new HashMap<>();
+
+        public Builder(int size, int maxPly) {
+            this.size = size;
+            this.maxPly = maxPly;
+            this.zobrist = zobristFor(size);
+        }
+
+        public void add(CaroBoard board, int row, int col) {
+            if (board.getSize() != size) throw new IllegalArgumentException("board size " + board.getSize());
+            if (board.getMoveCount() >= maxPly) throw new IllegalArgumentException("position beyond max ply");
+            long canonical = canonical(board, zobrist);
+            int[] image = transform((int) (canonical & 7), row, col, size);
+            replies.put((canonical & ~7L) ^ KEY_SALT, image[0] * size + image[1]);
+        }
+
+        public boolean contains(CaroBoard board) {
+            return replies.containsKey((canonical(board, zobrist) & ~7L) ^ KEY_SALT);
+        }
+
+        public int size() {
+            return replies.size();
+        }
+
+        public void write(OutputStream out) throws IOException {
+            int capacity = Integer.highestOneBit(Math.max(4, replies.size() * 2 - 1)) << 1;
+            long[] keys = new long[capacity];
+            short[] cells = new short[capacity];
+            int mask = capacity - 1;
+            for (Map.Entry<Long, Integer> entry : replies.entrySet()) {
+                long key = entry.getKey();
+                int i = (int) key & mask;
+                while (keys[i] != 0) i = (i + 1) & mask;
+                keys[i] = key;
+                cells[i] = (short) (int) entry.getValue();
+            }
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(size);
+            data.writeInt(maxPly);
+            data.writeInt(capacity);
+            data.writeInt(replies.size());
+            for (long key : keys) data.writeLong(key);
+            for (short cell : cells) data.writeShort(cell);
+            data.flush();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.duyhung.gamecaro;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Tìm song song chia nước ở gốc (root splitting) trong từng vòng đào sâu dần.
+// Mỗi luồng có một Searcher và một bản sao bàn riêng (sao một lần mỗi lượt, không phải mỗi nút),
+// tất cả dùng chung một bảng chuyển vị. Nước đầu tiên của vòng (nước tốt nhất vòng trước) được tìm
+// trước trên luồng gọi để có alpha tốt; các nước còn lại chia cho các luồng qua một chỉ số chung,
+// alpha tốt nhất hiện tại được chia sẻ để các luồng cắt tỉa lẫn nhau.
+final class ParallelSearcher {
+
+    private final Searcher[] searchers;
+    private final ExecutorService pool; // threads - 1 luồng phụ, luồng gọi cũng tham gia tìm
+    private int[] rootMoves = new int[CaroBoard.SIZE * CaroBoard.SIZE];
+    private long nodeLimit = Long.MAX_VALUE; // tổng của mọi luồng
+
+    private final Object lock = new Object();
+    private int sharedAlpha;
+    private int sharedBestIndex;
+
+    long nodes;
+    long leafEvals;
+    long cutoffs;
+    long ttHits;
+    int[][] principalVariation;
+    int completedDepth;
+    int bestScore;
+
+    ParallelSearcher(TranspositionTable table, int threads) {
+        searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) searchers[i] = new Searcher(table);
+        pool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread thread = new Thread(r, "caro-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void setWeights(EvalWeights weights) {
+        for (Searcher searcher : searchers) searcher.setWeights(weights);
+    }
+
+    void setPatternWeights(PatternWeights weights) {
+        for (Searcher searcher : searchers) searcher.setPatternWeights(weights);
+    }
+
+    void setCandidateCap(int candidateCap) {
+        for (Searcher searcher : searchers) searcher.setCandidateCap(candidateCap);
+    }
+
+    void setNoise(int amplitude, long seed) {
+        for (Searcher searcher : searchers) searcher.setNoise(amplitude, seed);
+    }
+
+    // Chia đều giới hạn nút cho các luồng
+    void setNodeLimit(long limit) {
+        nodeLimit = limit > 0 ? limit : Long.MAX_VALUE;
+        for (Searcher searcher : searchers) searcher.setNodeLimit(limit > 0 ? Math.max(1, limit / searchers.length) : 0);
+    }
+
+    // Như Searcher.search(board, aiPlayer, maxDepth, deadline); board của người gọi không bị đụng tới
+    int[] search(CaroBoard board, int aiPlayer, int maxDepth, long deadline) {
+        for (Searcher searcher : searchers) searcher.begin(board.cloneBoard(), aiPlayer);
+        int cells = board.getSize() * board.getSize();
+        if (rootMoves.length != cells) rootMoves = new int[cells];
+        Searcher main = searchers[0];
+        long start = System.nanoTime();
+
+        // vòng 1 rẻ, chạy tuần tự và luôn chạy hết
+        int count = main.generateRootMoves(rootMoves, -1);
+        int bestMove = -1;
+        bestScore = -Searcher.INFINITY;
+        for (int k = 0; k < count; k++) {
+            int score = main.searchRootMove(rootMoves[k], 1, bestScore);
+            if (main.isAborted()) break;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = rootMoves[k];
+            }
+        }
+        completedDepth = 1;
+
+        for (int depth = 2; depth <= maxDepth && !main.isAborted(); depth++) {
+            if (Searcher.isDecisive(bestScore)) break;
+            if (System.nanoTime() - start >= (deadline - start) / 2) break;
+            if (spentNodes() >= nodeLimit / 2) break; // như Searcher: vòng sau thường không kịp xong
+
+            for (Searcher searcher : searchers) searcher.setDeadline(deadline);
+            count = main.generateRootMoves(rootMoves, bestMove);
+            int[] result = searchIteration(depth, count);
+            if (result == null) break;
+            bestMove = rootMoves[result[0]];
+            bestScore = result[1];
+            completedDepth = depth;
+        }
+
+        int[] move = Searcher.toMove(bestMove, board.getSize());
+        principalVariation = main.principalVariation(move, Math.max(1, completedDepth));
+        nodes = leafEvals = cutoffs = ttHits = 0;
+        for (Searcher searcher : searchers) {
+            nodes += searcher.nodes;
+            leafEvals += searcher.leafEvals;
+            cutoffs += searcher.cutoffs;
+            ttHits += searcher.ttHits;
+            searcher.end();
+        }
+        return move;
+    }
+
+    private long spentNodes() {
+        long total = 0;
+        for (Searcher searcher : searchers) total += searcher.nodes;
+        return total;
+    }
+
+    void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    // Trả về {chỉ số nước tốt nhất, điểm}, null nếu vòng bị dừng giữa chừng
+    private int[] searchIteration(int depth, int count) {
+        Searcher main = searchers[0];
+        int firstScore = main.searchRootMove(rootMoves[0], depth, -Searcher.INFINITY);
+        if (main.isAborted()) return null;
+        sharedAlpha = firstScore;
+        sharedBestIndex = 0;
+
+        AtomicInteger next = new AtomicInteger(1);
+        CountDownLatch done = new CountDownLatch(searchers.length - 1);
+        for (int t = 1; t < searchers.length; t++) {
+            Searcher searcher = searchers[t];
+            pool.execute(() -> {
+                try {
+                    searchMoves(searcher, depth, count, next);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        searchMoves(main, depth, count, next);
+
+        // luồng gọi bị dừng (hết giờ / interrupt) thì dừng cả các luồng phụ
+        if (main.isAborted()) {
+            for (Searcher searcher : searchers) searcher.stop();
+        }
+        awaitUninterruptibly(done);
+
+        for (Searcher searcher : searchers) {
+            if (searcher.isAborted()) return null;
+        }
+        synchronized (lock) {
+            return new int[]{sharedBestIndex, sharedAlpha};
+        }
+    }
+
+    private void searchMoves(Searcher searcher, int depth, int count, AtomicInteger next) {
+        for (int k = next.getAndIncrement(); k < count; k = next.getAndIncrement()) {
+            int alpha;
+            synchronized (lock) {
+                alpha = sharedAlpha;
+            }
+            int score = searcher.searchRootMove(rootMoves[k], depth, alpha);
+            if (searcher.isAborted()) return;
+            synchronized (lock) {
+                // hoà điểm thì giữ nước đứng trước để kết quả ổn định hơn
+                if (score > sharedAlpha || (score == sharedAlpha && score > alpha && k < sharedBestIndex)) {
+                    sharedAlpha = score;
+                    sharedBestIndex = k;
+                }
+            }
+        }
+    }
+
+    // Chờ các luồng phụ xong; nếu bị interrupt thì dừng chúng rồi chờ tiếp, giữ lại cờ interrupt
+    private void awaitUninterruptibly(CountDownLatch done) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                for (Searcher searcher : searchers) searcher.stop();
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
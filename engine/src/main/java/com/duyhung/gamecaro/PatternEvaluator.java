@@ -0,0 +1,202 @@
+package com.duyhung.gamecaro;
+
+import java.util.Arrays;
+
+// Đánh giá theo bảng hình cờ tính sẵn: với mỗi quân và mỗi hướng, cửa sổ 9 ô quanh quân đó (4 ô mỗi bên)
+// được mã hoá thành chỉ số 16 bit (8 bit quân mình, 8 bit ô trống, bỏ ô giữa) vào bảng SHAPES;
+// ô của đối thủ và ô ngoài bàn đều là ô bị chặn. Bảng phân loại hình mạnh nhất có chứa quân đó:
+// năm, tứ mở, tứ (kể cả X_XXX, XX_XX), ba mở, ba gãy (_X_XX_), ba bị chặn, hai mở, hai, một, chết.
+// Điểm một người là tổng điểm hình (PatternWeights) của mọi quân trên 4 hướng. Một quân chỉ ảnh hưởng
+// các quân cách nó không quá 4 ô trên cùng đường, nên khi đặt/gỡ quân chỉ tính lại tối đa 9 ô mỗi hướng.
+final class PatternEvaluator {
+
+    static final int DEAD = 0;          // không còn cửa sổ 5 ô nào không bị chặn
+    static final int ONE = 1;
+    static final int TWO = 2;           // cửa sổ 5 ô có 2 quân
+    static final int OPEN_TWO = 3;      // _XX__, _X_X_ ... hai đầu cửa sổ 6 ô trống
+    static final int THREE = 4;         // cửa sổ 5 ô có 3 quân, không thành tứ mở được
+    static final int BROKEN_THREE = 5;  // _X_XX_, _XX_X_
+    static final int OPEN_THREE = 6;    // _XXX__, __XXX_
+    static final int FOUR = 7;          // cửa sổ 5 ô có 4 quân: XXXX_, X_XXX, XX_XX ...
+    static final int OPEN_FOUR = 8;     // _XXXX_
+    static final int FIVE = 9;
+    static final int SHAPE_COUNT = 10;
+
+    private static final int CENTER = 4;
+    // Hình theo chỉ số (quân mình << 8 | ô trống); chỉ số có quân mình và ô trống trùng nhau không dùng tới
+    static final byte[] SHAPES = buildShapes();
+
+    private int[][][] cellScores = new int[3][4][(2 * CaroBoard.SIZE - 1) * CaroBoard.SIZE];
+    private int size = CaroBoard.SIZE;
+    private final int[] totals = new int[3];
+    private PatternWeights weights = PatternWeights.DEFAULT;
+    private int[] shapeScores = weights.shapeScores;
+
+    void setWeights(PatternWeights weights) {
+        this.weights = weights;
+        shapeScores = weights.shapeScores;
+    }
+
+    PatternWeights getWeights() {
+        return weights;
+    }
+
+    void init(CaroBoard board) {
+        size = board.getSize();
+        int cells = (2 * size - 1) * size;
+        if (cellScores[0][0].length != cells) cellScores = new int[3][4][cells];
+        totals[CaroBoard.PLAYER_X] = 0;
+        totals[CaroBoard.PLAYER_O] = 0;
+        for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+            int opponent = Searcher.opponent(player);
+            for (int dir = 0; dir < 4; dir++) {
+                int[] scores = cellScores[player][dir];
+                Arrays.fill(scores, 0);
+                for (int index = 0; index < board.lineCount(dir); index++) {
+                    long own = board.getLine(player, dir, index);
+                    long empty = board.lineMask(dir, index) & ~(own | board.getLine(opponent, dir, index));
+                    for (long rest = own; rest != 0; rest &= rest - 1) {
+                        int pos = Long.numberOfTrailingZeros(rest);
+                        int score = shapeScores[SHAPES[index(own, empty, pos)]];
+                        scores[index * size + pos] = score;
+                        totals[player] += score;
+                    }
+                }
+            }
+        }
+    }
+
+    // Gọi sau mỗi setMove/undoMove tại ô (row, col)
+    void update(CaroBoard board, int row, int col) {
+        for (int dir = 0; dir < 4; dir++) {
+            int index = board.lineIndex(dir, row, col);
+            int pos = CaroBoard.linePos(dir, row, col);
+            long mask = board.lineMask(dir, index);
+            long x = board.getLine(CaroBoard.PLAYER_X, dir, index);
+            long o = board.getLine(CaroBoard.PLAYER_O, dir, index);
+            long empty = mask & ~(x | o);
+            // các ô pos-4..pos+4 cần tính lại: quân hiện có, cộng ô vừa đổi để xoá điểm cũ của nó
+            long range = LinePatterns.bitRange(pos - CENTER, pos + CENTER) & mask;
+            long cells = range & (x | o | 1L << pos);
+            if (cells == 0) continue;
+            // cửa sổ pos-8..pos+8 dồn về bit 0, cửa sổ 9 ô của ô p bắt đầu ở bit p - pos + 4
+            int low = pos - 2 * CENTER;
+            long xw = low >= 0 ? x >>> low : x << -low;
+            long ow = low >= 0 ? o >>> low : o << -low;
+            long ew = low >= 0 ? empty >>> low : empty << -low;
+            int base = index * size;
+            int[] xScores = cellScores[CaroBoard.PLAYER_X][dir];
+            int[] oScores = cellScores[CaroBoard.PLAYER_O][dir];
+            int xDelta = 0, oDelta = 0;
+            for (; cells != 0; cells &= cells - 1) {
+                int p = Long.numberOfTrailingZeros(cells);
+                int shift = p - low - CENTER;
+                int e = compress((int) (ew >>> shift));
+                int xScore = 0, oScore = 0;
+                if (((x >>> p) & 1) != 0) xScore = shapeScores[SHAPES[compress((int) (xw >>> shift)) << 8 | e]];
+                else if (((o >>> p) & 1) != 0) oScore = shapeScores[SHAPES[compress((int) (ow >>> shift)) << 8 | e]];
+                xDelta += xScore - xScores[base + p];
+                xScores[base + p] = xScore;
+                oDelta += oScore - oScores[base + p];
+                oScores[base + p] = oScore;
+            }
+            totals[CaroBoard.PLAYER_X] += xDelta;
+            totals[CaroBoard.PLAYER_O] += oDelta;
+        }
+    }
+
+    int score(int player) {
+        return totals[player];
+    }
+
+    int heuristic(int aiPlayer, int opponent) {
+        return totals[aiPlayer] - totals[opponent] * weights.defenseFactor;
+    }
+
+    // Bản tính lại toàn bàn, để đối chiếu
+    static int evaluate(CaroBoard board, int player, PatternWeights weights) {
+        int opponent = Searcher.opponent(player);
+        int score = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            for (int index = 0; index < board.lineCount(dir); index++) {
+                long own = board.getLine(player, dir, index);
+                long empty = board.lineMask(dir, index) & ~(own | board.getLine(opponent, dir, index));
+                for (long rest = own; rest != 0; rest &= rest - 1) {
+                    score += weights.shapeScores[SHAPES[index(own, empty, Long.numberOfTrailingZeros(rest))]];
+                }
+            }
+        }
+        return score;
+    }
+
+    // Hình của quân tại pos trên đường (own, empty)
+    static int shapeAt(long own, long empty, int pos) {
+        return SHAPES[index(own, empty, pos)];
+    }
+
+    // Cửa sổ 9 ô pos-4..pos+4, bỏ ô giữa: 8 bit quân mình ở byte cao, 8 bit ô trống ở byte thấp
+    static int index(long own, long empty, int pos) {
+        int shift = pos - CENTER;
+        int o = (int) (shift >= 0 ? own >>> shift : own << -shift);
+        int e = (int) (shift >= 0 ? empty >>> shift : empty << -shift);
+        return compress(o) << 8 | compress(e);
+    }
+
+    // 9 bit thấp của window thành 8 bit, bỏ bit giữa
+    private static int compress(int window) {
+        return (window & 0xF) | (window >>> 5 & 0xF) << 4;
+    }
+
+    private static byte[] buildShapes() {
+        byte[] shapes = new byte[1 << 16];
+        boolean[] own = new boolean[9];
+        boolean[] empty = new boolean[9];
+        for (int i = 0; i < shapes.length; i++) {
+            int o = i >>> 8, e = i & 0xFF;
+            if ((o & e) != 0) continue;
+            for (int k = 0; k < 9; k++) {
+                int bit = k < CENTER ? k : k - 1;
+                own[k] = k == CENTER || ((o >>> bit) & 1) != 0;
+                empty[k] = k != CENTER && ((e >>> bit) & 1) != 0;
+            }
+            shapes[i] = (byte) classify(own, empty);
+        }
+        return shapes;
+    }
+
+    // Hình mạnh nhất có chứa ô giữa (luôn là quân mình) trong cửa sổ 9 ô
+    static int classify(boolean[] own, boolean[] empty) {
+        int best = DEAD;
+        // cửa sổ 5 ô s..s+4 chứa ô giữa, không có ô bị chặn
+        for (int s = 0; s <= CENTER; s++) {
+            int stones = 0;
+            boolean blocked = false;
+            for (int k = s; k < s + 5; k++) {
+                if (own[k]) stones++;
+                else if (!empty[k]) blocked = true;
+            }
+            if (blocked) continue;
+            int shape = stones == 5 ? FIVE : stones == 4 ? FOUR : stones == 3 ? THREE : stones == 2 ? TWO : ONE;
+            best = Math.max(best, shape);
+        }
+        if (best == FIVE) return FIVE;
+        // cửa sổ 6 ô s..s+5 hai đầu trống, ô giữa nằm trong 4 ô bên trong
+        for (int s = 0; s + 5 < 9; s++) {
+            if (s + 1 > CENTER || s + 4 < CENTER || !empty[s] || !empty[s + 5]) continue;
+            int stones = 0, gaps = 0;
+            for (int k = s + 1; k <= s + 4; k++) {
+                if (own[k]) stones++;
+                else if (empty[k]) gaps++;
+            }
+            if (stones == 4) best = Math.max(best, OPEN_FOUR);
+            else if (stones == 3 && gaps == 1) {
+                // khoảng trống ở đầu hay cuối 4 ô bên trong là ba liền, ở giữa là ba gãy
+                boolean solid = empty[s + 1] || empty[s + 4];
+                best = Math.max(best, solid ? OPEN_THREE : BROKEN_THREE);
+            } else if (stones == 2 && gaps == 2) {
+                best = Math.max(best, OPEN_TWO);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,109 @@
+package com.duyhung.gamecaro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Trọng số của PatternEvaluator: điểm mỗi quân theo hình mạnh nhất chứa nó trên một hướng,
+// và hệ số nhân điểm đối thủ. Đọc từ file văn bản "khoá = giá trị" (# là chú thích), bộ mặc định
+// nằm trong pattern_weights.txt cạnh lớp này. Bất biến; with(...) trả về bản sửa đổi.
+public final class PatternWeights {
+
+    // Tên khoá theo thứ tự hằng hình trong PatternEvaluator
+    private static final String[] KEYS = {"dead", "one", "two", "open_two", "three", "broken_three",
+            "open_three", "four", "open_four", "five"};
+    private static final String DEFENSE_KEY = "defense";
+
+    public static final PatternWeights DEFAULT = loadDefault();
+
+    final int[] shapeScores; // theo hình, PatternEvaluator.DEAD .. FIVE
+    final int defenseFactor;
+
+    private PatternWeights(int[] shapeScores, int defenseFactor) {
+        this.shapeScores = shapeScores;
+        this.defenseFactor = defenseFactor;
+    }
+
+    // Khoá thiếu trong file lấy theo DEFAULT (hoặc 0 khi đang nạp chính DEFAULT)
+    public static PatternWeights load(InputStream in) throws IOException {
+        return parse(in, DEFAULT);
+    }
+
+    private static PatternWeights parse(InputStream in, PatternWeights base) throws IOException {
+        PatternWeights weights = base != null ? base : new PatternWeights(new int[KEYS.length], 1);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            int eq = line.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("line " + number + ": expected key = value");
+            try {
+                weights = weights.with(line.substring(0, eq).trim(), Integer.parseInt(line.substring(eq + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("line " + number + ": bad number");
+            }
+        }
+        return weights;
+    }
+
+    private static PatternWeights loadDefault() {
+        try (InputStream in = PatternWeights.class.getResourceAsStream("pattern_weights.txt")) {
+            if (in == null) throw new IllegalStateException("pattern_weights.txt missing");
+            return parse(in, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Khoá: dead, one, two, open_two, three, broken_three, open_three, four, open_four, five, defense
+    public PatternWeights with(String key, int value) {
+        if (key.equals(DEFENSE_KEY)) return new PatternWeights(shapeScores, value);
+        for (int shape = 0; shape < KEYS.length; shape++) {
+            if (KEYS[shape].equals(key)) {
+                int[] scores = shapeScores.clone();
+                scores[shape] = value;
+                return new PatternWeights(scores, defenseFactor);
+            }
+        }
+        throw new IllegalArgumentException("unknown pattern weight: " + key);
+    }
+
+    public int get(String key) {
+        if (key.equals(DEFENSE_KEY)) return defenseFactor;
+        for (int shape = 0; shape < KEYS.length; shape++) {
+            if (KEYS[shape].equals(key)) return shapeScores[shape];
+        }
+        throw new IllegalArgumentException("unknown pattern weight: " + key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PatternWeights)) return false;
+        PatternWeights other = (PatternWeights) o;
+        return defenseFactor == other.defenseFactor && Arrays.equals(shapeScores, other.shapeScores);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(shapeScores) * 31 + defenseFactor;
+    }
+
+    // Cùng định dạng với file trọng số
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int shape = 0; shape < KEYS.length; shape++) {
+            sb.append(KEYS[shape]).append(" = ").append(shapeScores[shape]).append('\n');
+        }
+        return sb.append(DEFENSE_KEY).append(" = ").append(defenseFactor).append('\n').toString();
+    }
+}
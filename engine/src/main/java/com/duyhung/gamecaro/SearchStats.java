@@ -0,0 +1,145 @@
+package com.duyhung.gamecaro;
+
+import java.util.Locale;
+
+// Thống kê của một lượt getBestMove: nước lấy từ đâu (PONDER là kết quả tìm sẵn trong lượt đối thủ,
+// thời gian tìm khi đó chỉ là lúc dừng luồng ponder), số nút, số lần đánh giá lá, số lần cắt beta,
+// số lần trúng bảng chuyển vị, độ sâu, điểm, biến chính và thời gian từng giai đoạn (sách, giải thế cờ, tìm kiếm).
+// Các bộ đếm chỉ là phép cộng trong vòng tìm nên luôn được thu, không cần bản build riêng.
+// toJson() cho một dòng JSON để ghi nối tiếp vào file và gộp giữa nhiều phiên.
+public final class SearchStats {
+
+    public enum Source { BOOK, THREAT, SEARCH, PONDER }
+
+    private final Source source;
+    private final long nodes;
+    private final long threatNodes;
+    private final long leafEvaluations;
+    private final long cutoffs;
+    private final long ttHits;
+    private final int depth;
+    private final int score;
+    private final int[][] principalVariation;
+    private final long bookNanos;
+    private final long threatNanos;
+    private final long searchNanos;
+    private final int threads;
+
+    SearchStats(Source source, long nodes, long threatNodes, long leafEvaluations, long cutoffs, long ttHits,
+                int depth, int score, int[][] principalVariation, long bookNanos, long threatNanos, long searchNanos, int threads) {
+        this.source = source;
+        this.nodes = nodes;
+        this.threatNodes = threatNodes;
+        this.leafEvaluations = leafEvaluations;
+        this.cutoffs = cutoffs;
+        this.ttHits = ttHits;
+        this.depth = depth;
+        this.score = score;
+        this.principalVariation = principalVariation;
+        this.bookNanos = bookNanos;
+        this.threatNanos = threatNanos;
+        this.searchNanos = searchNanos;
+        this.threads = threads;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    // Nút của minimax (tổng các luồng), không kể nút giải thế cờ
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getThreatNodes() {
+        return threatNodes;
+    }
+
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    // Độ sâu đầy đủ cuối cùng, hoặc độ dài chuỗi thắng nếu nước đến từ giải thế cờ
+    public int getDepth() {
+        return depth;
+    }
+
+    // Điểm của nước đã chọn theo bên vừa được hỏi nước đi: heuristic, hoặc gần +/-WIN_SCORE khi thấy
+    // thắng/thua chắc (thắng càng sớm càng lớn); 0 nếu nước lấy từ sách
+    public int getScore() {
+        return score;
+    }
+
+    // Đã thấy thắng chắc (> 0) hoặc thua chắc (< 0) cho bên đi, 0 nếu chưa phân định
+    public int getOutcome() {
+        return !Searcher.isDecisive(score) ? 0 : score > 0 ? 1 : -1;
+    }
+
+    // Các nước {row, col} dự kiến, nước đầu là nước vừa chọn
+    public int[][] getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    public long getBookNanos() {
+        return bookNanos;
+    }
+
+    public long getThreatNanos() {
+        return threatNanos;
+    }
+
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    public long getTotalNanos() {
+        return bookNanos + threatNanos + searchNanos;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Nút minimax mỗi giây, 0 nếu không tìm hoặc đã tìm sẵn khi ponder
+    public long getNodesPerSecond() {
+        return searchNanos == 0 || source == Source.PONDER ? 0 : nodes * 1_000_000_000L / searchNanos;
+    }
+
+    // Biến chính dạng "h8 i9 ..." (hàng đếm từ mép dưới, như GameRecord)
+    public String principalVariationText(int size) {
+        StringBuilder text = new StringBuilder();
+        for (int[] move : principalVariation) {
+            if (text.length() > 0) text.append(' ');
+            text.append(GameRecord.toNotation(size, move[0] * size + move[1]));
+        }
+        return text.toString();
+    }
+
+    public String toJson() {
+        StringBuilder pv = new StringBuilder();
+        for (int[] move : principalVariation) {
+            if (pv.length() > 0) pv.append(',');
+            pv.append('[').append(move[0]).append(',').append(move[1]).append(']');
+        }
+        return String.format(Locale.ROOT,
+                "{\"source\":\"%s\",\"nodes\":%d,\"threatNodes\":%d,\"leafEvals\":%d,\"cutoffs\":%d,\"ttHits\":%d,"
+                        + "\"depth\":%d,\"score\":%d,\"threads\":%d,\"bookUs\":%d,\"threatUs\":%d,\"searchUs\":%d,\"totalUs\":%d,\"pv\":[%s]}",
+                source.name().toLowerCase(Locale.ROOT), nodes, threatNodes, leafEvaluations, cutoffs, ttHits,
+                depth, score, threads, bookNanos / 1000, threatNanos / 1000, searchNanos / 1000, getTotalNanos() / 1000, pv);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s d%d %,d nodes (%,d/s) %,d leaves %,d cutoffs %,d tt | book %.1f threat %.1f search %.1f ms",
+                source.name().toLowerCase(Locale.ROOT), depth, nodes + threatNodes, getNodesPerSecond(), leafEvaluations,
+                cutoffs, ttHits, bookNanos / 1e6, threatNanos / 1e6, searchNanos / 1e6);
+    }
+}
@@ -0,0 +1,552 @@
+package com.duyhung.gamecaro;
+
+// Negamax alpha-beta make/unmake trên một CaroBoard. Bộ đệm nước đi theo từng ply, mảng đánh dấu ô
+// và bộ đánh giá tăng dần được tạo một lần cho mỗi kích thước bàn, nên mỗi nút không cấp phát gì.
+// Sinh nước chỉ quét quanh vùng đã có quân, nên chi phí mỗi nút không tăng theo diện tích bàn.
+// Điểm luôn tính theo góc nhìn người đang đi; heuristic vẫn lấy theo aiPlayer như trước rồi đổi dấu.
+final class Searcher {
+
+    static final int WIN_SCORE = 1_000_000_000; // lớn hơn hẳn mọi điểm heuristic
+    private static final int WIN_THRESHOLD = WIN_SCORE / 2;
+    private static final int PLY_PENALTY = 1000; // thắng sớm tốt hơn thắng muộn
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    static final int MAX_PLY = 64;
+    private static final int NEIGHBOR_RANGE = 3;
+    private static final int INNER_NEIGHBOR_RANGE = 2; // dưới gốc chỉ xét ô sát hơn, đã có sắp xếp bù lại
+    // Số nước tối đa được xét ở mỗi nút (gốc thì xét hết), sau khi đã sắp theo điểm đe doạ
+    private static final int NEAR_PLY_CAP = 16; // ply 1-2
+    private static final int DEEP_PLY_CAP = 10; // ply 3 trở đi
+
+    // Điểm đe doạ dùng để sắp nước: tấn công (quân mình) và phòng thủ (chặn quân đối thủ)
+    private static final int ATTACK_FIVE = 1 << 30;
+    private static final int BLOCK_FIVE = 1 << 28;
+    private static final int[] ATTACK_SCORES = {0, 10, 5_000, 20_000, 1_000_000}; // theo LinePatterns.THREAT_*
+    private static final int[] BLOCK_SCORES = {0, 5, 2_000, 10_000, 500_000};
+
+    // Key phụ cho hash: lượt đi và phía của AI (heuristic không đối xứng giữa hai bên)
+    private static final long SIDE_KEY = 0x6A09E667F3BCC909L;
+    private static final long AI_KEY = 0xBB67AE8584CAA73BL;
+
+    private final TranspositionTable table; // null nếu tắt
+    private final Evaluator evaluator = new Evaluator();
+    private PatternEvaluator patterns; // null thì đánh giá lá bằng evaluator (theo đoạn quân)
+    // Cấp phát theo ply khi lần đầu dùng tới, cỡ theo diện tích bàn hiện tại
+    private final int[][] moves = new int[MAX_PLY][];
+    private final int[][] moveScores = new int[MAX_PLY][];
+    private long[] dilatedRows = new long[CaroBoard.SIZE];
+    private int[] stamp = new int[CaroBoard.SIZE * CaroBoard.SIZE];
+    private int stampGen;
+    private boolean moveOrdering = true;
+    private int candidateCap; // 0: chỉ dùng NEAR_PLY_CAP / DEEP_PLY_CAP
+    private int noise; // biên độ nhiễu cộng vào điểm lá, 0 là tắt
+    private long noiseSeed;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long activeNodeLimit = Long.MAX_VALUE; // chỉ có hiệu lực cùng deadline, từ setDeadline tới end
+
+    private CaroBoard board;
+    private int aiPlayer;
+    private long deadline = Long.MAX_VALUE;
+    private boolean aborted;
+    private volatile boolean stopRequested; // đặt từ luồng khác để dừng (tìm song song)
+    long nodes;
+    // Bộ đếm cho SearchStats, chỉ là cộng long nên luôn bật
+    long leafEvals;
+    long cutoffs;
+    long ttHits;
+    int completedDepth;
+    int bestScore;
+    int[][] principalVariation; // của lượt search() gần nhất
+
+    Searcher(TranspositionTable table) {
+        this.table = table;
+    }
+
+    void setWeights(EvalWeights weights) {
+        evaluator.setWeights(weights);
+    }
+
+    // null để quay về Evaluator theo đoạn quân
+    void setPatternWeights(PatternWeights weights) {
+        if (weights == null) {
+            patterns = null;
+            return;
+        }
+        if (patterns == null) patterns = new PatternEvaluator();
+        patterns.setWeights(weights);
+    }
+
+    // Số nước tối đa được xét ở mọi nút kể cả gốc (sau khi sắp), 0 để bỏ giới hạn thêm
+    void setCandidateCap(int candidateCap) {
+        this.candidateCap = Math.max(0, candidateCap);
+    }
+
+    // Điểm lá được cộng thêm một số trong [-amplitude, amplitude] suy ra từ hash của thế cờ và seed,
+    // nên cùng một thế luôn có cùng nhiễu (bảng chuyển vị vẫn đúng) nhưng mỗi seed chơi một kiểu
+    void setNoise(int amplitude, long seed) {
+        noise = Math.max(0, amplitude);
+        noiseSeed = seed;
+    }
+
+    // Số nút minimax tối đa của một lượt tìm theo thời gian, <= 0 để bỏ giới hạn; như deadline,
+    // vòng độ sâu 1 luôn chạy hết để có nước đi
+    void setNodeLimit(long limit) {
+        nodeLimit = limit > 0 ? limit : Long.MAX_VALUE;
+    }
+
+    // Tắt thì sinh nước theo thứ tự quét bàn như cũ, không sắp xếp và không cắt bớt (để đối chiếu)
+    void setMoveOrdering(boolean moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+
+    // Một vòng tìm ở độ sâu cố định, không giới hạn thời gian
+    int[] search(CaroBoard board, int aiPlayer, int depth) {
+        begin(board, aiPlayer);
+        int bestMove = searchRoot(depth, rootTableMove());
+        completedDepth = depth;
+        return finish(bestMove);
+    }
+
+    // Đào sâu dần 1, 2, ... maxDepth cho tới deadline (System.nanoTime()); trả về nước tốt nhất
+    // của vòng cuối cùng đã chạy xong. Vòng 1 luôn chạy hết để có nước đi (trừ khi luồng bị interrupt,
+    // khi đó kết quả không còn ai dùng); không bắt đầu vòng mới
+    // khi đã dùng quá nửa thời gian vì vòng sau thường tốn gấp nhiều lần vòng trước.
+    int[] search(CaroBoard board, int aiPlayer, int maxDepth, long deadline) {
+        begin(board, aiPlayer);
+        long start = System.nanoTime();
+        int bestMove = searchRoot(1, rootTableMove());
+        completedDepth = 1;
+
+        for (int depth = 2; depth <= maxDepth && !aborted; depth++) {
+            if (isDecisive(bestScore)) break; // đã thấy thắng/thua chắc
+            long now = System.nanoTime();
+            if (now - start >= (deadline - start) / 2) break;
+            if (nodes >= nodeLimit / 2) break; // tương tự với ngân sách nút
+
+            setDeadline(deadline);
+            int previousScore = bestScore;
+            int move = searchRoot(depth, bestMove);
+            if (aborted) {
+                bestScore = previousScore;
+                break;
+            }
+            bestMove = move;
+            completedDepth = depth;
+        }
+        return finish(bestMove);
+    }
+
+    private int[] finish(int bestMove) {
+        int[] move = toMove(bestMove, board.getSize());
+        principalVariation = principalVariation(move, Math.max(1, completedDepth));
+        end();
+        return move;
+    }
+
+    void begin(CaroBoard board, int aiPlayer) {
+        this.board = board;
+        this.aiPlayer = aiPlayer;
+        nodes = 0;
+        leafEvals = 0;
+        cutoffs = 0;
+        ttHits = 0;
+        aborted = false;
+        stopRequested = false;
+        completedDepth = 0;
+        if (patterns != null) patterns.init(board);
+        else evaluator.init(board);
+    }
+
+    void end() {
+        deadline = Long.MAX_VALUE;
+        activeNodeLimit = Long.MAX_VALUE;
+        board = null;
+    }
+
+    // Từ lúc này dừng khi quá deadline hoặc quá giới hạn nút
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+        activeNodeLimit = nodeLimit;
+    }
+
+    void stop() {
+        stopRequested = true;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    // Các nước ở gốc đã sắp xếp (preferredMove đứng đầu), chép vào out; trả về số nước
+    int generateRootMoves(int[] out, int preferredMove) {
+        int count = getCandidateMoves(0, aiPlayer);
+        if (preferredMove >= 0) moveToFront(moves[0], count, preferredMove);
+        System.arraycopy(moves[0], 0, out, 0, count);
+        return count;
+    }
+
+    // Sinh và sắp nước cho player như ở gốc mà không cần begin() (không khởi tạo bộ đánh giá), để đo riêng
+    int generateMoves(CaroBoard board, int player, int[] out) {
+        this.board = board;
+        int count = getCandidateMoves(0, player);
+        System.arraycopy(moves[0], 0, out, 0, count);
+        this.board = null;
+        return count;
+    }
+
+    // Điểm của một nước ở gốc với cửa sổ (alpha, +vô cùng): nếu <= alpha thì chỉ là cận trên
+    int searchRootMove(int move, int depth, int alpha) {
+        play(move, aiPlayer);
+        int score = -negamax(depth - 1, 1, -INFINITY, -alpha, opponent(aiPlayer));
+        unplay(move);
+        return score;
+    }
+
+    // Điểm của bên thắng sau plies nước tính từ gốc (kể cả nước thắng), như negamax trả về
+    static int winScore(int plies) {
+        return WIN_SCORE - plies * PLY_PENALTY;
+    }
+
+    static boolean isDecisive(int score) {
+        return score > WIN_THRESHOLD || score < -WIN_THRESHOLD;
+    }
+
+    // Nước tốt nhất ở gốc (preferredMove, thường là kết quả vòng trước, được xét đầu tiên)
+    private int searchRoot(int depth, int preferredMove) {
+        int opponent = opponent(aiPlayer);
+        int alpha = -INFINITY;
+        int bestMove = -1;
+
+        int count = getCandidateMoves(0, aiPlayer);
+        int[] list = moves[0];
+        if (preferredMove >= 0) moveToFront(list, count, preferredMove);
+
+        for (int k = 0; k < count; k++) {
+            int move = list[k];
+            play(move, aiPlayer);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha, opponent);
+            unplay(move);
+            if (aborted) break;
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        bestScore = alpha;
+        return bestMove;
+    }
+
+    static int[] toMove(int move, int size) {
+        if (move < 0) return null;
+        return new int[]{move / size, move % size};
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int player) {
+        // hết nút, hết giờ, bị stop() hoặc luồng bị interrupt (huỷ tìm kiếm) thì dừng, kết quả dở dang bị bỏ
+        if (nodes >= activeNodeLimit) aborted = true;
+        else if ((++nodes & 1023) == 0 && (stopRequested || System.nanoTime() >= deadline
+                || Thread.currentThread().isInterrupted())) aborted = true;
+        if (aborted) return 0;
+        int opponent = opponent(player);
+
+        // người vừa đi (opponent) đã thắng
+        if (board.getWinner() != CaroBoard.EMPTY) return -winScore(ply);
+        if (depth <= 0 || board.isFull()) {
+            leafEvals++;
+            int score = patterns != null ? patterns.heuristic(aiPlayer, opponent(aiPlayer))
+                    : evaluator.heuristic(aiPlayer, opponent(aiPlayer));
+            if (noise > 0) score += noise(board.getHash());
+            return player == aiPlayer ? score : -score;
+        }
+
+        long key = key(player);
+        int ttMove = -1;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != 0) {
+                ttHits++;
+                ttMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT) return score;
+                    if (bound == TranspositionTable.LOWER && score >= beta) return score;
+                    if (bound == TranspositionTable.UPPER && score <= alpha) return score;
+                }
+            }
+        }
+
+        int count = getCandidateMoves(ply, player);
+        int[] list = moves[ply];
+        if (ttMove >= 0) moveToFront(list, count, ttMove);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int k = 0; k < count; k++) {
+            play(list[k], player);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent);
+            unplay(list[k]);
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = list[k];
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                cutoffs++;
+                break;
+            }
+        }
+
+        if (table != null) {
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, depth, bound, toTable(best, ply), bestMove);
+        }
+        return best;
+    }
+
+    private int noise(long hash) {
+        long z = hash ^ noiseSeed;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z ^= z >>> 33;
+        return (int) Math.floorMod(z, 2L * noise + 1) - noise;
+    }
+
+    private long key(int player) {
+        return board.getHash() ^ (player == CaroBoard.PLAYER_O ? SIDE_KEY : 0) ^ (aiPlayer == CaroBoard.PLAYER_O ? AI_KEY : 0);
+    }
+
+    // Biến chính {row, col}: nước ở gốc rồi lần theo nước tốt nhất trong bảng chuyển vị, tối đa maxLength nước.
+    // Gọi trước end(); bàn được trả lại như cũ. Không có bảng thì chỉ có nước ở gốc
+    int[][] principalVariation(int[] rootMove, int maxLength) {
+        if (rootMove == null) return new int[0][];
+        int size = board.getSize();
+        int[] line = new int[maxLength];
+        int length = 0;
+        int move = rootMove[0] * size + rootMove[1];
+        int player = aiPlayer;
+        while (length < maxLength && move >= 0 && move < size * size && board.getCell(move / size, move % size) == CaroBoard.EMPTY) {
+            board.setMove(move / size, move % size, player);
+            line[length++] = move;
+            player = opponent(player);
+            if (table == null || board.getWinner() != CaroBoard.EMPTY) break;
+            long entry = table.probe(key(player));
+            move = entry == 0 ? -1 : TranspositionTable.move(entry);
+        }
+        int[][] pv = new int[length][];
+        for (int i = length - 1; i >= 0; i--) {
+            board.undoMove();
+            pv[i] = toMove(line[i], size);
+        }
+        return pv;
+    }
+
+    // Điểm thắng/thua lưu theo khoảng cách tính từ nút, để dùng lại được ở ply khác
+    private static int toTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply * PLY_PENALTY;
+        if (score < -WIN_THRESHOLD) return score - ply * PLY_PENALTY;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply * PLY_PENALTY;
+        if (score < -WIN_THRESHOLD) return score + ply * PLY_PENALTY;
+        return score;
+    }
+
+    // Nước đã lưu cho thế gốc, thường từ lượt tìm hai nước trước của cùng bên (thế gốc khi đó là nút
+    // ở tầng 2), để xét trước; -1 nếu không có
+    private int rootTableMove() {
+        if (table == null) return -1;
+        long entry = table.probe(key(aiPlayer));
+        return entry == 0 ? -1 : TranspositionTable.move(entry);
+    }
+
+    private static void moveToFront(int[] list, int count, int move) {
+        for (int k = 0; k < count; k++) {
+            if (list[k] == move) {
+                System.arraycopy(list, 0, list, 1, k);
+                list[0] = move;
+                return;
+            }
+        }
+    }
+
+    private void play(int move, int player) {
+        int size = board.getSize();
+        board.setMove(move / size, move % size, player);
+        if (patterns != null) patterns.update(board, move / size, move % size);
+        else evaluator.update(board, move / size, move % size);
+    }
+
+    private void unplay(int move) {
+        int size = board.getSize();
+        board.undoMove();
+        if (patterns != null) patterns.update(board, move / size, move % size);
+        else evaluator.update(board, move / size, move % size);
+    }
+
+    // Ghi các nước cần xét vào moves[ply]; trả về số nước
+    private int getCandidateMoves(int ply, int player) {
+        int cells = board.getSize() * board.getSize();
+        if (moves[ply] == null || moves[ply].length != cells) {
+            moves[ply] = new int[cells];
+            moveScores[ply] = new int[cells];
+        }
+        if (!moveOrdering) return getNeighborMovesRaster(ply);
+
+        int count = getNeighborMoves(ply, ply == 0 ? NEIGHBOR_RANGE : INNER_NEIGHBOR_RANGE);
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int opponent = opponent(player);
+
+        boolean mustBlock = false;
+        for (int k = 0; k < count; k++) {
+            int score = threatScore(list[k], player, opponent);
+            if (score >= ATTACK_FIVE) { // thắng ngay, không cần xét nước khác
+                list[0] = list[k];
+                return 1;
+            }
+            scores[k] = score;
+            mustBlock |= score >= BLOCK_FIVE;
+        }
+
+        // đối thủ sắp thành 5: mọi nước không chặn đều thua ngay
+        if (mustBlock) {
+            int kept = 0;
+            for (int k = 0; k < count; k++) {
+                if (scores[k] >= BLOCK_FIVE) {
+                    list[kept] = list[k];
+                    scores[kept++] = scores[k];
+                }
+            }
+            count = kept;
+        }
+
+        // sắp giảm dần theo điểm đe doạ (chèn, số nước nhỏ)
+        for (int k = 1; k < count; k++) {
+            int move = list[k];
+            int score = scores[k];
+            int j = k - 1;
+            while (j >= 0 && scores[j] < score) {
+                list[j + 1] = list[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            list[j + 1] = move;
+            scores[j + 1] = score;
+        }
+
+        if (ply > 0) count = Math.min(count, ply <= 2 ? NEAR_PLY_CAP : DEEP_PLY_CAP);
+        return candidateCap > 0 ? Math.min(count, candidateCap) : count;
+    }
+
+    // Các ô trống cách quân gần nhất không quá range (theo cả hàng và cột), lấy từ bitboard:
+    // giãn bit của từng hàng sang ngang rồi OR các hàng lân cận, không cấp phát
+    private int getNeighborMoves(int ply, int range) {
+        int[] out = moves[ply];
+        int count = 0;
+        int size = board.getSize();
+
+        if (board.getMoveCount() == 0) {
+            out[count++] = (size / 2) * size + size / 2;
+            return count;
+        }
+
+        // chỉ các hàng trong vùng có quân mới cần giãn
+        int first = board.getMinRow(), last = board.getMaxRow();
+        if (dilatedRows.length != size) dilatedRows = new long[size];
+        for (int r = first; r <= last; r++) {
+            long occupied = board.getLine(CaroBoard.PLAYER_X, CaroBoard.DIR_ROW, r)
+                    | board.getLine(CaroBoard.PLAYER_O, CaroBoard.DIR_ROW, r);
+            long dilated = occupied;
+            for (int k = 1; k <= range; k++) dilated |= (occupied << k) | (occupied >>> k);
+            dilatedRows[r] = dilated;
+        }
+
+        for (int r = Math.max(0, first - range); r <= Math.min(size - 1, last + range); r++) {
+            long near = 0;
+            for (int i = Math.max(first, r - range); i <= Math.min(last, r + range); i++) {
+                near |= dilatedRows[i];
+            }
+            long free = near & board.lineMask(CaroBoard.DIR_ROW, r)
+                    & ~(board.getLine(CaroBoard.PLAYER_X, CaroBoard.DIR_ROW, r)
+                    | board.getLine(CaroBoard.PLAYER_O, CaroBoard.DIR_ROW, r));
+            while (free != 0) {
+                out[count++] = r * size + Long.numberOfTrailingZeros(free);
+                free &= free - 1;
+            }
+        }
+        return count;
+    }
+
+    // Điểm để sắp nước: hình tốt nhất mà nước này tạo cho mình trên mỗi hướng cộng với hình nó chặn của đối thủ
+    private int threatScore(int cell, int player, int opponent) {
+        int row = cell / board.getSize();
+        int col = cell % board.getSize();
+        int attack = 0, block = 0;
+        int fours = 0, threes = 0;
+
+        for (int dir = 0; dir < 4; dir++) {
+            int index = board.lineIndex(dir, row, col);
+            int pos = CaroBoard.linePos(dir, row, col);
+            long bit = 1L << pos;
+            long mine = board.getLine(player, dir, index);
+            long theirs = board.getLine(opponent, dir, index);
+            long empty = board.lineMask(dir, index) & ~(mine | theirs | bit);
+
+            int own = LinePatterns.threatAt(mine | bit, empty, pos);
+            if (own == LinePatterns.THREAT_FIVE) return ATTACK_FIVE;
+            if (own >= LinePatterns.THREAT_FOUR) fours++;
+            if (own == LinePatterns.THREAT_OPEN_THREE) threes++;
+            attack += ATTACK_SCORES[own];
+
+            int other = LinePatterns.threatAt(theirs | bit, empty, pos);
+            block += other == LinePatterns.THREAT_FIVE ? BLOCK_FIVE : BLOCK_SCORES[other];
+        }
+
+        // hai tứ, hoặc tứ + ba mở: gần như chắc thắng, ngang tứ mở
+        if (fours >= 2 || (fours == 1 && threes >= 1)) attack += ATTACK_SCORES[LinePatterns.THREAT_OPEN_FOUR];
+        else if (threes >= 2) attack += ATTACK_SCORES[LinePatterns.THREAT_FOUR];
+        return attack + block;
+    }
+
+    // Bộ sinh nước cũ: quét bàn theo từng quân, giữ thứ tự gặp đầu tiên
+    private int getNeighborMovesRaster(int ply) {
+        int[] out = moves[ply];
+        int size = board.getSize();
+        if (stamp.length != size * size) stamp = new int[size * size];
+        int gen = ++stampGen;
+        int count = 0;
+
+        int rows = board.getMoveCount() == 0 ? 0 : board.getMaxRow() + 1;
+        for (int r = board.getMinRow(); r < rows; r++) {
+            for (int c = board.getMinCol(); c <= board.getMaxCol(); c++) {
+                if (board.getCell(r, c) != CaroBoard.EMPTY) {
+                    for (int i = Math.max(0, r - NEIGHBOR_RANGE); i <= Math.min(size - 1, r + NEIGHBOR_RANGE); i++) {
+                        for (int j = Math.max(0, c - NEIGHBOR_RANGE); j <= Math.min(size - 1, c + NEIGHBOR_RANGE); j++) {
+                            int cell = i * size + j;
+                            if (board.getCell(i, j) == CaroBoard.EMPTY && stamp[cell] != gen) {
+                                stamp[cell] = gen;
+                                out[count++] = cell;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (count == 0) {
+            out[count++] = (size / 2) * size + size / 2;
+        }
+
+        return count;
+    }
+
+    static int opponent(int player) {
+        return (player == CaroBoard.PLAYER_X) ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+    }
+}
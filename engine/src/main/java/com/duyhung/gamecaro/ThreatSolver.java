@@ -0,0 +1,296 @@
+package com.duyhung.gamecaro;
+
+// Tìm thắng cưỡng bức chỉ bằng các nước đe doạ (threat-space search).
+// VCF: bên tấn công đi liên tiếp các nước tứ, bên thủ buộc phải chặn ô thắng duy nhất.
+// VCT: thêm các nước ba mở, bên thủ được thử mọi ô chặn của các hình ba mở và mọi nước tứ phản công.
+// Đi thẳng trên bàn được truyền vào bằng setMove/undoMove, xong thì bàn trở lại như cũ.
+// Chỉ quét các đường và ô quanh vùng đã có quân, nên không phụ thuộc diện tích bàn.
+final class ThreatSolver {
+
+    static final int DEFAULT_VCF_DEPTH = 12; // số nước tấn công tối đa
+    static final int DEFAULT_VCT_DEPTH = 4;
+    static final int DEFAULT_NODE_LIMIT = 10_000;
+    static final int MAX_DEPTH = 30;
+
+    private static final int MAX_PLY = 2 * MAX_DEPTH + 2;
+
+    // Bộ đệm cỡ theo diện tích bàn, tạo lại khi đổi kích thước; moves cấp theo ply khi cần
+    private int cells;
+    private int[][] moves;
+    private int[] scores;
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] points;
+    private int[] stamp;
+    private int stampGen;
+
+    private CaroBoard board;
+    private int attacker;
+    private int defender;
+    private boolean allowThrees;
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+    private long deadline = Long.MAX_VALUE;
+    private boolean aborted;
+
+    long nodes;
+
+    // Giới hạn số nút cho mỗi lần giải, hết thì coi như không tìm được
+    void setNodeLimit(int limit) {
+        nodeLimit = Math.max(1, limit);
+    }
+
+    // Dừng khi quá thời điểm này (System.nanoTime()); Long.MAX_VALUE là không giới hạn thời gian.
+    // Mỗi nút tốn vài chục micro giây nên đồng hồ được xem mỗi 64 nút
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    // true nếu lần giải trước dừng vì hết nút, hết giờ hoặc bị interrupt, khi đó null không có nghĩa là đã bác bỏ
+    boolean isAborted() {
+        return aborted;
+    }
+
+    // Chuỗi thắng {row, col} xen kẽ tấn công/phòng thủ, kết thúc bằng nước thành 5; null nếu không có
+    int[][] solveVcf(CaroBoard board, int attacker, int maxDepth) {
+        return solve(board, attacker, maxDepth, false);
+    }
+
+    int[][] solveVct(CaroBoard board, int attacker, int maxDepth) {
+        return solve(board, attacker, maxDepth, true);
+    }
+
+    private int[][] solve(CaroBoard board, int attacker, int maxDepth, boolean allowThrees) {
+        this.board = board;
+        this.attacker = attacker;
+        this.defender = Searcher.opponent(attacker);
+        this.allowThrees = allowThrees;
+        nodes = 0;
+        aborted = false;
+        int size = board.getSize();
+        if (cells != size * size) {
+            cells = size * size;
+            moves = new int[MAX_PLY][];
+            scores = new int[cells];
+            points = new int[cells];
+            stamp = new int[cells];
+            stampGen = 0;
+        }
+        if (board.getWinner() != CaroBoard.EMPTY) return null;
+
+        // đào sâu dần để trả về chuỗi thắng ngắn nhất
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        for (int depth = 0; depth <= maxDepth && !aborted; depth++) {
+            if (attack(0, depth)) {
+                int[][] line = new int[pvLength[0]][];
+                for (int i = 0; i < line.length; i++) {
+                    line[i] = new int[]{pv[0][i] / size, pv[0][i] % size};
+                }
+                return line;
+            }
+        }
+        return null;
+    }
+
+    // Lượt bên tấn công: còn depth nước đe doạ
+    private boolean attack(int ply, int depth) {
+        pvLength[ply] = 0;
+        if (++nodes > nodeLimit || ((nodes & 63) == 0
+                && (Thread.currentThread().isInterrupted() || System.nanoTime() >= deadline))) {
+            aborted = true;
+            return false;
+        }
+
+        if (findFivePoints(attacker) > 0) {
+            pv[ply][0] = points[0];
+            pvLength[ply] = 1;
+            return true;
+        }
+        if (depth == 0) return false;
+
+        // đối thủ sắp thành 5: chỉ còn cách chặn, và nước chặn phải vẫn là nước đe doạ
+        int blocks = findFivePoints(defender);
+        if (blocks >= 2) return false;
+        int count = generateThreats(ply, attacker, blocks == 1 ? points[0] : -1, allowThrees);
+
+        for (int i = 0; i < count; i++) {
+            int cell = moves[ply][i];
+            board.setMove(cell / board.getSize(), cell % board.getSize(), attacker);
+            boolean win = defend(ply + 1, depth - 1);
+            board.undoMove();
+            if (win) {
+                pv[ply][0] = cell;
+                System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+                pvLength[ply] = pvLength[ply + 1] + 1;
+                return true;
+            }
+            if (aborted) return false;
+        }
+        return false;
+    }
+
+    // Lượt bên thủ: mọi cách chống đỡ đều phải thua thì mới tính là thắng
+    private boolean defend(int ply, int depth) {
+        pvLength[ply] = 0;
+        if (findFivePoints(defender) > 0) return false; // bên thủ thắng trước
+
+        int fives = findFivePoints(attacker);
+        if (fives >= 2) {
+            // tứ mở hoặc hai tứ: chặn ô nào thì bên tấn công thành 5 ở ô kia
+            pv[ply][0] = points[0];
+            pv[ply][1] = points[1];
+            pvLength[ply] = 2;
+            return true;
+        }
+
+        int count;
+        if (fives == 1) {
+            moveList(ply)[0] = points[0];
+            count = 1;
+        } else {
+            if (!allowThrees) return false;
+            count = generateDefenses(ply);
+            if (count == 0) return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int cell = moves[ply][i];
+            board.setMove(cell / board.getSize(), cell % board.getSize(), defender);
+            boolean lost = attack(ply + 1, depth);
+            board.undoMove();
+            if (!lost) return false;
+            if (i == 0) {
+                // giữ nhánh chống đỡ đầu tiên làm chuỗi chính
+                pv[ply][0] = cell;
+                System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+                pvLength[ply] = pvLength[ply + 1] + 1;
+            }
+        }
+        return true;
+    }
+
+    // Các ô trống mà player đi vào là thành 5, ghi vào points; trả về số ô (không trùng)
+    private int findFivePoints(int player) {
+        int gen = ++stampGen;
+        int opponent = Searcher.opponent(player);
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            for (int index = board.firstLine(dir); index <= board.lastLine(dir); index++) {
+                long own = board.getLine(player, dir, index);
+                if (Long.bitCount(own) < 4) continue;
+                long empty = board.lineMask(dir, index) & ~(own | board.getLine(opponent, dir, index));
+                long windows = LinePatterns.fours(own, empty);
+                while (windows != 0) {
+                    int s = Long.numberOfTrailingZeros(windows);
+                    windows &= windows - 1;
+                    int pos = Long.numberOfTrailingZeros(empty & LinePatterns.bitRange(s, s + 4));
+                    int cell = board.cellRow(dir, index, pos) * board.getSize() + CaroBoard.cellCol(dir, index, pos);
+                    if (stamp[cell] != gen) {
+                        stamp[cell] = gen;
+                        points[count++] = cell;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Nước tứ (và ba mở nếu withThrees) của player, nước tạo nhiều đe doạ hơn đứng trước.
+    // forced >= 0 thì chỉ xét đúng ô đó.
+    private int generateThreats(int ply, int player, int forced, boolean withThrees) {
+        int[] out = moveList(ply);
+        int count = 0;
+        int size = board.getSize();
+        int minRow = size, maxRow = -1;
+        long cols = 0;
+        for (int r = board.firstLine(CaroBoard.DIR_ROW); r <= board.lastLine(CaroBoard.DIR_ROW); r++) {
+            long row = board.getLine(player, CaroBoard.DIR_ROW, r);
+            if (row == 0) continue;
+            minRow = Math.min(minRow, r);
+            maxRow = r;
+            cols |= row;
+        }
+        if (maxRow < 0) return 0;
+        int minCol = Long.numberOfTrailingZeros(cols);
+        int maxCol = 63 - Long.numberOfLeadingZeros(cols);
+
+        // đe doạ luôn nằm trong vòng 4 ô quanh quân đã có
+        int fromRow = Math.max(0, minRow - 4), toRow = Math.min(size - 1, maxRow + 4);
+        int fromCol = Math.max(0, minCol - 4), toCol = Math.min(size - 1, maxCol + 4);
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromCol; c <= toCol; c++) {
+                int cell = r * size + c;
+                if (forced >= 0 && cell != forced) continue;
+                if (board.getCell(r, c) != CaroBoard.EMPTY) continue;
+                int score = threatScore(r, c, player, withThrees);
+                if (score == 0) continue;
+                // chèn theo điểm giảm dần
+                int i = count++;
+                while (i > 0 && scores[i - 1] < score) {
+                    out[i] = out[i - 1];
+                    scores[i] = scores[i - 1];
+                    i--;
+                }
+                out[i] = cell;
+                scores[i] = score;
+            }
+        }
+        return count;
+    }
+
+    // 0 nếu nước không phải đe doạ; tứ nặng hơn ba mở để nước hai đe doạ được thử trước
+    private int threatScore(int row, int col, int player, boolean withThrees) {
+        int opponent = Searcher.opponent(player);
+        int fours = 0, threes = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int index = board.lineIndex(dir, row, col);
+            int pos = CaroBoard.linePos(dir, row, col);
+            long bit = 1L << pos;
+            long own = board.getLine(player, dir, index) | bit;
+            long empty = board.lineMask(dir, index) & ~(own | board.getLine(opponent, dir, index));
+            int threat = LinePatterns.threatAt(own, empty, pos);
+            if (threat >= LinePatterns.THREAT_FOUR) fours++;
+            else if (threat == LinePatterns.THREAT_OPEN_THREE) threes++;
+        }
+        if (!withThrees) threes = 0;
+        if (fours == 0 && threes == 0) return 0;
+        return fours * 4 + threes;
+    }
+
+    private int[] moveList(int ply) {
+        if (moves[ply] == null) moves[ply] = new int[cells];
+        return moves[ply];
+    }
+
+    // Cách chống ba mở: các ô trống trong cửa sổ 6 ô của mọi hình ba mở của bên tấn công,
+    // cộng với các nước tứ phản công của bên thủ
+    private int generateDefenses(int ply) {
+        int count = generateThreats(ply, defender, -1, false);
+        int[] out = moves[ply];
+        int gen = ++stampGen;
+        for (int i = 0; i < count; i++) stamp[out[i]] = gen;
+
+        for (int dir = 0; dir < 4; dir++) {
+            for (int index = board.firstLine(dir); index <= board.lastLine(dir); index++) {
+                long own = board.getLine(attacker, dir, index);
+                if (Long.bitCount(own) < 3) continue;
+                long empty = board.lineMask(dir, index) & ~(own | board.getLine(defender, dir, index));
+                long windows = LinePatterns.openThrees(own, empty);
+                while (windows != 0) {
+                    int s = Long.numberOfTrailingZeros(windows);
+                    windows &= windows - 1;
+                    long free = empty & LinePatterns.bitRange(s, s + 5);
+                    while (free != 0) {
+                        int pos = Long.numberOfTrailingZeros(free);
+                        free &= free - 1;
+                        int cell = board.cellRow(dir, index, pos) * board.getSize() + CaroBoard.cellCol(dir, index, pos);
+                        if (stamp[cell] != gen) {
+                            stamp[cell] = gen;
+                            out[count++] = cell;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,136 @@
+package com.duyhung.gamecaro;
+
+import java.util.Arrays;
+
+// Bảng chuyển vị kích thước cố định trên mảng nguyên thuỷ, không cấp phát khi tìm kiếm.
+// Mỗi bucket gồm 2 entry: entry đầu ưu tiên giữ nước tìm sâu hơn, entry sau luôn bị ghi đè.
+// Mỗi entry là 2 long: key XOR data và data (độ sâu, loại cận, thế hệ, nước đi tốt nhất, điểm).
+// Nhiều luồng dùng chung không cần khoá: entry bị ghi dở (key và data lệch nhau) sẽ không khớp key
+// khi probe. Bộ đếm hit/miss không đồng bộ nên chỉ là xấp xỉ khi tìm song song.
+public final class TranspositionTable {
+
+    static final int EXACT = 1;
+    static final int LOWER = 2; // điểm thật >= score (cắt beta)
+    static final int UPPER = 3; // điểm thật <= score (không nâng được alpha)
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int MIN_ENTRIES = 1024;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int indexMask;
+    private int generation;
+
+    private long probes;
+    private long hits;
+    private long stores;
+
+    // sizeMb: bộ nhớ tối đa, làm tròn xuống luỹ thừa của 2 số entry
+    public TranspositionTable(int sizeMb) {
+        long entries = Math.max(MIN_ENTRIES, (long) sizeMb * 1024 * 1024 / ENTRY_BYTES);
+        int capacity = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[capacity];
+        data = new long[capacity];
+        indexMask = (capacity - 1) & ~1;
+    }
+
+    // Trả về data của entry khớp key, 0 nếu không có. Mỗi ô chỉ đọc một lần vào biến cục bộ: đọc lại
+    // data[i] sau khi kiểm key có thể lấy phải entry của thế khác vừa được luồng khác ghi vào
+    long probe(long key) {
+        probes++;
+        int i = (int) key & indexMask;
+        long d0 = data[i], k0 = keys[i];
+        if ((k0 ^ d0) == key && d0 != 0) {
+            hits++;
+            return d0;
+        }
+        long d1 = data[i + 1], k1 = keys[i + 1];
+        if ((k1 ^ d1) == key && d1 != 0) {
+            hits++;
+            return d1;
+        }
+        return 0;
+    }
+
+    void store(long key, int depth, int bound, int score, int move) {
+        stores++;
+        long entry = pack(depth, bound, score, move, generation);
+        int i = (int) key & indexMask;
+        long d0 = data[i], k0 = keys[i];
+        long d1 = data[i + 1], k1 = keys[i + 1];
+        int slot;
+        if ((k0 ^ d0) == key) {
+            slot = depth >= depth(d0) || bound == EXACT ? i : i + 1;
+        } else if ((k1 ^ d1) == key) {
+            slot = i + 1;
+        } else if (d0 == 0 || generation(d0) != generation || depth >= depth(d0)) {
+            slot = i;
+        } else {
+            slot = i + 1;
+        }
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    // Gọi đầu mỗi lượt tìm: entry của lượt cũ được ưu tiên thay thế
+    void newSearch() {
+        generation = (generation + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        generation = 0;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public long getSizeBytes() {
+        return (long) keys.length * ENTRY_BYTES;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return probes - hits;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+        stores = 0;
+    }
+
+    // bit 0-1 loại cận, 2-9 độ sâu, 10-15 thế hệ, 16-31 nước đi + 1, 32-63 điểm
+    private static long pack(int depth, int bound, int score, int move, int generation) {
+        return bound | (long) depth << 2 | (long) generation << 10 | (long) (move + 1) << 16 | (long) score << 32;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry & 0x3);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 2) & 0xFF;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 10) & 0x3F;
+    }
+
+    static int move(long entry) {
+        return ((int) (entry >>> 16) & 0xFFFF) - 1;
+    }
+
+    static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+}
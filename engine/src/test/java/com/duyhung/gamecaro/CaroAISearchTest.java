@@ -0,0 +1,231 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class CaroAISearchTest {
+
+    // Gốc giờ cũng cắt alpha-beta nên số nút chỉ có thể ít hơn bản cũ (gốc cửa sổ đầy đủ)
+    @Test
+    public void makeUnmake_sameMoveAsCloneSearch() {
+        for (int seed = 0; seed < 8; seed++) {
+            CaroBoard board = TestPositions.random(seed, 6 + seed);
+            int player = TestPositions.sideToMove(board);
+
+            ReferenceCaroAI reference = new ReferenceCaroAI();
+            int[] expected = reference.getBestMove(board.cloneBoard(), player, 2);
+
+            Searcher searcher = new Searcher(null);
+            searcher.setMoveOrdering(false);
+            int[] actual = searcher.search(board, player, 2);
+
+            assertArrayEquals("seed " + seed, expected, actual);
+            assertTrue("seed " + seed, searcher.nodes <= reference.nodes);
+        }
+    }
+
+    // Độ sâu 4 mới có chuyển vị trong cùng một lượt tìm (A..C..B.. và B..C..A..)
+    @Test
+    public void transpositionTable_sameMoveWithFewerNodes() {
+        for (int seed = 0; seed < 2; seed++) {
+            CaroBoard board = TestPositions.random(100 + seed, 2);
+            int player = TestPositions.sideToMove(board);
+
+            Searcher plain = new Searcher(null);
+            int[] expected = plain.search(board, player, 4);
+
+            TranspositionTable table = new TranspositionTable(8);
+            Searcher withTable = new Searcher(table);
+            int[] actual = withTable.search(board, player, 4);
+
+            assertArrayEquals("seed " + seed, expected, actual);
+            assertTrue(withTable.nodes + " vs " + plain.nodes, withTable.nodes < plain.nodes);
+            // đo được khoảng 10%: dưới 5% là bảng gần như không giữ được gì
+            long probes = table.getHits() + table.getMisses();
+            assertTrue(table.getHits() + "/" + probes, table.getHits() * 20 > probes);
+        }
+    }
+
+    @Test
+    public void transpositionTable_reusedAcrossSearches() {
+        CaroBoard board = TestPositions.random(11, 10);
+        int player = TestPositions.sideToMove(board);
+        TranspositionTable table = new TranspositionTable(8);
+        Searcher searcher = new Searcher(table);
+
+        int[] first = searcher.search(board, player, 3);
+        long firstNodes = searcher.nodes;
+        table.newSearch();
+        int[] second = searcher.search(board, player, 3);
+
+        assertArrayEquals(first, second);
+        assertTrue(searcher.nodes * 10 < firstNodes);
+    }
+
+    @Test
+    public void timedSearch_respectsBudget() {
+        CaroBoard board = TestPositions.random(21, 14);
+        CaroAI ai = new CaroAI();
+        ai.getBestMove(board, TestPositions.sideToMove(board), 14, 50); // chạy nóng
+
+        long start = System.nanoTime();
+        int[] move = ai.getBestMove(board, TestPositions.sideToMove(board), 14, 300);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(move);
+        assertTrue("depth " + ai.getLastDepth(), ai.getLastDepth() >= 2);
+        assertTrue(ai.getLastNodeCount() > 0);
+        assertTrue(elapsedMs + "ms", elapsedMs < 450);
+    }
+
+    @Test
+    public void timedSearch_expiredBudgetStillReturnsMove() {
+        CaroBoard board = TestPositions.random(22, 9);
+        Searcher searcher = new Searcher(null);
+        int[] move = searcher.search(board, TestPositions.sideToMove(board), 10, System.nanoTime());
+        assertNotNull(move);
+        assertEquals(1, searcher.completedDepth);
+        assertEquals(CaroBoard.EMPTY, board.getCell(move[0], move[1]));
+    }
+
+    @Test
+    public void timedSearch_stopsDeepeningOnForcedWin() {
+        CaroBoard board = new CaroBoard();
+        for (int c = 4; c < 8; c++) {
+            board.setMove(7, c, CaroBoard.PLAYER_X);
+            board.setMove(10, c + (c % 2) * 5 - 2, CaroBoard.PLAYER_O);
+        }
+        CaroAI ai = new CaroAI();
+        int[] move = ai.getBestMove(board, CaroBoard.PLAYER_X, board.getMoveCount(), 5000);
+        assertEquals(7, move[0]);
+        assertTrue(move[1] == 3 || move[1] == 8);
+        assertEquals(1, ai.getLastDepth());
+    }
+
+    @Test
+    public void interrupt_cancelsSearchPromptly() throws Exception {
+        CaroBoard board = TestPositions.random(23, 16);
+        CaroAI ai = new CaroAI();
+        long[] elapsedMs = new long[1];
+        Thread worker = new Thread(() -> {
+            long start = System.nanoTime();
+            ai.getBestMove(board, TestPositions.sideToMove(board), 16, 60_000);
+            elapsedMs[0] = (System.nanoTime() - start) / 1_000_000;
+        });
+        worker.start();
+        Thread.sleep(200);
+        worker.interrupt();
+        worker.join(2000);
+
+        assertFalse(worker.isAlive());
+        assertTrue(elapsedMs[0] < 1000);
+    }
+
+    @Test
+    public void search_leavesBoardUnchanged() {
+        CaroBoard board = TestPositions.random(42, 10);
+        CaroBoard before = board.cloneBoard();
+
+        new CaroAI().getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount());
+
+        assertEquals(before.getMoveCount(), board.getMoveCount());
+        assertEquals(before.getHash(), board.getHash());
+        for (int r = 0; r < CaroBoard.SIZE; r++)
+            for (int c = 0; c < CaroBoard.SIZE; c++)
+                assertEquals(before.getCell(r, c), board.getCell(r, c));
+    }
+
+    @Test
+    public void searchStats_describeTheSearch() {
+        CaroBoard board = TestPositions.random(42, 10);
+        CaroBoard before = board.cloneBoard();
+        CaroAI ai = new CaroAI(4);
+        ai.setThreatSearchDepth(0, 0);
+        ai.setSearchDepth(4);
+        int[] move = ai.getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount());
+
+        SearchStats stats = ai.getLastStats();
+        assertEquals(SearchStats.Source.SEARCH, stats.getSource());
+        assertEquals(ai.getLastNodeCount(), stats.getNodes());
+        assertEquals(4, stats.getDepth());
+        assertTrue(stats.getLeafEvaluations() > 0 && stats.getLeafEvaluations() <= stats.getNodes());
+        assertTrue(stats.getCutoffs() > 0);
+        assertTrue(stats.getTtHits() > 0);
+        assertTrue(stats.getSearchNanos() > 0);
+        // biến chính bắt đầu bằng nước đã chọn, đi được trên bàn, và bàn được trả lại như cũ
+        int[][] pv = stats.getPrincipalVariation();
+        assertTrue(pv.length >= 2 && pv.length <= 4);
+        assertArrayEquals(move, pv[0]);
+        CaroBoard line = board.cloneBoard();
+        int player = TestPositions.sideToMove(board);
+        for (int[] step : pv) {
+            assertTrue(line.setMove(step[0], step[1], player));
+            player = Searcher.opponent(player);
+        }
+        assertEquals(before.getHash(), board.getHash());
+        assertTrue(stats.toJson().startsWith("{\"source\":\"search\",\"nodes\":" + stats.getNodes() + ","));
+
+        ai.setThreadCount(2);
+        ai.getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount());
+        assertEquals(2, ai.getLastStats().getThreads());
+        assertTrue(ai.getLastStats().getNodes() > 0);
+        assertTrue(ai.getLastStats().getPrincipalVariation().length >= 1);
+        ai.shutdown();
+    }
+
+    // Cùng thế cờ đặt giữa bàn 30 và bàn 50 (đều xa mép): cùng nước đi và cùng số nút,
+    // tức là việc tìm kiếm chỉ phụ thuộc vùng có quân chứ không phụ thuộc diện tích bàn
+    @Test
+    public void largeBoards_searchOnlyTheOccupiedRegion() {
+        for (int seed = 0; seed < 4; seed++) {
+            CaroBoard position = TestPositions.random(300 + seed, 8 + seed);
+            int player = TestPositions.sideToMove(position);
+            CaroBoard medium = TestPositions.embed(position, 30);
+            CaroBoard large = TestPositions.embed(position, 50);
+
+            Searcher first = new Searcher(new TranspositionTable(1));
+            Searcher second = new Searcher(new TranspositionTable(1));
+            int[] expected = first.search(medium, player, 3);
+            int[] actual = second.search(large, player, 3);
+            assertArrayEquals("seed " + seed, new int[]{expected[0] + 10, expected[1] + 10}, actual);
+            assertEquals("seed " + seed, first.nodes, second.nodes);
+
+            int[] aiMove = new CaroAI().getBestMove(large, player, large.getMoveCount());
+            assertEquals(CaroBoard.EMPTY, large.getCell(aiMove[0], aiMove[1]));
+            assertTrue(Math.abs(aiMove[0] - 25) <= 8 && Math.abs(aiMove[1] - 25) <= 8);
+        }
+    }
+
+    @Test
+    public void makeUnmake_allocatesLessPerMove() {
+        CaroBoard board = TestPositions.random(7, 12);
+        int player = TestPositions.sideToMove(board);
+
+        // chạy nóng một lần cho JIT
+        Searcher searcher = new Searcher(null);
+        new ReferenceCaroAI().getBestMove(board, player, 2);
+        searcher.search(board, player, 2);
+
+        ReferenceCaroAI reference = new ReferenceCaroAI();
+        long start = allocatedBytes();
+        reference.getBestMove(board, player, 2);
+        long referenceBytes = allocatedBytes() - start;
+
+        start = allocatedBytes();
+        searcher.search(board, player, 2);
+        long bytes = allocatedBytes() - start;
+
+        assertTrue(searcher.nodes > 0 && reference.nodes > 0);
+        assertTrue(bytes + "B vs " + referenceBytes + "B", bytes * 10 < referenceBytes);
+        // tính theo nút: ít nút hơn không được là lý do duy nhất khiến cấp phát giảm
+        assertTrue(bytes / searcher.nodes * 10 < referenceBytes / reference.nodes);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,230 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CaroBoardTest {
+
+    @Test
+    public void winner_matchesFullScanOnRandomGames() {
+        Random random = new Random(2024);
+        int[] sizes = {CaroBoard.SIZE, CaroBoard.MIN_SIZE, 19, 30, CaroBoard.MAX_SIZE};
+        for (int game = 0; game < 2000; game++) {
+            int size = sizes[game % sizes.length];
+            CaroBoard board = new CaroBoard(size);
+            int player = CaroBoard.PLAYER_X;
+            // đánh dồn vào vùng nhỏ để thường xuyên có người thắng
+            int span = 5 + random.nextInt(Math.min(size, 15) - 4);
+            int rowOffset = random.nextInt(size - span + 1);
+            int colOffset = random.nextInt(size - span + 1);
+            while (board.getWinner() == CaroBoard.EMPTY && board.getMoveCount() < span * span) {
+                int r = rowOffset + random.nextInt(span);
+                int c = colOffset + random.nextInt(span);
+                if (!board.setMove(r, c, player)) continue;
+                assertEquals(fullScanWin(board, player), board.getWinner() == player);
+                assertEquals(fullScanWin(board, player), board.checkWin(player));
+                assertFalse(board.checkWin(TestPositions.opponent(player)));
+                player = TestPositions.opponent(player);
+            }
+            if (board.getWinner() != CaroBoard.EMPTY) {
+                assertWinningLine(board);
+                board.undoMove();
+                assertEquals(CaroBoard.EMPTY, board.getWinner());
+                assertFalse(board.checkWin(CaroBoard.PLAYER_X));
+                assertFalse(board.checkWin(CaroBoard.PLAYER_O));
+            }
+        }
+    }
+
+    @Test
+    public void undoMove_restoresWinnerAcrossUnmake() {
+        CaroBoard board = new CaroBoard();
+        for (int c = 3; c < 7; c++) board.setMove(7, c, CaroBoard.PLAYER_X);
+        assertEquals(CaroBoard.EMPTY, board.getWinner());
+
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        assertEquals(CaroBoard.PLAYER_X, board.getWinner());
+        assertArrayEquals(new int[][]{{7, 3}, {7, 4}, {7, 5}, {7, 6}, {7, 7}}, board.getWinningLine());
+
+        board.undoMove();
+        assertEquals(CaroBoard.EMPTY, board.getWinner());
+        assertNull(board.getWinningLine());
+
+        board.setMove(7, 2, CaroBoard.PLAYER_X);
+        assertEquals(CaroBoard.PLAYER_X, board.getWinner());
+        assertEquals(CaroBoard.PLAYER_X, board.cloneBoard().getWinner());
+    }
+
+    @Test
+    public void lines_stayInSyncWithCellsThroughMakeUnmake() {
+        Random random = new Random(7);
+        CaroBoard board = new CaroBoard();
+        for (int step = 0; step < 5000; step++) {
+            if (board.getMoveCount() > 0 && (random.nextInt(3) == 0 || board.isFull())) {
+                board.undoMove();
+            } else {
+                int player = board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+                while (!board.setMove(random.nextInt(board.getSize()), random.nextInt(board.getSize()), player)) {
+                }
+            }
+            if (step % 50 == 0) assertLinesMatchCells(board);
+        }
+        assertLinesMatchCells(board.cloneBoard());
+    }
+
+    @Test
+    public void largeBoard_linesAndBoundingBoxFollowMakeUnmake() {
+        Random random = new Random(11);
+        for (int size : new int[]{CaroBoard.MIN_SIZE, 19, 50, CaroBoard.MAX_SIZE}) {
+            CaroBoard board = new CaroBoard(size);
+            assertEquals(size, board.getSize());
+            assertEquals(size * size, board.getEmptyCells().size());
+            for (int step = 0; step < 3000; step++) {
+                if (board.getMoveCount() > 0 && (random.nextInt(3) == 0 || board.isFull())) {
+                    board.undoMove();
+                } else {
+                    int player = board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+                    while (!board.setMove(random.nextInt(size), random.nextInt(size), player)) {
+                    }
+                }
+                if (step % 100 == 0) {
+                    assertLinesMatchCells(board);
+                    assertBoundingBox(board);
+                }
+            }
+            CaroBoard clone = board.cloneBoard();
+            assertLinesMatchCells(clone);
+            assertBoundingBox(clone);
+            assertEquals(size * size - board.getMoveCount(), clone.getEmptyCells().size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsBoardsWiderThanALong() {
+        new CaroBoard(CaroBoard.MAX_SIZE + 1);
+    }
+
+    // Toạ độ ngoài bàn nhỏ vẫn nằm trong mảng đường (đường chéo, cột >= 64 quay vòng): phải bị từ chối
+    @Test
+    public void outsideCells_areRejectedWithoutTouchingTheBoard() {
+        CaroBoard board = new CaroBoard(9);
+        board.setMove(4, 4, CaroBoard.PLAYER_X);
+        long hash = board.getHash();
+        int[][] outside = {{-1, 0}, {0, -1}, {9, 0}, {0, 9}, {16, 3}, {3, 64}, {3, 68}};
+        for (int[] cell : outside) {
+            try {
+                board.setMove(cell[0], cell[1], CaroBoard.PLAYER_O);
+                fail(cell[0] + "," + cell[1]);
+            } catch (IllegalArgumentException e) {
+                // ngoài bàn
+            }
+            try {
+                board.getCell(cell[0], cell[1]);
+                fail(cell[0] + "," + cell[1]);
+            } catch (IllegalArgumentException e) {
+                // ngoài bàn
+            }
+        }
+        assertEquals(hash, board.getHash());
+        assertEquals(1, board.getMoveCount());
+        assertEquals(80, board.getEmptyCells().size());
+    }
+
+    @Test
+    public void hash_isIncrementalAndOrderIndependent() {
+        CaroBoard a = new CaroBoard();
+        a.setMove(7, 7, CaroBoard.PLAYER_X);
+        a.setMove(7, 8, CaroBoard.PLAYER_O);
+        a.setMove(8, 8, CaroBoard.PLAYER_X);
+        CaroBoard b = new CaroBoard();
+        b.setMove(8, 8, CaroBoard.PLAYER_X);
+        b.setMove(7, 8, CaroBoard.PLAYER_O);
+        b.setMove(7, 7, CaroBoard.PLAYER_X);
+        assertEquals(a.getHash(), b.getHash());
+        assertEquals(a.getHash(), a.cloneBoard().getHash());
+
+        CaroBoard c = new CaroBoard();
+        c.setMove(8, 8, CaroBoard.PLAYER_O);
+        assertNotEquals(0, c.getHash());
+        assertNotEquals(a.getHash(), c.getHash());
+
+        a.undoMove();
+        a.undoMove();
+        a.undoMove();
+        assertEquals(0, a.getHash());
+    }
+
+    private static void assertLinesMatchCells(CaroBoard board) {
+        for (int dir = 0; dir < 4; dir++) {
+            for (int index = 0; index < board.lineCount(dir); index++) {
+                long mask = board.lineMask(dir, index);
+                for (int pos = 0; pos < board.getSize(); pos++) {
+                    if ((mask >>> pos & 1) == 0) continue;
+                    int row = board.cellRow(dir, index, pos), col = CaroBoard.cellCol(dir, index, pos);
+                    assertTrue(row >= 0 && row < board.getSize() && col >= 0 && col < board.getSize());
+                    assertEquals(index, board.lineIndex(dir, row, col));
+                    int cell = board.getCell(row, col);
+                    for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+                        assertEquals(cell == player, (board.getLine(player, dir, index) >>> pos & 1) != 0);
+                    }
+                }
+                assertEquals(0, board.getLine(CaroBoard.PLAYER_X, dir, index) & ~mask);
+            }
+        }
+    }
+
+    private static void assertBoundingBox(CaroBoard board) {
+        int minRow = Integer.MAX_VALUE, maxRow = -1, minCol = Integer.MAX_VALUE, maxCol = -1;
+        for (int r = 0; r < board.getSize(); r++)
+            for (int c = 0; c < board.getSize(); c++)
+                if (board.getCell(r, c) != CaroBoard.EMPTY) {
+                    minRow = Math.min(minRow, r);
+                    maxRow = Math.max(maxRow, r);
+                    minCol = Math.min(minCol, c);
+                    maxCol = Math.max(maxCol, c);
+                }
+        if (board.getMoveCount() == 0) {
+            assertEquals(-1, maxRow);
+            assertTrue(board.firstLine(CaroBoard.DIR_ROW) > board.lastLine(CaroBoard.DIR_ROW));
+            return;
+        }
+        assertEquals(minRow, board.getMinRow());
+        assertEquals(maxRow, board.getMaxRow());
+        assertEquals(minCol, board.getMinCol());
+        assertEquals(maxCol, board.getMaxCol());
+    }
+
+    // Quét toàn bàn từng ô một, làm đối chiếu cho bản bitboard
+    private static boolean fullScanWin(CaroBoard board, int player) {
+        int size = board.getSize();
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                for (int[] d : directions) {
+                    int k = 0;
+                    while (k < 5) {
+                        int rr = r + k * d[0], cc = c + k * d[1];
+                        if (rr < 0 || rr >= size || cc < 0 || cc >= size || board.getCell(rr, cc) != player) break;
+                        k++;
+                    }
+                    if (k == 5) return true;
+                }
+        return false;
+    }
+
+    private static void assertWinningLine(CaroBoard board) {
+        int[][] line = board.getWinningLine();
+        assertNotNull(line);
+        assertTrue(line.length >= 5);
+        int dr = line[1][0] - line[0][0];
+        int dc = line[1][1] - line[0][1];
+        for (int k = 0; k < line.length; k++) {
+            assertEquals(board.getWinner(), board.getCell(line[k][0], line[k][1]));
+            assertEquals(line[0][0] + k * dr, line[k][0]);
+            assertEquals(line[0][1] + k * dc, line[k][1]);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class DifficultyTest {
+
+    @Test
+    public void nodeBudget_isNeverExceeded() {
+        for (Difficulty level : new Difficulty[]{Difficulty.EASY, Difficulty.MEDIUM, Difficulty.HARD}) {
+            CaroAI ai = new CaroAI(4);
+            ai.setDifficulty(level);
+            for (int seed = 0; seed < 6; seed++) {
+                CaroBoard board = TestPositions.random(300 + seed, 6 + 3 * seed);
+                int[] move = ai.getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount());
+                assertNotNull(move);
+                assertEquals(CaroBoard.EMPTY, board.getCell(move[0], move[1]));
+                SearchStats stats = ai.getLastStats();
+                assertTrue(level + ": " + stats, stats.getNodes() + stats.getThreatNodes() <= level.getNodeBudget());
+                assertTrue(stats.getDepth() <= level.getMaxDepth());
+            }
+        }
+    }
+
+    @Test
+    public void timeBudget_capsExpertAndCallerBudget() {
+        CaroBoard board = TestPositions.random(310, 14);
+        CaroAI ai = new CaroAI(4);
+        ai.setDifficulty(Difficulty.EXPERT);
+        ai.setThreatSearchDepth(0, 0);
+        long start = System.nanoTime();
+        ai.getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount(), 200);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("took " + ms + " ms", ms < 200 + 100); // ngân sách của người gọi nhỏ hơn thì dùng nó
+    }
+
+    @Test
+    public void noise_isReproducibleForASeed() {
+        CaroBoard board = TestPositions.random(320, 10);
+        int player = TestPositions.sideToMove(board);
+        int[][] moves = new int[3][];
+        for (int i = 0; i < 3; i++) {
+            CaroAI ai = new CaroAI(0);
+            ai.setDifficulty(Difficulty.EASY);
+            ai.setNoiseSeed(i < 2 ? 7 : 8);
+            moves[i] = ai.getBestMove(board, player, board.getMoveCount());
+        }
+        assertArrayEquals(moves[0], moves[1]);
+    }
+
+    @Test
+    public void easy_stillTakesAnImmediateWinAndBlocksFive() {
+        CaroBoard board = new CaroBoard();
+        for (int c = 3; c < 7; c++) {
+            board.setMove(7, c, CaroBoard.PLAYER_X);
+            board.setMove(c == 6 ? 0 : 9, c, CaroBoard.PLAYER_O);
+        }
+        CaroAI ai = new CaroAI(0);
+        ai.setDifficulty(Difficulty.EASY);
+        int[] win = ai.getBestMove(board, CaroBoard.PLAYER_X, board.getMoveCount());
+        assertEquals(7, win[0]);
+        assertTrue(win[1] == 2 || win[1] == 7);
+
+        int[] block = ai.getBestMove(board, CaroBoard.PLAYER_O, board.getMoveCount());
+        assertEquals(7, block[0]);
+        assertTrue(block[1] == 2 || block[1] == 7);
+    }
+
+    @Test
+    public void clearingDifficulty_restoresDefaults() {
+        CaroAI ai = new CaroAI(0);
+        ai.setDifficulty(Difficulty.EASY);
+        assertEquals(0, ai.getVcfDepth());
+        ai.setDifficulty(null);
+        assertNull(ai.getDifficulty());
+        assertEquals(ThreatSolver.DEFAULT_VCF_DEPTH, ai.getVcfDepth());
+        assertEquals(ThreatSolver.DEFAULT_VCT_DEPTH, ai.getVctDepth());
+    }
+
+    // Nước trong sách đến từ tìm sâu: chỉ HARD và EXPERT được dùng, mức dễ phải tự tìm trong ngân sách
+    @Test
+    public void openingBook_isUsedOnlyFromHard() throws IOException {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        board.setMove(6, 8, CaroBoard.PLAYER_O);
+        board.setMove(8, 9, CaroBoard.PLAYER_X);
+        OpeningBook.Builder builder = new OpeningBook.Builder(CaroBoard.SIZE, 6);
+        builder.add(board, 0, 0); // nước mà tìm kiếm không bao giờ chọn
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        builder.write(bytes);
+        OpeningBook book = new OpeningBook(ByteBuffer.wrap(bytes.toByteArray()));
+        for (Difficulty level : Difficulty.values()) {
+            CaroAI ai = new CaroAI(1);
+            ai.setOpeningBook(book);
+            ai.setDifficulty(level);
+            int[] move = ai.getBestMove(board, CaroBoard.PLAYER_O, board.getMoveCount());
+            assertEquals(level.toString(), level.usesOpeningBook(), ai.isLastMoveFromBook());
+            assertEquals(level.toString(), level.usesOpeningBook(), move[0] == 0 && move[1] == 0);
+        }
+        assertFalse(Difficulty.EASY.usesOpeningBook());
+        assertFalse(Difficulty.MEDIUM.usesOpeningBook());
+    }
+
+    // Mức khó hơn không tìm ít nút hơn trên cùng các thế
+    @Test
+    public void harderLevels_searchAtLeastAsMuch() {
+        long previousNodes = 0;
+        for (Difficulty level : Difficulty.values()) {
+            if (level == Difficulty.EXPERT) continue; // chỉ giới hạn theo thời gian
+            CaroAI ai = new CaroAI(4);
+            ai.setDifficulty(level);
+            ai.setNoiseSeed(1);
+            long totalNodes = 0;
+            for (int seed = 0; seed < 6; seed++) {
+                CaroBoard board = TestPositions.random(330 + seed, 8 + 2 * seed);
+                ai.getBestMove(board, TestPositions.sideToMove(board), board.getMoveCount());
+                SearchStats stats = ai.getLastStats();
+                totalNodes += stats.getNodes() + stats.getThreatNodes();
+            }
+            assertTrue(level + ": " + totalNodes, totalNodes >= previousNodes);
+            previousNodes = totalNodes;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EvaluationBenchmarkTest {
+
+    private static final int POSITIONS = 64;
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void bitboardEvaluation_matchesArrayEvaluation() {
+        for (int seed = 0; seed < 300; seed++) {
+            CaroBoard board = TestPositions.random(seed, 1 + seed % 40);
+            assertEquals(ReferenceCaroAI.heuristic(board, CaroBoard.PLAYER_X, CaroBoard.PLAYER_O),
+                    bitboardHeuristic(board, CaroBoard.PLAYER_X, CaroBoard.PLAYER_O));
+            assertEquals(ReferenceCaroAI.heuristic(board, CaroBoard.PLAYER_O, CaroBoard.PLAYER_X),
+                    bitboardHeuristic(board, CaroBoard.PLAYER_O, CaroBoard.PLAYER_X));
+        }
+    }
+
+    // Bản bitboard quét toàn bàn và các bản tăng dần theo đoạn quân / theo bảng hình cờ
+    // (mỗi thế = đặt một quân, lấy điểm, gỡ quân) phải nhanh hơn hẳn bản mảng. Đo được x2.7, x8.3, x7.3;
+    // ngưỡng để thấp vì đây là đồng hồ thật, số liệu chính xác xem EngineBenchmark ở :benchmark
+    @Test
+    public void fasterEvaluations_beatTheArrayBoard() {
+        CaroBoard[] boards = new CaroBoard[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) boards[i] = TestPositions.random(1000 + i, 10 + i % 30);
+        Evaluator[] evaluators = new Evaluator[POSITIONS];
+        PatternEvaluator[] patterns = new PatternEvaluator[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            evaluators[i] = new Evaluator();
+            evaluators[i].init(boards[i]);
+            patterns[i] = new PatternEvaluator();
+            patterns[i].init(boards[i]);
+        }
+
+        long[] sink = new long[1];
+        double arrayRate = bestRate(() -> sink[0] += runArray(boards, ROUNDS));
+        double bitboardRate = bestRate(() -> sink[0] += runBitboard(boards, ROUNDS));
+        double incrementalRate = bestRate(() -> sink[0] += runIncremental(boards, evaluators, ROUNDS));
+        double patternRate = bestRate(() -> sink[0] += runPatterns(boards, patterns, ROUNDS));
+
+        assertNotEquals(0, sink[0]);
+        assertTrue("bitboard x" + bitboardRate / arrayRate, bitboardRate > arrayRate * 1.5);
+        assertTrue("incremental x" + incrementalRate / arrayRate, incrementalRate > arrayRate * 3);
+        assertTrue("patterns x" + patternRate / arrayRate, patternRate > arrayRate * 3);
+    }
+
+    // Số thế mỗi giây của lần nhanh nhất trong 3 lần (lần đầu còn là chạy nóng cho JIT)
+    private static double bestRate(Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return POSITIONS * (double) ROUNDS / (best / 1e9);
+    }
+
+    private static long runArray(CaroBoard[] boards, int rounds) {
+        long sum = 0;
+        for (int k = 0; k < rounds; k++)
+            for (CaroBoard board : boards)
+                sum += ReferenceCaroAI.heuristic(board, CaroBoard.PLAYER_X, CaroBoard.PLAYER_O);
+        return sum;
+    }
+
+    private static long runBitboard(CaroBoard[] boards, int rounds) {
+        long sum = 0;
+        for (int k = 0; k < rounds; k++)
+            for (CaroBoard board : boards)
+                sum += bitboardHeuristic(board, CaroBoard.PLAYER_X, CaroBoard.PLAYER_O);
+        return sum;
+    }
+
+    private static long runIncremental(CaroBoard[] boards, Evaluator[] evaluators, int rounds) {
+        long sum = 0;
+        for (int k = 0; k < rounds; k++) {
+            for (int i = 0; i < boards.length; i++) {
+                CaroBoard board = boards[i];
+                int cell = firstEmptyNearCenter(board, k);
+                int r = cell / CaroBoard.SIZE, c = cell % CaroBoard.SIZE;
+                board.setMove(r, c, TestPositions.sideToMove(board));
+                evaluators[i].update(board, r, c);
+                sum += evaluators[i].heuristic(CaroBoard.PLAYER_X, CaroBoard.PLAYER_O);
+                board.undoMove();
+                evaluators[i].update(board, r, c);
+            }
+        }
+        return sum;
+    }
+
+    private static long runPatterns(CaroBoard[] boards, PatternEvaluator[] evaluators, int rounds) {
+        long sum = 0;
+        for (int k = 0; k < rounds; k++) {
+            for (int i = 0; i < boards.length; i++) {
+                CaroBoard board = boards[i];
+                int cell = firstEmptyNearCenter(board, k);
+                int r = cell / CaroBoard.SIZE, c = cell % CaroBoard.SIZE;
+                board.setMove(r, c, TestPositions.sideToMove(board));
+                evaluators[i].update(board, r, c);
+                sum += evaluators[i].heuristic(CaroBoard.PLAYER_X, CaroBoard.PLAYER_O);
+                board.undoMove();
+                evaluators[i].update(board, r, c);
+            }
+        }
+        return sum;
+    }
+
+    private static int firstEmptyNearCenter(CaroBoard board, int k) {
+        for (int cell = 4 * CaroBoard.SIZE + k % 7; ; cell++)
+            if (board.getCell(cell / CaroBoard.SIZE, cell % CaroBoard.SIZE) == CaroBoard.EMPTY) return cell;
+    }
+
+    private static int bitboardHeuristic(CaroBoard board, int aiPlayer, int opponent) {
+        return Evaluator.evaluate(board, aiPlayer) - Evaluator.evaluate(board, opponent) * 5 * 5;
+    }
+}
@@ -0,0 +1,81 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EvaluatorTest {
+
+    @Test
+    public void incrementalScores_matchFullEvaluation() {
+        Random random = new Random(99);
+        for (int game = 0; game < 50; game++) {
+            CaroBoard board = TestPositions.random(random.nextLong(), random.nextInt(30));
+            Evaluator evaluator = new Evaluator();
+            evaluator.init(board);
+            int base = board.getMoveCount();
+
+            for (int step = 0; step < 400; step++) {
+                if (board.getMoveCount() > base && random.nextInt(5) < 2) {
+                    int cell = board.getMove(board.getMoveCount() - 1);
+                    board.undoMove();
+                    evaluator.update(board, cell / CaroBoard.SIZE, cell % CaroBoard.SIZE);
+                } else {
+                    int r = random.nextInt(CaroBoard.SIZE), c = random.nextInt(CaroBoard.SIZE);
+                    if (!board.setMove(r, c, TestPositions.sideToMove(board))) continue;
+                    evaluator.update(board, r, c);
+                }
+                for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+                    assertEquals(Evaluator.evaluate(board, player), evaluator.score(player));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fullEvaluation_matchesArrayReference() {
+        for (int seed = 0; seed < 200; seed++) {
+            CaroBoard board = TestPositions.random(5000 + seed, seed % 60);
+            Evaluator evaluator = new Evaluator();
+            evaluator.init(board);
+            assertEquals(ReferenceCaroAI.heuristic(board, CaroBoard.PLAYER_X, CaroBoard.PLAYER_O),
+                    evaluator.heuristic(CaroBoard.PLAYER_X, CaroBoard.PLAYER_O));
+        }
+    }
+
+    @Test
+    public void eachRunCountedOnce() {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 5, CaroBoard.PLAYER_X);
+        board.setMove(7, 6, CaroBoard.PLAYER_X);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        // hàng 7: một chuỗi 3 mở 2 đầu; mỗi cột / đường chéo: một quân đơn mở 2 đầu
+        assertEquals(10000 + 3 * 3 * 100, Evaluator.evaluate(board, CaroBoard.PLAYER_X));
+    }
+
+    @Test
+    public void customWeights_changeRunScoresAndDefense() {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 5, CaroBoard.PLAYER_X);
+        board.setMove(7, 6, CaroBoard.PLAYER_X);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        board.setMove(0, 0, CaroBoard.PLAYER_O);
+        EvalWeights weights = EvalWeights.DEFAULT.with("open3", 20000).with("defense", 2);
+        assertEquals(20000 + 3 * 3 * 100, Evaluator.evaluate(board, CaroBoard.PLAYER_X, weights));
+        assertEquals(10000, EvalWeights.DEFAULT.runScore(3, 2)); // bản gốc không bị sửa
+
+        Evaluator evaluator = new Evaluator();
+        evaluator.setWeights(weights);
+        evaluator.init(board);
+        int opponent = Evaluator.evaluate(board, CaroBoard.PLAYER_O, weights);
+        assertEquals(evaluator.score(CaroBoard.PLAYER_X) - opponent * 2,
+                evaluator.heuristic(CaroBoard.PLAYER_X, CaroBoard.PLAYER_O));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownWeightKey_isRejected() {
+        EvalWeights.DEFAULT.with("open5", 1);
+    }
+}
@@ -0,0 +1,166 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GameAnalyzerTest {
+
+    private static GameAnalyzer analyzer(int threads, int depth) {
+        return new GameAnalyzer(threads, () -> {
+            CaroAI ai = new CaroAI(1);
+            ai.setSearchDepth(depth);
+            return ai;
+        }, 0);
+    }
+
+    private static GameAnalyzer.GameSource source(List<GameRecord> games) {
+        Iterator<GameRecord> iterator = games.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    // Ván ngắn tự sinh: vài nước ngẫu nhiên quanh tâm rồi hai máy nông đi tiếp, dừng sau plies nước
+    private static GameRecord game(long seed, int plies) {
+        CaroBoard board = TestPositions.random(seed, 4);
+        GameSession session = new GameSession(board.getSize());
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int cell = board.getMove(i);
+            session.play(cell / board.getSize(), cell % board.getSize());
+        }
+        CaroAI ai = new CaroAI(0);
+        ai.setSearchDepth(1);
+        while (!session.isOver() && session.getMoveCount() < plies) {
+            int[] move = ai.getBestMove(session.snapshot(), session.getSideToMove(), session.getMoveCount());
+            session.play(move[0], move[1]);
+        }
+        return GameRecord.of(session);
+    }
+
+    @Test
+    public void everyPositionIsAnalyzedOnceAndInOrderPerGame() throws Exception {
+        List<GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < 5; i++) games.add(game(40 + i, 10 + 2 * i));
+        List<GameAnalyzer.Position> positions = new ArrayList<>();
+        GameAnalyzer.Summary summary = analyzer(3, 2).analyze(source(games), positions::add);
+
+        assertEquals(5, summary.getGames());
+        assertEquals(0, summary.getInvalidGames());
+        assertEquals(positions.size(), summary.getPositions());
+        int[] nextPly = new int[games.size()];
+        for (GameAnalyzer.Position position : positions) {
+            GameRecord record = games.get(position.getGame());
+            assertEquals(nextPly[position.getGame()]++, position.getPly()); // một luồng đi hết ván theo thứ tự
+            if (position.getPly() < record.getMoveCount()) {
+                assertArrayEquals(record.getMove(position.getPly()), position.getPlayedMove());
+                assertNotNull(position.getVerdict());
+                assertTrue(position.getLoss() >= 0);
+                boolean best = Arrays.equals(position.getPlayedMove(), position.getBestMove());
+                assertEquals(best, position.getVerdict() == GameAnalyzer.Verdict.BEST);
+            } else {
+                assertNull(position.getPlayedMove()); // thế cuối của ván chưa xong
+                assertNull(position.getVerdict());
+            }
+        }
+        for (int g = 0; g < games.size(); g++) {
+            GameRecord record = games.get(g);
+            assertEquals(record.getMoveCount() + (record.replay().isOver() ? 0 : 1), nextPly[g]);
+        }
+    }
+
+    @Test
+    public void missedWin_isABlunderAndTheWinIsBest() throws Exception {
+        // X có bốn mở ở hàng 7 nhưng đi lạc (a1), O chặn một đầu, X thắng ở đầu kia
+        GameRecord record = GameRecord.parseNotation(CaroBoard.SIZE, "f8 f10 g8 g10 h8 h10 i8 o15 a1 e8 j8");
+        List<GameAnalyzer.Position> positions = new ArrayList<>();
+        analyzer(1, 2).analyze(source(Arrays.asList(record)), positions::add);
+
+        assertEquals(record.getMoveCount(), positions.size()); // ván đã xong: không có thế cuối
+        GameAnalyzer.Position missed = positions.get(8);
+        assertEquals(GameAnalyzer.Verdict.BLUNDER, missed.getVerdict());
+        assertTrue(missed.getScore() > missed.getScoreAfter());
+        assertEquals(GameAnalyzer.Verdict.BEST, positions.get(10).getVerdict());
+        assertTrue(positions.get(10).toJson().contains("\"verdict\":\"best\""));
+        assertTrue(missed.toJson().startsWith("{\"game\":0,\"ply\":8,\"player\":\"x\",\"move\":\"a1\","));
+    }
+
+    @Test
+    public void illegalGame_isSkippedAndCounted() throws Exception {
+        List<GameRecord> games = Arrays.asList(
+                new GameRecord(CaroBoard.SIZE, new int[]{112, 112}), // cùng một ô hai lần
+                GameRecord.parseNotation(CaroBoard.SIZE, "h8 h9"));
+        List<GameAnalyzer.Position> positions = new ArrayList<>();
+        GameAnalyzer.Summary summary = analyzer(2, 1).analyze(source(games), positions::add);
+        assertEquals(2, summary.getGames());
+        assertEquals(1, summary.getInvalidGames());
+        assertEquals(3, positions.size());
+        for (GameAnalyzer.Position position : positions) assertEquals(1, position.getGame());
+    }
+
+    @Test
+    public void source_isReadOnlyAFewGamesAhead() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger readAtFirstResult = new AtomicInteger(-1);
+        GameRecord record = GameRecord.parseNotation(CaroBoard.SIZE, "h8 h9 i8");
+        GameAnalyzer.GameSource endless = () -> read.incrementAndGet() <= 200 ? record : null;
+        analyzer(2, 1).analyze(endless, position -> readAtFirstResult.compareAndSet(-1, read.get()));
+        // hàng đợi 2 ván mỗi luồng, cộng ván đang phân tích và ván đang chờ chỗ
+        assertTrue("read " + readAtFirstResult.get(), readAtFirstResult.get() <= 2 * 2 + 2 + 1);
+    }
+
+    @Test
+    public void sinkFailure_stopsTheAnalysis() throws IOException, InterruptedException {
+        List<GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < 20; i++) games.add(GameRecord.parseNotation(CaroBoard.SIZE, "h8 h9 i8 i9"));
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            analyzer(2, 1).analyze(source(games), position -> {
+                if (calls.incrementAndGet() == 3) throw new IllegalStateException("disk full");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("disk full", e.getCause().getMessage());
+        }
+        assertTrue(calls.get() < 20 * 5);
+    }
+
+    // Mỗi ván do một luồng phân tích từ bảng chuyển vị trống, nên số luồng không đổi kết quả
+    @Test
+    public void results_areTheSameForAnyThreadCount() throws Exception {
+        List<GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < 8; i++) games.add(game(60 + i, 24));
+        Map<String, String> first = null;
+        for (int threads : new int[]{1, 2, 4}) {
+            Map<String, String> results = new HashMap<>();
+            GameAnalyzer.Summary summary = analyzer(threads, 2).analyze(source(games), position -> results.put(
+                    position.getGame() + ":" + position.getPly(),
+                    Arrays.toString(position.getBestMove()) + " " + position.getScore() + " " + position.getVerdict()));
+            assertEquals(results.size(), summary.getPositions());
+            if (first == null) first = results;
+            else assertEquals("threads " + threads, first, results);
+        }
+    }
+
+    // Dùng lại bảng chuyển vị giữa các thế của cùng ván không tốn nhiều nút hơn xoá bảng ở mỗi thế
+    @Test
+    public void sharedTable_searchesNoMoreNodes() throws Exception {
+        List<GameRecord> games = new ArrayList<>();
+        for (int i = 0; i < 4; i++) games.add(game(60 + i, 24));
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            GameAnalyzer analyzer = analyzer(1, 3);
+            analyzer.setShareTable(k == 0);
+            int index = k;
+            analyzer.analyze(source(games), position -> nodes[index] += position.getStats().getNodes());
+        }
+        assertTrue(nodes[0] + " vs " + nodes[1], nodes[0] <= nodes[1]);
+    }
+}
@@ -0,0 +1,152 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameRecordTest {
+
+    private static GameSession randomGame(Random random, int size) {
+        GameSession session = new GameSession(size);
+        while (!session.isOver() && session.getMoveCount() < 60) {
+            session.play(random.nextInt(size), random.nextInt(size));
+        }
+        return session;
+    }
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("history", ".rec");
+        file.deleteOnExit();
+        assertTrue(file.delete());
+        return file;
+    }
+
+    @Test
+    public void encode_usesOneBytePerMoveOn15x15AndTwoOnLargerBoards() {
+        GameSession small = randomGame(new Random(1), CaroBoard.SIZE);
+        GameRecord record = GameRecord.of(small);
+        assertEquals(1 + small.getMoveCount(), record.encode().length);
+
+        GameSession large = randomGame(new Random(2), 50);
+        assertEquals(1 + 2 * large.getMoveCount(), GameRecord.of(large).encode().length);
+
+        for (GameSession session : new GameSession[]{small, large}) {
+            GameRecord decoded = GameRecord.decode(GameRecord.of(session).encode());
+            assertEquals(GameRecord.of(session), decoded);
+            GameSession replayed = decoded.replay();
+            assertEquals(session.getStatus(), replayed.getStatus());
+            assertArrayEquals(session.getLastMove(), replayed.getLastMove());
+        }
+    }
+
+    @Test
+    public void appendedMoveLog_decodesAndIgnoresHalfWrittenMove() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GameRecord.writeHeader(log, 19);
+        GameRecord.writeMove(log, 19, 9, 9);
+        GameRecord.writeMove(log, 19, 10, 10);
+        log.write(1); // byte đầu của nước thứ ba, ghi dở
+
+        GameRecord record = GameRecord.decode(log.toByteArray());
+        assertEquals(2, record.getMoveCount());
+        assertArrayEquals(new int[]{10, 10}, record.getMove(1));
+    }
+
+    @Test
+    public void notation_roundTripsAndUsesBottomLeftOrigin() {
+        GameSession session = new GameSession();
+        session.play(7, 7);
+        session.play(6, 8);
+        session.play(14, 0);
+        GameRecord record = GameRecord.of(session);
+        assertEquals("h8 i9 a1", record.toNotation());
+        assertEquals(record, GameRecord.parseNotation(CaroBoard.SIZE, " H8, i9\na1 "));
+
+        GameSession large = new GameSession(30);
+        large.play(0, 29);
+        large.play(29, 26);
+        GameRecord wide = GameRecord.of(large);
+        assertEquals("ad30 aa1", wide.toNotation());
+        assertEquals(wide, GameRecord.parseNotation(30, wide.toNotation()));
+    }
+
+    @Test
+    public void badInput_isRejected() {
+        for (String text : new String[]{"h8 h16", "p1", "88", "h", "h8 h8"}) {
+            try {
+                GameRecord.parseNotation(CaroBoard.SIZE, text).replay();
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+        try {
+            GameRecord.decode(new byte[]{15, (byte) 225});
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    // Chuỗi chữ cái dài làm col tràn số âm; phải bị từ chối ngay khi đọc chứ không lọt vào bản ghi
+    @Test
+    public void longColumnLetters_areRejectedWhileParsing() {
+        for (String token : new String[]{"aaa1", "zzzzzzzzzzzzzz8", "bbbbbbbbbbbbbbbbbbbbbbbbbb1"}) {
+            try {
+                GameRecord.parseNotation(CaroBoard.MAX_SIZE, token);
+                fail(token);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+        assertEquals("bk1", GameRecord.parseNotation(CaroBoard.MAX_SIZE, "bk1").toNotation());
+    }
+
+    @Test
+    public void history_streamsThousandsOfGames() throws IOException {
+        GameHistory history = new GameHistory(tempFile());
+        Random random = new Random(3);
+        GameRecord[] games = new GameRecord[2000];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = GameRecord.of(randomGame(random, i % 2 == 0 ? CaroBoard.SIZE : 19));
+            history.append(games[i]);
+        }
+
+        assertEquals(games.length, history.count());
+        List<GameRecord> page = history.read(1500, 10);
+        assertEquals(10, page.size());
+        for (int i = 0; i < 10; i++) assertEquals(games[1500 + i], page.get(i));
+        try (GameHistory.Reader reader = history.open()) {
+            for (GameRecord game : games) assertEquals(game, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void history_dropsTornTailOnNextAppend() throws IOException {
+        File file = tempFile();
+        GameHistory history = new GameHistory(file);
+        GameRecord first = GameRecord.of(randomGame(new Random(4), CaroBoard.SIZE));
+        history.append(first);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 40, 15, 1, 2}); // ván 40 byte mới ghi được 3
+        }
+        assertEquals(1, history.count());
+
+        GameRecord second = GameRecord.of(randomGame(new Random(5), CaroBoard.SIZE));
+        new GameHistory(file).append(second);
+        assertEquals(2, history.count());
+        assertEquals(second, history.read(1, 1).get(0));
+        try (RandomAccessFile raw = new RandomAccessFile(file, "r")) {
+            assertEquals(2 + first.encode().length + 2 + second.encode().length, raw.length());
+        }
+    }
+}
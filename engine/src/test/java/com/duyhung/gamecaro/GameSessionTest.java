@@ -0,0 +1,99 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameSessionTest {
+
+    @Test
+    public void sidesAlternate_startingWithX() {
+        GameSession session = new GameSession();
+        assertEquals(CaroBoard.PLAYER_X, session.getSideToMove());
+        assertTrue(session.play(7, 7));
+        assertEquals(CaroBoard.PLAYER_X, session.getCell(7, 7));
+        assertEquals(CaroBoard.PLAYER_O, session.getSideToMove());
+        assertTrue(session.play(7, 8));
+        assertEquals(CaroBoard.PLAYER_O, session.getCell(7, 8));
+        assertArrayEquals(new int[]{7, 8}, session.getLastMove());
+        assertEquals(GameSession.Status.IN_PROGRESS, session.getStatus());
+    }
+
+    @Test
+    public void illegalMoves_areRejected() {
+        GameSession session = new GameSession();
+        assertTrue(session.play(0, 0));
+        assertFalse(session.play(0, 0));
+        assertFalse(session.play(-1, 3));
+        assertFalse(session.play(3, CaroBoard.SIZE));
+        assertEquals(1, session.getMoveCount());
+        assertEquals(CaroBoard.PLAYER_O, session.getSideToMove());
+
+        GameSession large = new GameSession(30);
+        assertEquals(30, large.getSize());
+        assertTrue(large.play(29, CaroBoard.SIZE));
+        assertFalse(large.play(3, 30));
+        assertArrayEquals(new int[]{29, CaroBoard.SIZE}, large.getLastMove());
+    }
+
+    @Test
+    public void fiveInRow_endsGame_andUndoReopensIt() {
+        GameSession session = new GameSession();
+        for (int c = 0; c < 4; c++) {
+            session.play(5, c);
+            session.play(9, c);
+        }
+        session.play(5, 4);
+        assertEquals(GameSession.Status.X_WON, session.getStatus());
+        assertEquals(CaroBoard.PLAYER_X, session.getWinner());
+        assertTrue(session.isOver());
+        assertEquals(5, session.getWinningLine().length);
+        assertFalse(session.play(9, 4)); // ván đã kết thúc
+
+        assertTrue(session.undo());
+        assertEquals(GameSession.Status.IN_PROGRESS, session.getStatus());
+        assertEquals(CaroBoard.EMPTY, session.getWinner());
+        assertEquals(CaroBoard.PLAYER_X, session.getSideToMove());
+        assertTrue(session.play(0, 14));
+        assertTrue(session.play(9, 4));
+        assertEquals(GameSession.Status.O_WON, session.getStatus());
+    }
+
+    @Test
+    public void fullBoardWithoutFive_isDraw() {
+        // khối 2 cột đổi màu ở mỗi hàng: không có 5 quân liền theo hướng nào, X có 113 ô, O có 112 ô
+        int size = CaroBoard.SIZE;
+        List<int[]> xs = new ArrayList<>(), os = new ArrayList<>();
+        for (int r = 0; r < size; r++)
+            for (int c = 0; c < size; c++)
+                ((c / 2 + r) % 2 == 0 ? xs : os).add(new int[]{r, c});
+        assertEquals(xs.size(), os.size() + 1);
+
+        GameSession session = new GameSession();
+        for (int i = 0; i < xs.size(); i++) {
+            assertTrue(session.play(xs.get(i)[0], xs.get(i)[1]));
+            if (i < os.size()) assertTrue(session.play(os.get(i)[0], os.get(i)[1]));
+        }
+        assertEquals(GameSession.Status.DRAW, session.getStatus());
+        assertEquals(CaroBoard.EMPTY, session.getWinner());
+        assertTrue(session.isOver());
+    }
+
+    @Test
+    public void snapshot_isIndependent() {
+        GameSession session = new GameSession();
+        session.play(7, 7);
+        CaroBoard copy = session.snapshot();
+        copy.setMove(8, 8, CaroBoard.PLAYER_O);
+        assertEquals(CaroBoard.EMPTY, session.getCell(8, 8));
+        assertEquals(1, session.getMoveCount());
+
+        session.reset();
+        assertEquals(0, session.getMoveCount());
+        assertNull(session.getLastMove());
+        assertEquals(CaroBoard.PLAYER_X, copy.getCell(7, 7));
+    }
+}
@@ -0,0 +1,63 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LinePatternsTest {
+
+    private static final int LENGTH = 9;
+    private static final int OWN = 1, EMPTY = 0, BLOCKED = 2;
+
+    // So với cách đếm từng ô trên mọi đường dài 9 gồm quân ta / trống / bị chặn
+    @Test
+    public void masks_matchCellByCellDefinition() {
+        int total = (int) Math.pow(3, LENGTH);
+        int[] cells = new int[LENGTH];
+        for (int code = 0; code < total; code++) {
+            long own = 0, empty = 0;
+            for (int i = 0, x = code; i < LENGTH; i++, x /= 3) {
+                cells[i] = x % 3;
+                if (cells[i] == OWN) own |= 1L << i;
+                if (cells[i] == EMPTY) empty |= 1L << i;
+            }
+            assertEquals(expected(cells, 5, 0, 0), LinePatterns.fives(own));
+            assertEquals(expected(cells, 5, 4, 0), LinePatterns.fours(own, empty));
+            assertEquals(expectedOpenFours(cells), LinePatterns.openFours(own, empty));
+            assertEquals(expected(cells, 6, 3, 1), LinePatterns.openThrees(own, empty));
+        }
+    }
+
+    // Cửa sổ dài width bắt đầu tại s: bỏ qua `ends` ô mỗi đầu (phải trống),
+    // phần giữa gồm đúng `need` quân và còn lại là ô trống (need = 0 nghĩa là toàn quân)
+    private static long expected(int[] cells, int width, int need, int ends) {
+        long mask = 0;
+        for (int s = 0; s + width <= LENGTH; s++) {
+            boolean ok = true;
+            int own = 0;
+            for (int k = 0; k < width; k++) {
+                int cell = cells[s + k];
+                boolean end = k < ends || k >= width - ends;
+                if (end) {
+                    ok &= cell == EMPTY;
+                } else if (cell == OWN) {
+                    own++;
+                } else {
+                    ok &= cell == EMPTY && need > 0;
+                }
+            }
+            if (ok && (need == 0 || own == need)) mask |= 1L << s;
+        }
+        return mask;
+    }
+
+    private static long expectedOpenFours(int[] cells) {
+        long mask = 0;
+        for (int s = 1; s + 4 < LENGTH; s++) {
+            boolean ok = cells[s - 1] == EMPTY && cells[s + 4] == EMPTY;
+            for (int k = 0; k < 4; k++) ok &= cells[s + k] == OWN;
+            if (ok) mask |= 1L << s;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,90 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoveOrderingTest {
+
+    @Test
+    public void takesImmediateWin() {
+        CaroBoard board = new CaroBoard();
+        for (int r = 3; r < 7; r++) board.setMove(r, 9, CaroBoard.PLAYER_O);
+        board.setMove(2, 9, CaroBoard.PLAYER_X);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        board.setMove(7, 8, CaroBoard.PLAYER_X);
+        board.setMove(8, 8, CaroBoard.PLAYER_X);
+
+        assertArrayEquals(new int[]{7, 9}, new Searcher(null).search(board, CaroBoard.PLAYER_O, 3));
+    }
+
+    @Test
+    public void blocksOpponentFour() {
+        CaroBoard board = new CaroBoard();
+        for (int c = 5; c < 9; c++) board.setMove(7, c, CaroBoard.PLAYER_X);
+        board.setMove(7, 4, CaroBoard.PLAYER_O);
+        board.setMove(8, 6, CaroBoard.PLAYER_O);
+        board.setMove(6, 6, CaroBoard.PLAYER_O);
+
+        assertArrayEquals(new int[]{7, 9}, new Searcher(null).search(board, CaroBoard.PLAYER_O, 3));
+    }
+
+    @Test
+    public void blocksOpenThreeBeforeItBecomesOpenFour() {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 6, CaroBoard.PLAYER_X);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        board.setMove(7, 8, CaroBoard.PLAYER_X);
+        board.setMove(8, 7, CaroBoard.PLAYER_O);
+        board.setMove(9, 9, CaroBoard.PLAYER_O);
+
+        int[] move = new Searcher(new TranspositionTable(4)).search(board, CaroBoard.PLAYER_O, 4);
+        assertEquals(7, move[0]);
+        assertTrue(move[1] == 5 || move[1] == 9);
+    }
+
+    // Không có nước bắt buộc thì nước tốt nhất vẫn phải nằm trong tập ô lân cận của bộ sinh cũ
+    @Test
+    public void orderedSearch_staysWithinNeighborhood() {
+        for (int seed = 0; seed < 10; seed++) {
+            CaroBoard board = TestPositions.random(300 + seed, 5 + seed);
+            int[] move = new Searcher(null).search(board, TestPositions.sideToMove(board), 2);
+            assertEquals(CaroBoard.EMPTY, board.getCell(move[0], move[1]));
+            boolean near = false;
+            for (int r = Math.max(0, move[0] - 3); r <= Math.min(CaroBoard.SIZE - 1, move[0] + 3); r++)
+                for (int c = Math.max(0, move[1] - 3); c <= Math.min(CaroBoard.SIZE - 1, move[1] + 3); c++)
+                    near |= board.getCell(r, c) != CaroBoard.EMPTY;
+            assertTrue(near);
+        }
+    }
+
+    // Bộ sinh mới (sắp + cắt bớt) so với bộ sinh cũ (quét bàn): đo được ít hơn ~7 lần ở độ sâu 2
+    // và 20..100 lần ở độ sâu 3; độ sâu 4 quét bàn vượt 10M nút nên chỉ chặn trên bộ sinh mới
+    @Test
+    public void orderedSearch_visitsFarFewerNodes() {
+        int[] stones = {4, 12, 24};
+        for (int i = 0; i < stones.length; i++) {
+            CaroBoard board = TestPositions.random(400 + i, stones[i]);
+            int player = TestPositions.sideToMove(board);
+            long raster2 = nodes(false, board, player, 2);
+            long ordered2 = nodes(true, board, player, 2);
+            long raster3 = nodes(false, board, player, 3);
+            long ordered3 = nodes(true, board, player, 3);
+            assertTrue(stones[i] + " stones: " + ordered2 + " vs " + raster2, ordered2 * 4 < raster2);
+            assertTrue(stones[i] + " stones: " + ordered3 + " vs " + raster3, ordered3 * 15 < raster3);
+            assertTrue(stones[i] + " stones", nodes(true, board, player, 4) < 100_000);
+        }
+    }
+
+    private static long nodes(boolean ordering, CaroBoard board, int player, int depth) {
+        Searcher searcher = newSearcher(ordering);
+        searcher.search(board, player, depth);
+        return searcher.nodes;
+    }
+
+    private static Searcher newSearcher(boolean ordering) {
+        Searcher searcher = new Searcher(new TranspositionTable(8));
+        searcher.setMoveOrdering(ordering);
+        return searcher;
+    }
+}
@@ -0,0 +1,158 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+
+    private static OpeningBook roundTrip(OpeningBook.Builder builder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        builder.write(bytes);
+        return OpeningBook.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    // Thế lệch tâm, không đối xứng, để 8 ảnh của nó khác nhau
+    private static CaroBoard position() {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        board.setMove(6, 8, CaroBoard.PLAYER_O);
+        board.setMove(8, 9, CaroBoard.PLAYER_X);
+        return board;
+    }
+
+    private static CaroBoard image(CaroBoard board, int symmetry) {
+        CaroBoard image = new CaroBoard(board.getSize());
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int cell = board.getMove(i);
+            int row = cell / board.getSize(), col = cell % board.getSize();
+            int[] moved = OpeningBook.transform(symmetry, row, col, board.getSize());
+            image.setMove(moved[0], moved[1], board.getCell(row, col));
+        }
+        return image;
+    }
+
+    @Test
+    public void symmetries_areABijectionWithInverses() {
+        int size = CaroBoard.SIZE;
+        for (int s = 0; s < 8; s++) {
+            boolean[] hit = new boolean[size * size];
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    int[] image = OpeningBook.transform(s, r, c, size);
+                    hit[image[0] * size + image[1]] = true;
+                    assertArrayEquals(new int[]{r, c}, OpeningBook.transform(OpeningBook.inverse(s), image[0], image[1], size));
+                }
+            }
+            for (boolean h : hit) assertTrue(h);
+        }
+    }
+
+    @Test
+    public void lookup_findsReplyForEverySymmetricImage() throws IOException {
+        CaroBoard board = position();
+        OpeningBook.Builder builder = new OpeningBook.Builder(CaroBoard.SIZE, 6);
+        builder.add(board, 9, 8);
+        OpeningBook book = roundTrip(builder);
+        assertEquals(1, book.getEntryCount());
+
+        for (int s = 0; s < 8; s++) {
+            CaroBoard image = image(board, s);
+            assertEquals(OpeningBook.key(board), OpeningBook.key(image));
+            assertArrayEquals("symmetry " + s, OpeningBook.transform(s, 9, 8, CaroBoard.SIZE), book.lookup(image));
+        }
+    }
+
+    @Test
+    public void lookup_missesOutsideTheBook() throws IOException {
+        OpeningBook.Builder builder = new OpeningBook.Builder(CaroBoard.SIZE, 4);
+        builder.add(new CaroBoard(), 7, 7);
+        builder.add(position(), 9, 8);
+        OpeningBook book = roundTrip(builder);
+
+        assertArrayEquals(new int[]{7, 7}, book.lookup(new CaroBoard()));
+        CaroBoard other = position();
+        other.undoMove();
+        assertNull(book.lookup(other));
+        CaroBoard deep = position();
+        deep.setMove(9, 8, CaroBoard.PLAYER_O);
+        assertNull(book.lookup(deep)); // 4 quân, sách chỉ tới 3
+        assertNull(book.lookup(new CaroBoard(19)));
+    }
+
+    @Test
+    public void mappedFile_matchesHeapCopy() throws IOException {
+        OpeningBook.Builder builder = new OpeningBook.Builder(CaroBoard.SIZE, 6);
+        CaroBoard board = new CaroBoard();
+        builder.add(board, 7, 7);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        builder.add(board, 6, 6);
+        builder.add(position(), 9, 8);
+
+        File file = File.createTempFile("book", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            builder.write(out);
+        }
+        // 20 byte đầu + 10 byte mỗi ô của bảng băm (capacity 8 cho 3 thế)
+        assertEquals(20 + 8 * 10, file.length());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            OpeningBook book = OpeningBook.map(channel, 0, channel.size());
+            assertEquals(3, book.getEntryCount());
+            assertArrayEquals(new int[]{6, 6}, book.lookup(board));
+            assertArrayEquals(new int[]{9, 8}, book.lookup(position()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void garbage_isRejected() {
+        new OpeningBook(ByteBuffer.wrap(new byte[64]));
+    }
+
+    // Bảng đầy (không còn ô khoá 0) và ô trả lời ngoài bàn: tra phải dừng và trả về null, không lặp mãi
+    @Test(timeout = 10_000)
+    public void fullOrCorruptTable_missesInsteadOfSpinning() {
+        int capacity = 8;
+        ByteBuffer data = ByteBuffer.allocate(20 + capacity * 10);
+        data.putInt(0x43424B31).putInt(CaroBoard.SIZE).putInt(6).putInt(capacity).putInt(capacity);
+        for (int i = 0; i < capacity; i++) data.putLong(i + 1);
+        for (int i = 0; i < capacity; i++) data.putShort((short) 0xFFFF);
+        OpeningBook book = new OpeningBook(data);
+        assertNull(book.lookup(position()));
+        assertNull(book.lookup(new CaroBoard()));
+
+        ByteBuffer bad = ByteBuffer.allocate(20 + capacity * 10);
+        bad.putInt(0x43424B31).putInt(CaroBoard.SIZE).putInt(6).putInt(capacity).putInt(capacity);
+        for (int i = 0; i < capacity; i++) bad.putLong(OpeningBook.key(position()));
+        for (int i = 0; i < capacity; i++) bad.putShort((short) 0xFFFF);
+        assertNull(new OpeningBook(bad).lookup(position()));
+    }
+
+    @Test
+    public void caroAI_playsBookMoveWithoutSearching() throws IOException {
+        CaroBoard board = position();
+        OpeningBook.Builder builder = new OpeningBook.Builder(CaroBoard.SIZE, 6);
+        builder.add(board, 5, 5);
+        CaroAI ai = new CaroAI(1);
+        ai.setOpeningBook(roundTrip(builder));
+
+        assertArrayEquals(new int[]{5, 5}, ai.getBestMove(board, CaroBoard.PLAYER_O, board.getMoveCount()));
+        assertTrue(ai.isLastMoveFromBook());
+        assertEquals(0, ai.getLastNodeCount());
+
+        board.setMove(5, 5, CaroBoard.PLAYER_O);
+        int[] move = ai.getBestMove(board, CaroBoard.PLAYER_X, board.getMoveCount(), 50);
+        assertNotNull(move);
+        assertFalse(ai.isLastMoveFromBook());
+        assertTrue(ai.getLastNodeCount() > 0);
+    }
+}
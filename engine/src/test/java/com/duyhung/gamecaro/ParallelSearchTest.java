@@ -0,0 +1,100 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTest {
+
+    @Test
+    public void singleThread_isDeterministic() {
+        CaroBoard board = TestPositions.random(31, 12);
+        int player = TestPositions.sideToMove(board);
+        int[] first = new CaroAI().getBestMove(board, player, 30);
+        for (int run = 0; run < 3; run++) {
+            CaroAI ai = new CaroAI();
+            assertArrayEquals(first, ai.getBestMove(board, player, 30));
+        }
+    }
+
+    @Test
+    public void parallel_findsForcedMovesAndLeavesBoardUntouched() {
+        CaroBoard board = new CaroBoard();
+        for (int c = 5; c < 9; c++) board.setMove(7, c, CaroBoard.PLAYER_X);
+        board.setMove(7, 4, CaroBoard.PLAYER_O);
+        board.setMove(8, 6, CaroBoard.PLAYER_O);
+        board.setMove(6, 6, CaroBoard.PLAYER_O);
+        long hash = board.getHash();
+
+        CaroAI ai = new CaroAI();
+        ai.setThreadCount(4);
+        try {
+            assertArrayEquals(new int[]{7, 9}, ai.getBestMove(board, CaroBoard.PLAYER_O, board.getMoveCount(), 2000));
+            assertEquals(hash, board.getHash());
+        } finally {
+            ai.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_sameScoreAsSingleThread() {
+        for (int seed = 0; seed < 4; seed++) {
+            CaroBoard board = TestPositions.random(40 + seed, 10 + seed);
+            int player = TestPositions.sideToMove(board);
+
+            ParallelSearcher parallel = new ParallelSearcher(null, 3);
+            try {
+                parallel.search(board, player, 3, Long.MAX_VALUE);
+            } finally {
+                parallel.shutdown();
+            }
+            ParallelSearcher single = new ParallelSearcher(null, 1);
+            single.search(board, player, 3, Long.MAX_VALUE);
+            single.shutdown();
+
+            assertEquals(3, parallel.completedDepth);
+            assertEquals("seed " + seed, single.bestScore, parallel.bestScore);
+        }
+    }
+
+    // Đã tiêu nửa ngân sách nút thì không bắt đầu vòng mới (vòng đó sẽ bị cắt giữa chừng, phí nút)
+    @Test
+    public void nodeBudget_halfSpentStartsNoNewDepth() {
+        CaroBoard board = TestPositions.random(45, 12);
+        int player = TestPositions.sideToMove(board);
+        ParallelSearcher unlimited = new ParallelSearcher(null, 1);
+        unlimited.search(board, player, 2, Long.MAX_VALUE);
+        unlimited.shutdown();
+
+        ParallelSearcher limited = new ParallelSearcher(null, 1);
+        limited.setNodeLimit(2 * unlimited.nodes);
+        limited.search(board, player, 20, Long.MAX_VALUE);
+        limited.shutdown();
+        assertEquals(2, limited.completedDepth);
+        assertEquals(unlimited.nodes, limited.nodes);
+    }
+
+    // Chia gốc cho nhiều luồng không được làm phình số nút tới cùng độ sâu (đo được lệch dưới 1%);
+    // thời gian và nodes/s theo số luồng đo bằng ParallelSearchBenchmark ở :benchmark
+    @Test
+    public void moreThreads_searchNoMoreThanAFewExtraNodes() {
+        CaroBoard board = TestPositions.random(50, 16);
+        int player = TestPositions.sideToMove(board);
+        long single = nodesToDepth(board, player, 1, 5);
+        for (int threads : new int[]{2, 4, 8}) {
+            long nodes = nodesToDepth(board, player, threads, 5);
+            assertTrue(threads + " threads: " + nodes + " vs " + single, nodes * 10 <= single * 11);
+        }
+    }
+
+    private static long nodesToDepth(CaroBoard board, int player, int threads, int depth) {
+        ParallelSearcher searcher = new ParallelSearcher(new TranspositionTable(16), threads);
+        try {
+            searcher.search(board, player, depth, Long.MAX_VALUE);
+            assertEquals(depth, searcher.completedDepth);
+            return searcher.nodes;
+        } finally {
+            searcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PatternEvaluatorTest {
+
+    // Đặt hàng 7 theo chuỗi ('X', 'O', '_') bắt đầu từ cột col, trả về hình của quân X ở cột col + at theo hàng ngang
+    private static int rowShape(String cells, int col, int at) {
+        CaroBoard board = new CaroBoard();
+        for (int i = 0; i < cells.length(); i++) {
+            char cell = cells.charAt(i);
+            if (cell == 'X') board.setMove(7, col + i, CaroBoard.PLAYER_X);
+            else if (cell == 'O') board.setMove(7, col + i, CaroBoard.PLAYER_O);
+        }
+        long own = board.getLine(CaroBoard.PLAYER_X, CaroBoard.DIR_ROW, 7);
+        long empty = board.lineMask(CaroBoard.DIR_ROW, 7) & ~(own | board.getLine(CaroBoard.PLAYER_O, CaroBoard.DIR_ROW, 7));
+        return PatternEvaluator.shapeAt(own, empty, col + at);
+    }
+
+    @Test
+    public void shapes_areClassifiedFromTheWindow() {
+        assertEquals(PatternEvaluator.FIVE, rowShape("XXXXX", 5, 2));
+        assertEquals(PatternEvaluator.OPEN_FOUR, rowShape("_XXXX_", 4, 1));
+        assertEquals(PatternEvaluator.FOUR, rowShape("OXXXX_", 4, 4));
+        assertEquals(PatternEvaluator.FOUR, rowShape("XX_XX", 5, 0));
+        assertEquals(PatternEvaluator.FOUR, rowShape("X_XXX", 5, 4));
+        assertEquals(PatternEvaluator.OPEN_THREE, rowShape("_XXX_", 5, 2));
+        assertEquals(PatternEvaluator.BROKEN_THREE, rowShape("_X_XX_", 5, 1));
+        assertEquals(PatternEvaluator.BROKEN_THREE, rowShape("_XX_X_", 5, 4));
+        assertEquals(PatternEvaluator.THREE, rowShape("OXXX__", 5, 2));
+        assertEquals(PatternEvaluator.THREE, rowShape("OX_XX_O", 5, 1));
+        assertEquals(PatternEvaluator.OPEN_TWO, rowShape("_XX_", 5, 1));
+        assertEquals(PatternEvaluator.OPEN_TWO, rowShape("_X_X_", 5, 1));
+        assertEquals(PatternEvaluator.TWO, rowShape("OXX___", 5, 1));
+        assertEquals(PatternEvaluator.ONE, rowShape("X", 7, 0));
+        assertEquals(PatternEvaluator.DEAD, rowShape("OXXXO", 5, 2));
+    }
+
+    @Test
+    public void boardEdge_blocksLikeAnOpponentStone() {
+        assertEquals(PatternEvaluator.FOUR, rowShape("XXXX_", 0, 0));
+        assertEquals(PatternEvaluator.THREE, rowShape("XXX__", 0, 1));
+        assertEquals(PatternEvaluator.DEAD, rowShape("XXO", 0, 1));
+        assertEquals(PatternEvaluator.FOUR, rowShape("_XXXX", CaroBoard.SIZE - 5, 4));
+    }
+
+    @Test
+    public void incrementalScores_matchFullEvaluation() {
+        Random random = new Random(7);
+        for (int game = 0; game < 40; game++) {
+            CaroBoard board = TestPositions.random(random.nextLong(), random.nextInt(30));
+            if (game % 4 == 3) board = TestPositions.embed(board, 19 + game % 3 * 11);
+            int size = board.getSize();
+            PatternEvaluator evaluator = new PatternEvaluator();
+            evaluator.init(board);
+            int base = board.getMoveCount();
+
+            for (int step = 0; step < 400; step++) {
+                if (board.getMoveCount() > base && random.nextInt(5) < 2) {
+                    int cell = board.getMove(board.getMoveCount() - 1);
+                    board.undoMove();
+                    evaluator.update(board, cell / size, cell % size);
+                } else {
+                    int r = random.nextInt(size), c = random.nextInt(size);
+                    if (!board.setMove(r, c, TestPositions.sideToMove(board))) continue;
+                    evaluator.update(board, r, c);
+                }
+                for (int player = CaroBoard.PLAYER_X; player <= CaroBoard.PLAYER_O; player++) {
+                    assertEquals(PatternEvaluator.evaluate(board, player, PatternWeights.DEFAULT), evaluator.score(player));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void openThree_scoresEachStoneAndDefenseScalesOpponent() {
+        CaroBoard board = new CaroBoard();
+        board.setMove(7, 5, CaroBoard.PLAYER_X);
+        board.setMove(0, 0, CaroBoard.PLAYER_O);
+        board.setMove(7, 6, CaroBoard.PLAYER_X);
+        board.setMove(0, 14, CaroBoard.PLAYER_O);
+        board.setMove(7, 7, CaroBoard.PLAYER_X);
+        PatternWeights w = PatternWeights.DEFAULT;
+        // hàng 7: ba quân ba mở; mỗi cột / đường chéo: quân đơn
+        assertEquals(3 * w.get("open_three") + 9 * w.get("one"), PatternEvaluator.evaluate(board, CaroBoard.PLAYER_X, w));
+
+        PatternEvaluator evaluator = new PatternEvaluator();
+        evaluator.setWeights(w.with("defense", 3));
+        evaluator.init(board);
+        assertEquals(evaluator.score(CaroBoard.PLAYER_X) - evaluator.score(CaroBoard.PLAYER_O) * 3,
+                evaluator.heuristic(CaroBoard.PLAYER_X, CaroBoard.PLAYER_O));
+    }
+
+    @Test
+    public void weights_loadFromTextOverDefaults() throws IOException {
+        String text = "# thử\nopen_three = 4000  # ba mở\n\ndefense=10\n";
+        PatternWeights weights = PatternWeights.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4000, weights.get("open_three"));
+        assertEquals(10, weights.get("defense"));
+        assertEquals(PatternWeights.DEFAULT.get("five"), weights.get("five"));
+        assertEquals(weights, PatternWeights.load(new ByteArrayInputStream(
+                weights.toString().getBytes(StandardCharsets.UTF_8))));
+        assertTrue(PatternWeights.DEFAULT.get("five") > PatternWeights.DEFAULT.get("open_four"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownWeightKey_isRejected() throws IOException {
+        PatternWeights.load(new ByteArrayInputStream("open_five = 1\n".getBytes(StandardCharsets.UTF_8)));
+    }
+}
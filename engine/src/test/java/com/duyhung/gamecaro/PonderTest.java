@@ -0,0 +1,132 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PonderTest {
+
+    private static final long BUDGET_MS = 300;
+
+    // Máy đi một nước trên board (sửa board), trả về thống kê của lượt đó
+    private static SearchStats aiMove(CaroAI ai, CaroBoard board) {
+        int player = TestPositions.sideToMove(board);
+        int[] move = ai.getBestMove(board, player, board.getMoveCount(), BUDGET_MS);
+        board.setMove(move[0], move[1], player);
+        return ai.getLastStats();
+    }
+
+    private static CaroAI newAi() {
+        CaroAI ai = new CaroAI(8);
+        ai.setThreatSearchDepth(0, 0); // để nước nào cũng phải tìm kiếm
+        return ai;
+    }
+
+    @Test
+    public void predictedReply_isAnsweredWithoutSearching() throws InterruptedException {
+        CaroBoard board = TestPositions.random(7, 8);
+        CaroAI ai = newAi();
+        int aiPlayer = TestPositions.sideToMove(board);
+        int[][] pv = aiMove(ai, board).getPrincipalVariation();
+        assertTrue(pv.length >= 2);
+
+        ai.ponder(board, aiPlayer);
+        assertTrue(ai.isPondering());
+        Thread.sleep(2 * BUDGET_MS);
+        board.setMove(pv[1][0], pv[1][1], TestPositions.opponent(aiPlayer));
+
+        int[] move = ai.getBestMove(board, aiPlayer, board.getMoveCount(), BUDGET_MS);
+        assertFalse(ai.isPondering());
+        assertEquals(SearchStats.Source.PONDER, ai.getLastStats().getSource());
+        assertEquals(CaroBoard.EMPTY, board.getCell(move[0], move[1]));
+        assertArrayEquals(move, ai.getLastStats().getPrincipalVariation()[0]);
+        assertTrue(ai.getLastStats().getDepth() >= 2);
+    }
+
+    // Mức có ngân sách nút: ponder tìm trong cùng ngân sách, nên nước lấy từ ponder cũng không vượt nó
+    @Test
+    public void ponderHit_staysWithinTheDifficultyNodeBudget() throws InterruptedException {
+        CaroBoard board = TestPositions.random(7, 8);
+        CaroAI ai = new CaroAI(8);
+        ai.setDifficulty(Difficulty.HARD);
+        int aiPlayer = TestPositions.sideToMove(board);
+        int[][] pv = aiMove(ai, board).getPrincipalVariation();
+        assertTrue(pv.length >= 2);
+
+        ai.ponder(board, aiPlayer);
+        Thread.sleep(2 * Difficulty.HARD.getTimeBudgetMs());
+        board.setMove(pv[1][0], pv[1][1], TestPositions.opponent(aiPlayer));
+        ai.getBestMove(board, aiPlayer, board.getMoveCount());
+        SearchStats stats = ai.getLastStats();
+        assertEquals(SearchStats.Source.PONDER, stats.getSource());
+        assertTrue(stats.toString(), stats.getNodes() + stats.getThreatNodes() <= Difficulty.HARD.getNodeBudget());
+        assertTrue(stats.getDepth() <= Difficulty.HARD.getMaxDepth());
+        ai.shutdown();
+    }
+
+    @Test
+    public void otherReply_fallsBackToSearch() throws InterruptedException {
+        CaroBoard board = TestPositions.random(8, 8);
+        CaroAI ai = newAi();
+        int aiPlayer = TestPositions.sideToMove(board);
+        int[][] pv = aiMove(ai, board).getPrincipalVariation();
+
+        ai.ponder(board, aiPlayer);
+        Thread.sleep(BUDGET_MS);
+        for (int cell = 0; ; cell++) { // ô trống đầu tiên khác nước đoán
+            int row = cell / CaroBoard.SIZE, col = cell % CaroBoard.SIZE;
+            if (board.getCell(row, col) == CaroBoard.EMPTY && (pv.length < 2 || row != pv[1][0] || col != pv[1][1])) {
+                board.setMove(row, col, TestPositions.opponent(aiPlayer));
+                break;
+            }
+        }
+        int[] move = ai.getBestMove(board, aiPlayer, board.getMoveCount(), BUDGET_MS);
+        assertNotEquals(SearchStats.Source.PONDER, ai.getLastStats().getSource());
+        assertEquals(CaroBoard.EMPTY, board.getCell(move[0], move[1]));
+    }
+
+    // Dừng bằng interrupt: không trả về được thì test hết giờ (giới hạn rộng, không đo độ trễ)
+    @Test(timeout = 10_000)
+    public void stopPondering_endsTheThreadAndLeavesBoardAlone() throws InterruptedException {
+        CaroBoard board = TestPositions.random(9, 12);
+        CaroBoard before = board.cloneBoard();
+        CaroAI ai = newAi();
+        ai.ponder(board, TestPositions.opponent(TestPositions.sideToMove(board)));
+        Thread.sleep(100);
+        ai.stopPondering();
+        assertFalse(ai.isPondering());
+        assertEquals(before.getHash(), board.getHash());
+        ai.shutdown();
+    }
+
+    // Vài ván ngắn với "người" là một CaroAI nông nghĩ 500 ms mỗi nước (hơn ngân sách của máy): người đi đúng
+    // nước đáp trong biến chính của máy thì lượt sau phải lấy ngay kết quả ponder; không ponder thì không bao giờ
+    @Test
+    public void ponderHits_followThePredictedReply() throws InterruptedException {
+        for (boolean pondering : new boolean[]{false, true}) {
+            for (int game = 0; game < 2; game++) {
+                CaroBoard board = TestPositions.random(40 + game, 4);
+                CaroAI ai = newAi();
+                CaroAI human = new CaroAI(1);
+                human.setSearchDepth(2);
+                int aiPlayer = TestPositions.sideToMove(board);
+                boolean predicted = false;
+                for (int turn = 0; turn < 4 && board.getWinner() == CaroBoard.EMPTY; turn++) {
+                    SearchStats stats = aiMove(ai, board);
+                    boolean hit = stats.getSource() == SearchStats.Source.PONDER;
+                    if (!pondering) assertFalse(hit);
+                    else if (predicted) assertTrue("turn " + turn, hit);
+                    if (board.getWinner() != CaroBoard.EMPTY) break;
+                    if (pondering) ai.ponder(board, aiPlayer);
+                    long think = System.nanoTime();
+                    int[] reply = human.getBestMove(board, TestPositions.opponent(aiPlayer), board.getMoveCount());
+                    Thread.sleep(Math.max(0, 500 - (System.nanoTime() - think) / 1_000_000));
+                    int[][] pv = stats.getPrincipalVariation();
+                    predicted = pv != null && pv.length >= 2 && pv[1][0] == reply[0] && pv[1][1] == reply[1];
+                    board.setMove(reply[0], reply[1], TestPositions.opponent(aiPlayer));
+                }
+                ai.shutdown();
+            }
+        }
+    }
+}
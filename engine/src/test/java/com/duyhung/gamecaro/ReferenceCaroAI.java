@@ -1,21 +1,23 @@
 package com.duyhung.gamecaro;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
-public class CaroAI {
+// Bản minimax cũ (clone bàn ở mỗi nút, đánh giá quét mảng int[][] toàn bàn),
+// giữ lại để so sánh kết quả và chi phí với CaroAI
+class ReferenceCaroAI {
 
-    private static final int MAX_DEPTH = 2;   // Có thể chỉnh xuống 3 nếu lag
     private static final int NEIGHBOR_RANGE = 3;
 
-    public static int[] getBestMove(CaroBoard board, int aiPlayer, int moveCount) {
-        int maxDepth = getAdaptiveDepth(moveCount);
+    long nodes;
 
+    int[] getBestMove(CaroBoard board, int aiPlayer, int maxDepth) {
         int bestScore = Integer.MIN_VALUE;
         int[] bestMove = null;
 
-        List<int[]> candidateMoves = getCandidateMoves(board);
-
-        for (int[] move : candidateMoves) {
+        for (int[] move : getCandidateMoves(board)) {
             CaroBoard newBoard = board.cloneBoard();
             newBoard.setMove(move[0], move[1], aiPlayer);
             int score = minimax(newBoard, 1, false, aiPlayer, Integer.MIN_VALUE, Integer.MAX_VALUE, maxDepth);
@@ -27,27 +29,20 @@ public class CaroAI {
         return bestMove;
     }
 
-    private static int getAdaptiveDepth(int moveCount) {
-        if (moveCount < 20) return MAX_DEPTH;
-        else if (moveCount < 40) return 3;
-        else return 2;
-    }
-
-    private static int minimax(CaroBoard board, int depth, boolean isMaximizing, int aiPlayer,
-                               int alpha, int beta, int maxDepth) {
+    private int minimax(CaroBoard board, int depth, boolean isMaximizing, int aiPlayer,
+                        int alpha, int beta, int maxDepth) {
+        nodes++;
         int opponent = (aiPlayer == CaroBoard.PLAYER_X) ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
 
-        if (board.checkWin(aiPlayer)) return 1000000 - depth * 1000;
-        if (board.checkWin(opponent)) return -1000000 + depth * 1000;
+        if (board.checkWin(aiPlayer)) return Searcher.WIN_SCORE - depth * 1000;
+        if (board.checkWin(opponent)) return -Searcher.WIN_SCORE + depth * 1000;
         if (depth >= maxDepth || board.getEmptyCells().isEmpty()) {
             return heuristic(board, aiPlayer, opponent);
         }
 
-        List<int[]> candidateMoves = getCandidateMoves(board);
-
         if (isMaximizing) {
             int maxEval = Integer.MIN_VALUE;
-            for (int[] move : candidateMoves) {
+            for (int[] move : getCandidateMoves(board)) {
                 CaroBoard newBoard = board.cloneBoard();
                 newBoard.setMove(move[0], move[1], aiPlayer);
                 int eval = minimax(newBoard, depth + 1, false, aiPlayer, alpha, beta, maxDepth);
@@ -58,7 +53,7 @@ public class CaroAI {
             return maxEval;
         } else {
             int minEval = Integer.MAX_VALUE;
-            for (int[] move : candidateMoves) {
+            for (int[] move : getCandidateMoves(board)) {
                 CaroBoard newBoard = board.cloneBoard();
                 newBoard.setMove(move[0], move[1], opponent);
                 int eval = minimax(newBoard, depth + 1, true, aiPlayer, alpha, beta, maxDepth);
@@ -70,6 +65,11 @@ public class CaroAI {
         }
     }
 
+    // Đánh giá trên mảng int[][] bằng countSequence/isOpen như trước khi có bitboard
+    static int heuristic(CaroBoard board, int aiPlayer, int opponent) {
+        return evaluateBoard(board, aiPlayer, false) - evaluateBoard(board, opponent, true) * 5;
+    }
+
     private static List<int[]> getCandidateMoves(CaroBoard board) {
         Set<String> visited = new HashSet<>();
         List<int[]> candidates = new ArrayList<>();
@@ -95,29 +95,30 @@ public class CaroAI {
         if (candidates.isEmpty()) {
             candidates.add(new int[]{CaroBoard.SIZE / 2, CaroBoard.SIZE / 2});
         }
-
         return candidates;
     }
 
-    // Hàm heuristic đánh giá trạng thái bàn, ưu tiên chặn và tấn công
-    private static int heuristic(CaroBoard board, int aiPlayer, int opponent) {
-        int aiScore = evaluateBoard(board, aiPlayer, false);
-        int opponentScore = evaluateBoard(board, opponent, true);
-        return aiScore - opponentScore * 5; // Nhân 5 để ưu tiên chặn
-    }
-
     private static int evaluateBoard(CaroBoard board, int player, boolean isOpponent) {
         int score = 0;
-        int[][] directions = {{0,1}, {1,0}, {1,1}, {1,-1}};
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
 
         for (int r = 0; r < CaroBoard.SIZE; r++) {
             for (int c = 0; c < CaroBoard.SIZE; c++) {
                 if (board.getCell(r, c) == player) {
                     for (int[] dir : directions) {
-                        int count = countSequence(board, r, c, dir[0], dir[1], player);
+                        // chỉ tính từ đầu chuỗi, mỗi chuỗi liên tiếp một lần
+                        int pr = r - dir[0], pc = c - dir[1];
+                        if (pr >= 0 && pr < CaroBoard.SIZE && pc >= 0 && pc < CaroBoard.SIZE && board.getCell(pr, pc) == player) continue;
+                        int count = 0;
+                        int x = r, y = c;
+                        while (x >= 0 && x < CaroBoard.SIZE && y >= 0 && y < CaroBoard.SIZE && board.getCell(x, y) == player) {
+                            count++;
+                            x += dir[0];
+                            y += dir[1];
+                        }
                         boolean openStart = isOpen(board, r - dir[0], c - dir[1]);
                         boolean openEnd = isOpen(board, r + count * dir[0], c + count * dir[1]);
-                        score += getScoreForCount(count, openStart, openEnd, isOpponent);
+                        score += scoreForCount(count, openStart, openEnd, isOpponent);
                     }
                 }
             }
@@ -125,54 +126,20 @@ public class CaroAI {
         return score;
     }
 
-    // Đếm số quân liên tiếp theo hướng (dx, dy)
-    private static int countSequence(CaroBoard board, int r, int c, int dx, int dy, int player) {
-        int count = 0;
-        int x = r;
-        int y = c;
-        while (x >= 0 && x < CaroBoard.SIZE && y >= 0 && y < CaroBoard.SIZE && board.getCell(x, y) == player) {
-            count++;
-            x += dx;
-            y += dy;
-        }
-        return count;
-    }
-
-    // Kiểm tra vị trí có mở (EMPTY) hay không (dùng cho open-ended sequence)
     private static boolean isOpen(CaroBoard board, int r, int c) {
         if (r < 0 || r >= CaroBoard.SIZE || c < 0 || c >= CaroBoard.SIZE) return false;
         return board.getCell(r, c) == CaroBoard.EMPTY;
     }
 
-    // Tính điểm theo độ dài chuỗi và trạng thái 2 đầu chuỗi
-    private static int getScoreForCount(int count, boolean openStart, boolean openEnd, boolean isOpponent) {
+    private static int scoreForCount(int count, boolean openStart, boolean openEnd, boolean isOpponent) {
         if (count >= 5) return 1000000;
-
-        int baseScore = 0;
-
-        if (openStart && openEnd) { // chuỗi mở 2 đầu - rất mạnh
-            switch (count) {
-                case 4: baseScore = 100000; break;
-                case 3: baseScore = 10000; break;
-                case 2: baseScore = 1000; break;
-                case 1: baseScore = 100; break;
-            }
-        } else if (openStart || openEnd) { // chuỗi mở 1 đầu
-            switch (count) {
-                case 4: baseScore = 10000; break;
-                case 3: baseScore = 1000; break;
-                case 2: baseScore = 100; break;
-                case 1: baseScore = 10; break;
-            }
-        } else { // chuỗi đóng (2 đầu bị chặn)
-            switch (count) {
-                case 4: baseScore = 1000; break;
-                case 3: baseScore = 100; break;
-                case 2: baseScore = 10; break;
-                case 1: baseScore = 1; break;
-            }
-        }
-
-        return isOpponent ? baseScore * 5 : baseScore;
+        int[] open2 = {0, 100, 1000, 10000, 100000};
+        int[] open1 = {0, 10, 100, 1000, 10000};
+        int[] closed = {0, 1, 10, 100, 1000};
+        int base;
+        if (openStart && openEnd) base = open2[count];
+        else if (openStart || openEnd) base = open1[count];
+        else base = closed[count];
+        return isOpponent ? base * 5 : base;
     }
 }
@@ -0,0 +1,47 @@
+package com.duyhung.gamecaro;
+
+import java.util.Random;
+
+// Sinh thế cờ ngẫu nhiên (có seed cố định) quanh trung tâm, chưa ai thắng
+final class TestPositions {
+
+    private TestPositions() {
+    }
+
+    static CaroBoard random(long seed, int stones) {
+        Random random = new Random(seed);
+        CaroBoard board = new CaroBoard();
+        int player = CaroBoard.PLAYER_X;
+        int center = CaroBoard.SIZE / 2;
+        while (board.getMoveCount() < stones) {
+            int r = center + random.nextInt(9) - 4;
+            int c = center + random.nextInt(9) - 4;
+            if (!board.setMove(r, c, player)) continue;
+            if (board.checkWin(player)) {
+                board.undoMove();
+                continue;
+            }
+            player = opponent(player);
+        }
+        return board;
+    }
+
+    // Chép các nước của board theo đúng thứ tự sang giữa một bàn size x size
+    static CaroBoard embed(CaroBoard board, int size) {
+        CaroBoard large = new CaroBoard(size);
+        int shift = (size - board.getSize()) / 2;
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int row = board.getMove(i) / board.getSize(), col = board.getMove(i) % board.getSize();
+            large.setMove(row + shift, col + shift, board.getCell(row, col));
+        }
+        return large;
+    }
+
+    static int sideToMove(CaroBoard board) {
+        return board.getMoveCount() % 2 == 0 ? CaroBoard.PLAYER_X : CaroBoard.PLAYER_O;
+    }
+
+    static int opponent(int player) {
+        return player == CaroBoard.PLAYER_X ? CaroBoard.PLAYER_O : CaroBoard.PLAYER_X;
+    }
+}
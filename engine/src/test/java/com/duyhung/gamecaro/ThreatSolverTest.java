@@ -0,0 +1,308 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThreatSolverTest {
+
+    // Thế cờ dạng chữ: 'X', 'O', '.' trống; hàng đầu đặt tại (top, left)
+    private static CaroBoard puzzle(int top, int left, String... rows) {
+        return puzzle(new CaroBoard(), top, left, rows);
+    }
+
+    private static CaroBoard puzzle(CaroBoard board, int top, int left, String... rows) {
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length(); j++) {
+                char ch = rows[i].charAt(j);
+                if (ch == 'X') board.setMove(top + i, left + j, CaroBoard.PLAYER_X);
+                else if (ch == 'O') board.setMove(top + i, left + j, CaroBoard.PLAYER_O);
+            }
+        }
+        return board;
+    }
+
+    // Kiểm chuỗi VCF bằng cách thử từng ô (không dùng bitboard): mỗi nước thủ là ô thắng duy nhất
+    // của bên tấn công, bên thủ không có ô thắng nào, và nước cuối thành 5
+    private static void assertValidVcf(CaroBoard board, int attacker, int[][] line) {
+        int defender = TestPositions.opponent(attacker);
+        assertEquals("chuỗi phải kết thúc bằng nước tấn công", 1, line.length % 2);
+        int start = board.getMoveCount();
+        for (int i = 0; i < line.length; i++) {
+            int player = i % 2 == 0 ? attacker : defender;
+            if (player == defender) {
+                assertEquals(0, winningCells(board, defender));
+                int threats = winningCells(board, attacker);
+                assertTrue(threats >= 1);
+                if (i < line.length - 2) {
+                    assertEquals(1, threats);
+                    assertTrue(wins(board, line[i][0], line[i][1], attacker));
+                }
+            }
+            assertTrue(board.setMove(line[i][0], line[i][1], player));
+        }
+        assertEquals(attacker, board.getWinner());
+        while (board.getMoveCount() > start) board.undoMove();
+    }
+
+    private static int winningCells(CaroBoard board, int player) {
+        int count = 0;
+        for (int r = 0; r < board.getSize(); r++)
+            for (int c = 0; c < board.getSize(); c++)
+                if (board.getCell(r, c) == CaroBoard.EMPTY && wins(board, r, c, player)) count++;
+        return count;
+    }
+
+    private static boolean wins(CaroBoard board, int row, int col, int player) {
+        board.setMove(row, col, player);
+        boolean win = board.getWinner() == player;
+        board.undoMove();
+        return win;
+    }
+
+    @Test
+    public void fivePoint_isOneMoveLine() {
+        CaroBoard board = puzzle(7, 3,
+                "OXXXX.");
+        int[][] line = new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 4);
+        assertNotNull(line);
+        assertEquals(1, line.length);
+        assertArrayEquals(new int[]{7, 8}, line[0]);
+    }
+
+    @Test
+    public void doubleFour_winsInOne() {
+        CaroBoard board = puzzle(5, 3,
+                "OXXX..",
+                "....X.",
+                "....X.",
+                "....X.",
+                "....O.");
+        int[][] line = new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 4);
+        assertNotNull(line);
+        assertEquals(3, line.length);
+        assertArrayEquals(new int[]{5, 7}, line[0]);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+    }
+
+    // Phải đi một nước tứ ở hàng 6 để có quân (6,7) rồi mới thành hai tứ ở (5,7)
+    @Test
+    public void fourThenDoubleFour() {
+        CaroBoard board = puzzle(5, 3,
+                "OXXX..",
+                "OXXX..",
+                "....X.",
+                "....X.",
+                "....O.");
+        // hàng 5 và 6 giống nhau nên hai nước đầu có thể đổi chỗ: (6,7) rồi (5,7), hoặc ngược lại
+        int[][] line = new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 6);
+        assertNotNull(line);
+        assertTrue(line.length <= 5);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+    }
+
+    @Test
+    public void longerLine_isShortestAndNeedsEnoughDepth() {
+        // các nước tứ ở cột 7 đẩy đối thủ chặn ở hàng; quân dồn lại theo đường chéo/cột thành hai tứ
+        CaroBoard board = puzzle(2, 3,
+                "....O.....",
+                "OXXX......",
+                "......XXXO",
+                "OXXX......",
+                "......XXXO");
+        ThreatSolver solver = new ThreatSolver();
+        int[][] line = solver.solveVcf(board, CaroBoard.PLAYER_X, 6);
+        assertNotNull(line);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+        // nước thành 5 cuối cùng không tính vào độ dài
+        int length = (line.length - 1) / 2;
+        assertTrue(length >= 2);
+        assertNull(solver.solveVcf(board, CaroBoard.PLAYER_X, length - 1));
+        assertFalse(solver.isAborted());
+    }
+
+    // Cùng thế cờ ở góc xa của bàn 50x50: chỉ số đường chéo, ô và bộ đệm phải theo kích thước bàn
+    @Test
+    public void longerLine_onFarCornerOfLargeBoard() {
+        CaroBoard board = puzzle(new CaroBoard(50), 44, 39,
+                "....O.....",
+                "OXXX......",
+                "......XXXO",
+                "OXXX......",
+                "......XXXO");
+        ThreatSolver solver = new ThreatSolver();
+        // giải trên bàn 15 trước để bộ đệm phải được cấp lại khi đổi sang bàn 50
+        assertNull(solver.solveVcf(puzzle(7, 3, "OXXX."), CaroBoard.PLAYER_X, 4));
+        int[][] line = solver.solveVcf(board, CaroBoard.PLAYER_X, 6);
+        assertNotNull(line);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+        for (int[] move : line) assertTrue(move[0] >= 40 && move[1] >= 35);
+    }
+
+    @Test
+    public void quietPosition_isRefuted() {
+        CaroBoard board = puzzle(6, 6,
+                ".X.",
+                "XOX",
+                ".O.");
+        ThreatSolver solver = new ThreatSolver();
+        assertNull(solver.solveVcf(board, CaroBoard.PLAYER_X, 10));
+        assertFalse(solver.isAborted());
+        assertNull(solver.solveVct(board, CaroBoard.PLAYER_X, 4));
+        assertFalse(solver.isAborted());
+    }
+
+    // O đã có tứ: hai tứ của X không kịp vì O thành 5 trước
+    @Test
+    public void opponentFour_mustBeBlockedFirst() {
+        CaroBoard board = puzzle(5, 3,
+                "OXXX..",
+                "....X.",
+                "....X.",
+                "....X.",
+                "....O.",
+                "......",
+                "XOOOO.");
+        assertNull(new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 8));
+    }
+
+    // Ô chặn tứ của O cũng chính là ô hai tứ của X
+    @Test
+    public void blockThatIsAlsoDoubleFour() {
+        CaroBoard board = puzzle(0, 2,
+                "X.....",
+                ".O....",
+                "..O...",
+                "...O..",
+                "....O.",
+                ".OXXX.",
+                ".....X",
+                ".....X",
+                ".....X",
+                ".....O");
+        // O: (1,3) (2,4) (3,5) (4,6) -> ô thắng (5,7); X chặn ở (5,7) thành tứ hàng 5 và tứ cột 7
+        assertEquals(CaroBoard.PLAYER_O, board.getCell(4, 6));
+        int[][] line = new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 6);
+        assertNotNull(line);
+        assertArrayEquals(new int[]{5, 7}, line[0]);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+    }
+
+    // Hai ba mở giao nhau: không có VCF nhưng có VCT
+    @Test
+    public void doubleOpenThree_isVctNotVcf() {
+        CaroBoard board = puzzle(5, 6,
+                "..X..",
+                "..X..",
+                "XX...",
+                ".....",
+                ".O.O.");
+        board.setMove(0, 0, CaroBoard.PLAYER_O);
+        board.setMove(14, 14, CaroBoard.PLAYER_O);
+        ThreatSolver solver = new ThreatSolver();
+        assertNull(solver.solveVcf(board, CaroBoard.PLAYER_X, 10));
+        int[][] line = solver.solveVct(board, CaroBoard.PLAYER_X, 4);
+        assertNotNull(line);
+        assertArrayEquals(new int[]{7, 8}, line[0]);
+
+        // chơi theo chuỗi chính thì X thắng
+        int player = CaroBoard.PLAYER_X;
+        for (int[] move : line) {
+            assertTrue(board.setMove(move[0], move[1], player));
+            player = TestPositions.opponent(player);
+        }
+        assertEquals(CaroBoard.PLAYER_X, board.getWinner());
+    }
+
+    // O có thể phản công bằng tứ mở: VCT bằng ba mở không được tính
+    @Test
+    public void vct_respectsCounterFours() {
+        CaroBoard board = puzzle(5, 6,
+                "..X..",
+                "..X..",
+                "XX...",
+                ".....",
+                ".....");
+        board.setMove(12, 2, CaroBoard.PLAYER_O);
+        board.setMove(12, 3, CaroBoard.PLAYER_O);
+        board.setMove(12, 4, CaroBoard.PLAYER_O);
+        board.setMove(0, 0, CaroBoard.PLAYER_O);
+        // O có ba mở ở hàng 12: sau ba mở của X, O đi tứ mở và thắng trước
+        assertNull(new ThreatSolver().solveVct(board, CaroBoard.PLAYER_X, 4));
+    }
+
+    @Test
+    public void solver_leavesBoardUnchanged() {
+        CaroBoard board = puzzle(2, 3,
+                "....O.....",
+                "OXXX......",
+                "......XXXO",
+                "OXXX......",
+                "......XXXO");
+        long hash = board.getHash();
+        int moves = board.getMoveCount();
+        new ThreatSolver().solveVcf(board, CaroBoard.PLAYER_X, 8);
+        new ThreatSolver().solveVct(board, CaroBoard.PLAYER_O, 4);
+        assertEquals(hash, board.getHash());
+        assertEquals(moves, board.getMoveCount());
+    }
+
+    // Quá deadline thì dừng sau vài chục nút và báo aborted, dù giới hạn nút còn xa
+    @Test
+    public void passedDeadline_abortsTheSolve() {
+        ThreatSolver solver = new ThreatSolver();
+        int checked = 0;
+        for (int seed = 0; seed < 100 && checked < 5; seed++) {
+            CaroBoard board = TestPositions.random(700 + seed, 20 + seed % 20);
+            int player = TestPositions.sideToMove(board);
+            solver.setDeadline(Long.MAX_VALUE);
+            solver.solveVct(board, player, 4);
+            if (solver.nodes <= 1_000) continue;
+            checked++;
+            solver.setDeadline(System.nanoTime());
+            assertNull(solver.solveVct(board, player, 4));
+            assertTrue(solver.isAborted());
+            assertTrue("nodes " + solver.nodes, solver.nodes <= 64);
+        }
+        assertTrue(checked > 0);
+    }
+
+    // Mọi chuỗi VCF tìm được trên thế ngẫu nhiên đều phải đúng khi kiểm bằng cách thử từng ô
+    @Test
+    public void randomPositions_vcfLinesAreSound() {
+        ThreatSolver solver = new ThreatSolver();
+        int found = 0;
+        for (int seed = 0; seed < 150; seed++) {
+            CaroBoard board = TestPositions.random(900 + seed, 20 + seed % 30);
+            int player = TestPositions.sideToMove(board);
+            int[][] line = solver.solveVcf(board, player, 10);
+            if (line == null) continue;
+            found++;
+            assertValidVcf(board, player, line);
+        }
+        // hiện tìm được 98/150; tụt mạnh là bộ giải bỏ sót chuỗi chứ không chỉ chậm đi
+        assertTrue("VCF found in " + found + "/150", found >= 75);
+    }
+
+    @Test
+    public void caroAI_playsForcedWinFirst() {
+        CaroBoard board = puzzle(2, 3,
+                "....O.....",
+                "OXXX......",
+                "......XXXO",
+                "OXXX......",
+                "......XXXO");
+        board.setMove(12, 12, CaroBoard.PLAYER_O);
+        board.setMove(12, 13, CaroBoard.PLAYER_O);
+        CaroAI ai = new CaroAI(1);
+        int[] move = ai.getBestMove(board, CaroBoard.PLAYER_X, board.getMoveCount());
+        int[][] line = ai.getLastThreatLine();
+        assertNotNull(line);
+        assertArrayEquals(line[0], move);
+        assertValidVcf(board, CaroBoard.PLAYER_X, line);
+
+        ai.setThreatSearchDepth(0, 0);
+        ai.getBestMove(board, CaroBoard.PLAYER_X, board.getMoveCount());
+        assertNull(ai.getLastThreatLine());
+    }
+}
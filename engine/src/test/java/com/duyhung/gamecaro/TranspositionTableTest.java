@@ -0,0 +1,86 @@
+package com.duyhung.gamecaro;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void capacity_followsMemoryLimit() {
+        assertEquals(1 << 20, new TranspositionTable(16).getCapacity());
+        assertEquals(16L * 1024 * 1024, new TranspositionTable(16).getSizeBytes());
+        assertEquals(1 << 18, new TranspositionTable(5).getCapacity());
+        assertEquals(1024, new TranspositionTable(0).getCapacity());
+    }
+
+    @Test
+    public void storeAndProbe_roundTripsFields() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(0x1234_5678_9ABCL, 7, TranspositionTable.LOWER, -123456, 224);
+
+        long entry = table.probe(0x1234_5678_9ABCL);
+        assertNotEquals(0, entry);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-123456, TranspositionTable.score(entry));
+        assertEquals(224, TranspositionTable.move(entry));
+
+        assertEquals(0, table.probe(0x1234_5678_9ABDL));
+        assertEquals(1, table.getHits());
+        assertEquals(1, table.getMisses());
+    }
+
+    @Test
+    public void deeperEntry_survivesShallowCollision() {
+        TranspositionTable table = new TranspositionTable(0);
+        long stride = table.getCapacity();
+        long deep = 10, shallow1 = deep + stride, shallow2 = deep + 2 * stride; // cùng bucket
+
+        table.store(deep, 8, TranspositionTable.EXACT, 1, 1);
+        table.store(shallow1, 1, TranspositionTable.EXACT, 2, 2);
+        table.store(shallow2, 1, TranspositionTable.EXACT, 3, 3);
+
+        assertEquals(8, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(3, TranspositionTable.score(table.probe(shallow2)));
+        assertEquals(0, table.probe(shallow1));
+
+        // sang lượt tìm mới thì entry cũ nhường chỗ
+        table.newSearch();
+        table.store(shallow1, 1, TranspositionTable.EXACT, 2, 2);
+        assertEquals(0, table.probe(deep));
+    }
+
+    @Test
+    public void noMove_isStoredAsMinusOne() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 0, TranspositionTable.UPPER, 0, -1);
+        assertEquals(-1, TranspositionTable.move(table.probe(42)));
+    }
+
+    // Nhiều luồng ghi không khoá vào cùng vài bucket: entry probe trả về phải luôn là của đúng key đó
+    @Test
+    public void concurrentWriters_neverReturnAnotherKeysEntry() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(0);
+        long stride = table.getCapacity();
+        Thread[] writers = new Thread[3];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                for (int n = 0; n < 300_000; n++) {
+                    long key = 6 + stride * ((n * 7 + seed) % 16); // 16 key, chung một bucket
+                    table.store(key, n & 15, TranspositionTable.EXACT, (int) (key / stride), (int) (key / stride));
+                }
+            });
+            writers[t].start();
+        }
+        for (int n = 0; n < 300_000; n++) {
+            long key = 6 + stride * (n % 16);
+            long entry = table.probe(key);
+            if (entry == 0) continue;
+            assertEquals(key / stride, TranspositionTable.score(entry));
+            assertEquals(key / stride, TranspositionTable.move(entry));
+        }
+        for (Thread writer : writers) writer.join();
+    }
+}
@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "GameCaro"
 include(":app")
+include(":engine")
+include(":benchmark")
+include(":cli")
  
\ No newline at end of file